@@ -0,0 +1,24 @@
+#!/bin/bash
+
+# Builds the JMH benchmark jar and runs it.
+# Any arguments are passed to JMH, e.g.
+#   ./run_benchmarks.sh SnapshotLoadBenchmark -p size=100000
+#   ./run_benchmarks.sh SelectionBenchmark -rf json -rff selection.json
+#   ./run_benchmarks.sh -l          (list benchmarks)
+
+cd "$(dirname "$0")" || exit 1
+
+if ! command -v mvn &> /dev/null; then
+    echo "Error: Maven not found. Please install Maven 3.6 or higher."
+    exit 1
+fi
+
+echo "Building benchmarks..."
+mvn -q -B package -DskipTests
+if [ $? -ne 0 ]; then
+    echo "Benchmark build failed"
+    exit 1
+fi
+
+echo "Running benchmarks..."
+java -jar target/benchmarks.jar "$@"
@@ -0,0 +1,59 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.Student;
+import edu.attendance.util.MappedStudentCsvReader;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CSV record parser on its own, over bytes already in memory, so file system
+ * and mapping costs do not blur the comparison between plain and quote-heavy rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CsvParserBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    /** Fraction of rows with commas, escaped quotes and line breaks inside fields. */
+    @Param({"0.0", "0.5", "1.0"})
+    public double quoteHeavyFraction;
+
+    private ByteBuffer csv;
+    private int recordsStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Student> students = SyntheticRoster.create(size, LocalDate.now(), quoteHeavyFraction);
+        Path baseDir = SyntheticRoster.writeBaseDir(students);
+        try {
+            byte[] bytes = Files.readAllBytes(SyntheticRoster.csvFile(baseDir));
+            csv = ByteBuffer.allocateDirect(bytes.length);
+            csv.put(bytes).flip();
+        } finally {
+            SyntheticRoster.delete(baseDir);
+        }
+        recordsStart = new MappedStudentCsvReader(csv).skipRecord(0, csv.limit());
+    }
+
+    @Benchmark
+    public List<Student> parse() {
+        List<Student> students = new ArrayList<>(size);
+        new MappedStudentCsvReader(csv).parseRange(recordsStart, csv.limit(), students);
+        return students;
+    }
+}
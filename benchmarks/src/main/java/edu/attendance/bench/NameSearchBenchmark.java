@@ -0,0 +1,84 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.Student;
+import edu.attendance.util.NameIndex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search-as-you-type over the roster names.
+ * <p>
+ * {@link #typeQuery} runs the keystrokes of one query through {@link NameIndex.Matches},
+ * so its time divided by the number of keystrokes is the cost of one. The synthetic
+ * roster has only ten first and ten last names, so every prefix matches a large share
+ * of the roster; {@link #linearScan} is the same query as a filter over every name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class NameSearchBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"hopper", "grace ho"})
+    public String query;
+
+    private List<Student> students;
+    private NameIndex index;
+    private NameIndex.Matches matches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        students = SyntheticRoster.create(size, LocalDate.now(), 0);
+        index = new NameIndex(students);
+        matches = index.newMatches();
+    }
+
+    @Benchmark
+    public int typeQuery() {
+        int found = 0;
+        for (int length = 1; length <= query.length(); length++) {
+            matches.setQuery(query.substring(0, length));
+            found += matches.size();
+        }
+        matches.setQuery("");
+        return found;
+    }
+
+    /** The final query as a filter that lower-cases and scans every name. */
+    @Benchmark
+    public int linearScan() {
+        String[] words = query.split(" ");
+        int found = 0;
+        for (Student student : students) {
+            String[] name = student.getName().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+            boolean all = true;
+            for (String word : words) {
+                boolean any = false;
+                for (String part : name) {
+                    if (part.startsWith(word)) {
+                        any = true;
+                        break;
+                    }
+                }
+                all &= any;
+            }
+            if (all) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public NameIndex buildIndex() {
+        return new NameIndex(students);
+    }
+}
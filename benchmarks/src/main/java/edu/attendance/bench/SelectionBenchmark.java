@@ -0,0 +1,142 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.Student;
+import edu.attendance.util.SelectionWeightEngine;
+import edu.attendance.util.StudentSelector;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weight computation and the weighted random pick behind "Random Selection".
+ * <p>
+ * {@link #linearScanPick} is the pick as the controller originally did it: compute every
+ * weight, normalise, then walk the cumulative sum. The other pick benchmarks use
+ * {@link StudentSelector}, which keeps the weights in a Fenwick tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SelectionBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Student> students;
+    private StudentSelector selector;
+    private SelectionWeightEngine engine;
+    private LocalDate today;
+    private Random random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        today = LocalDate.now();
+        students = SyntheticRoster.create(size, today);
+        selector = new StudentSelector(students, Clock.systemDefaultZone());
+        engine = selector.getWeightEngine();
+        random = new Random(7);
+    }
+
+    /** Weight of every student, each call reading the system clock. */
+    @Benchmark
+    public double getSelectionProbabilityAll() {
+        double sum = 0;
+        for (Student student : students) {
+            sum += student.getSelectionProbability();
+        }
+        return sum;
+    }
+
+    /** Weight of every student for a day resolved once. */
+    @Benchmark
+    public double getSelectionProbabilityForDayAll() {
+        double sum = 0;
+        for (Student student : students) {
+            sum += student.getSelectionProbability(today);
+        }
+        return sum;
+    }
+
+    /** Weight of every student from the precomputed cache. */
+    @Benchmark
+    public double cachedWeightAll() {
+        double sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += engine.getWeight(row);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int linearScanPick() {
+        return linearScanPick(students, random);
+    }
+
+    @Benchmark
+    public int selectorPick() {
+        return selector.pickIndex(random);
+    }
+
+    /** A pick followed by a mark and its weight update, the common classroom sequence. */
+    @Benchmark
+    public int selectorPickAndMark() {
+        int index = selector.pickIndex(random);
+        Student student = students.get(index);
+        student.markPresent();
+        selector.update(student);
+        return index;
+    }
+
+    /** Mark and single-student weight update, as done by the attendance buttons. */
+    @Benchmark
+    public void selectorMarkAndUpdate() {
+        next = next + 1 < size ? next + 1 : 0;
+        Student student = students.get(next);
+        student.markPresent();
+        selector.update(student);
+    }
+
+    @Benchmark
+    public int[] selectorPickGroupOfFive() {
+        return selector.pickDistinctIndices(5, random);
+    }
+
+    private static int linearScanPick(List<Student> students, Random random) {
+        // Calculate selection probabilities
+        double[] probabilities = new double[students.size()];
+        double totalProbability = 0;
+
+        for (int i = 0; i < students.size(); i++) {
+            probabilities[i] = students.get(i).getSelectionProbability();
+            totalProbability += probabilities[i];
+        }
+
+        // Normalize probabilities
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] /= totalProbability;
+        }
+
+        // Select a student based on weighted probability
+        double value = random.nextDouble();
+        double cumulativeProbability = 0.0;
+        int selectedIndex = 0;
+
+        for (int i = 0; i < probabilities.length; i++) {
+            cumulativeProbability += probabilities[i];
+            if (value <= cumulativeProbability) {
+                selectedIndex = i;
+                break;
+            }
+        }
+        return selectedIndex;
+    }
+}
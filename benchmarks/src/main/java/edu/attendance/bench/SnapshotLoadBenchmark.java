@@ -0,0 +1,71 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.Student;
+import edu.attendance.util.BinaryStudentSnapshot;
+import edu.attendance.util.MappedStudentCsvReader;
+import edu.attendance.util.ParallelStudentCsvReader;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the same roster from the binary snapshot and from the CSV file, without the
+ * event log replay around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SnapshotLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Path baseDir;
+    private Path csvFile;
+    private Path binaryFile;
+    private ParallelStudentCsvReader parallelReader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        baseDir = SyntheticRoster.writeBaseDir(SyntheticRoster.create(size, LocalDate.now()));
+        csvFile = SyntheticRoster.csvFile(baseDir);
+        binaryFile = SyntheticRoster.binaryFile(baseDir);
+        // Threshold 0 so every size takes the parallel path
+        parallelReader = new ParallelStudentCsvReader(ForkJoinPool.commonPool(), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticRoster.delete(baseDir);
+    }
+
+    @Benchmark
+    public List<Student> csvSequential() throws IOException {
+        return MappedStudentCsvReader.read(csvFile);
+    }
+
+    @Benchmark
+    public List<Student> csvParallel() throws IOException {
+        return parallelReader.read(csvFile);
+    }
+
+    @Benchmark
+    public List<Student> binarySnapshot() throws IOException {
+        return BinaryStudentSnapshot.read(binaryFile);
+    }
+
+    @Benchmark
+    public RosterStore binarySnapshotToRosterStore() throws IOException {
+        return BinaryStudentSnapshot.readRoster(binaryFile);
+    }
+}
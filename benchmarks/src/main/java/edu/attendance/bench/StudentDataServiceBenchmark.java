@@ -0,0 +1,89 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.Student;
+import edu.attendance.util.StudentDataService;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load and save through {@link StudentDataService}, including the event log
+ * replay on load and the record patches or full CSV and binary snapshot rewrite and the
+ * log truncation on save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class StudentDataServiceBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private List<Student> students;
+    private Path baseDir;
+    private Path csvOnlyBaseDir;
+    private StudentDataService service;
+    private StudentDataService csvOnlyService;
+    private int nextMarked;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        students = SyntheticRoster.create(size, LocalDate.now());
+        baseDir = SyntheticRoster.writeBaseDir(students);
+        service = new StudentDataService(baseDir);
+
+        // Without a binary snapshot the service falls back to parsing the CSV
+        csvOnlyBaseDir = SyntheticRoster.writeBaseDir(students);
+        Files.delete(SyntheticRoster.binaryFile(csvOnlyBaseDir));
+        csvOnlyService = new StudentDataService(csvOnlyBaseDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+        csvOnlyService.close();
+        SyntheticRoster.delete(baseDir);
+        SyntheticRoster.delete(csvOnlyBaseDir);
+    }
+
+    /** Startup load from the binary snapshot written by the last save. */
+    @Benchmark
+    public List<Student> loadStudents() {
+        return service.loadStudents();
+    }
+
+    /** Startup load when only the CSV is present, e.g. after a hand edit. */
+    @Benchmark
+    public List<Student> loadStudentsFromCsv() {
+        return csvOnlyService.loadStudents();
+    }
+
+    /** Save after ten students were marked; on larger rosters only their records are written. */
+    @Benchmark
+    public void saveStudents() {
+        markNext(10);
+        service.saveStudents(students);
+    }
+
+    /** Save after a quarter of the roster was marked, which rewrites the CSV and snapshot. */
+    @Benchmark
+    public void saveStudentsFull() {
+        markNext(size / 4 + 1);
+        service.saveStudents(students);
+    }
+
+    private void markNext(int count) {
+        for (int i = 0; i < count; i++) {
+            students.get(nextMarked).markPresent();
+            nextMarked = (nextMarked + 1) % size;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package edu.attendance.bench;
+
+import edu.attendance.model.SimpleStudent;
+import edu.attendance.model.Student;
+import edu.attendance.util.StudentDataService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic rosters for the benchmarks.
+ * <p>
+ * Counters and last-called dates are spread the way a term of real use spreads them:
+ * some students never called, some called within the last week. Quote-heavy rows
+ * contain commas, escaped double quotes and embedded line breaks, which take the
+ * slow paths in the CSV writer and parser.
+ */
+final class SyntheticRoster {
+    private static final long SEED = 42L;
+    private static final String[] FIRST_NAMES = {
+        "Ada", "Grace", "Alan", "Barbara", "Edsger", "Frances", "Donald", "Margaret", "Niklaus", "Radia"
+    };
+    private static final String[] LAST_NAMES = {
+        "Lovelace", "Hopper", "Turing", "Liskov", "Dijkstra", "Allen", "Knuth", "Hamilton", "Wirth", "Perlman"
+    };
+    private static final String[] PLAIN_QUOTES = {
+        "Stay hungry stay foolish",
+        "Simplicity is prerequisite for reliability",
+        "Premature optimization is the root of all evil"
+    };
+    private static final String[] QUOTE_HEAVY_QUOTES = {
+        "\"The best way to predict the future\", she said, \"is to invent it.\"",
+        "Commas, commas, and more commas, all \"escaped\" properly",
+        "First line, with a comma\nSecond line with \"quotes\""
+    };
+
+    private SyntheticRoster() {
+    }
+
+    /**
+     * Creates a roster where every other row is quote-heavy.
+     * @param size Number of students
+     * @param today Day the last-called dates are relative to
+     */
+    static List<Student> create(int size, LocalDate today) {
+        return create(size, today, 0.5);
+    }
+
+    /**
+     * @param size Number of students
+     * @param today Day the last-called dates are relative to
+     * @param quoteHeavyFraction Fraction of rows whose name and quote need CSV escaping
+     */
+    static List<Student> create(int size, LocalDate today, double quoteHeavyFraction) {
+        Random random = new Random(SEED);
+        List<Student> students = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String quote;
+            if (random.nextDouble() < quoteHeavyFraction) {
+                name = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + ", " + name;
+                quote = QUOTE_HEAVY_QUOTES[random.nextInt(QUOTE_HEAVY_QUOTES.length)];
+            } else {
+                quote = PLAIN_QUOTES[random.nextInt(PLAIN_QUOTES.length)];
+            }
+
+            int timesCalled = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(20);
+            int timesAbsent = timesCalled == 0 ? 0 : random.nextInt(timesCalled / 3 + 1);
+            int timesExcused = timesCalled == 0 ? 0 : random.nextInt((timesCalled - timesAbsent) / 4 + 1);
+            int timesPresent = timesCalled - timesAbsent - timesExcused;
+            LocalDate lastCalledDate = timesCalled == 0 ? null : today.minusDays(random.nextInt(60));
+            students.add(new SimpleStudent(id, name, quote, timesCalled, timesPresent,
+                    timesAbsent, timesExcused, lastCalledDate));
+        }
+        return students;
+    }
+
+    /**
+     * Creates a temporary application folder holding the roster as CSV and binary snapshot,
+     * written by {@link StudentDataService} itself.
+     * @return The base directory to pass to {@link StudentDataService#StudentDataService(Path)}
+     */
+    static Path writeBaseDir(List<Student> students) {
+        try {
+            Path baseDir = Files.createTempDirectory("attendance-bench");
+            StudentDataService service = new StudentDataService(baseDir);
+            try {
+                service.saveStudents(students);
+            } finally {
+                service.close();
+            }
+            return baseDir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Path csvFile(Path baseDir) {
+        return baseDir.resolve("resources").resolve("data").resolve("students.csv");
+    }
+
+    static Path binaryFile(Path baseDir) {
+        return baseDir.resolve("resources").resolve("data").resolve("students.bin");
+    }
+
+    /**
+     * Deletes a directory created by {@link #writeBaseDir}.
+     */
+    static void delete(Path directory) {
+        if (directory == null) return;
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.attendance.model;
+
+import edu.attendance.util.StudentIdIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the heap cost per student of the object model ({@link SimpleStudent} in a list)
+ * and the column model ({@link RosterStore}), and of the selector's row index over each.
+ * Names and quotes are the same strings in both models and are left out of the figures.
+ */
+class RosterMemoryTest {
+    private static final int STUDENTS = 20_000;
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 1);
+
+    private String[] names;
+    private String[] quotes;
+    private List<Student> objects;
+    private RosterStore store;
+    private long stringBytes;
+
+    @BeforeEach
+    void createRosters() {
+        names = new String[STUDENTS];
+        quotes = new String[STUDENTS];
+        objects = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            names[i] = "Student " + i;
+            quotes[i] = "Quote " + i;
+            LocalDate lastCalled = i % 3 == 0 ? null : TODAY.minusDays(i % 40);
+            objects.add(new SimpleStudent(1000 + i, names[i], quotes[i], i % 12, i % 7, i % 5, 0, lastCalled));
+        }
+        store = RosterStore.of(objects);
+        stringBytes = GraphLayout.parseInstance(names, quotes).totalSize()
+                - VM.current().sizeOf(names) - VM.current().sizeOf(quotes);
+    }
+
+    @Test
+    void columnModelIsSmallerPerStudent() {
+        double objectBytes = perStudent(GraphLayout.parseInstance(objects).totalSize() - stringBytes);
+        double columnBytes = perStudent(GraphLayout.parseInstance(store).totalSize() - stringBytes);
+        System.out.printf("Per student: object model %.1f bytes, column model %.1f bytes%n",
+                objectBytes, columnBytes);
+        assertTrue(columnBytes < objectBytes, "the column model is not smaller than the object model");
+    }
+
+    @Test
+    void viewOnlyReferencesItsRow() {
+        long viewBytes = VM.current().sizeOf(store.view(0));
+        long objectBytes = VM.current().sizeOf(objects.get(0));
+        System.out.printf("Shallow size: view %d bytes, SimpleStudent %d bytes%n", viewBytes, objectBytes);
+        assertTrue(viewBytes * 2 <= objectBytes, "a view should hold only its store and row");
+        assertFalse(GraphLayout.parseInstance(store.view(0)).getClasses().contains(SimpleStudent.class));
+    }
+
+    @Test
+    void selectorIndexHoldsNoStudents() {
+        StudentIdIndex index = new StudentIdIndex(store.asList());
+        GraphLayout layout = GraphLayout.parseInstance(index);
+        double indexBytes = perStudent(layout.totalSize());
+
+        // The selector's former index: a HashMap from each row's view to a boxed row
+        Map<Student, Integer> viewMap = new HashMap<>(STUDENTS * 2);
+        for (int row = 0; row < STUDENTS; row++) {
+            viewMap.put(store.view(row), row);
+        }
+        double viewMapBytes = perStudent(GraphLayout.parseInstance(viewMap).totalSize()
+                - GraphLayout.parseInstance(store).totalSize());
+        System.out.printf("Selector index per student: by id %.1f bytes, by view %.1f bytes%n",
+                indexBytes, viewMapBytes);
+
+        for (Class<?> type : layout.getClasses()) {
+            assertFalse(Student.class.isAssignableFrom(type), "the index retains " + type.getName());
+        }
+        // At most four slots of an id and a row per student
+        assertTrue(indexBytes <= 33, "index takes " + indexBytes + " bytes per student");
+        assertTrue(indexBytes < viewMapBytes, "the id index is not smaller than the map of views");
+    }
+
+    private static double perStudent(long bytes) {
+        return (double) bytes / STUDENTS;
+    }
+}
@@ -0,0 +1,155 @@
+package edu.attendance.server;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.SimpleStudent;
+import edu.attendance.model.Student;
+import edu.attendance.util.AttendanceEventLog;
+import edu.attendance.util.StudentDataService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a failed group commit leaves the roster and the event log in agreement:
+ * marks of the failed batch and every mark queued behind them for the same students are
+ * undone, and replaying the log gives the counters held in memory.
+ */
+class GroupCommitRollbackTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 1);
+
+    @TempDir
+    Path baseDir;
+
+    private FailingDataService dataService;
+    private ConcurrentRoster roster;
+    private GroupCommitWriter writer;
+
+    @BeforeEach
+    void startWriter() {
+        dataService = new FailingDataService(baseDir);
+        RosterStore store = new RosterStore();
+        store.add(1, "Ada", "", 0, 0, 0, 0, RosterStore.NO_DATE);
+        store.add(2, "Grace", "", 3, 2, 1, 0, (int) TODAY.minusDays(10).toEpochDay());
+        roster = new ConcurrentRoster(store, Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        writer = new GroupCommitWriter(dataService, 16);
+    }
+
+    @AfterEach
+    void stopWriter() {
+        writer.close();
+        roster.close();
+        dataService.close();
+    }
+
+    @Test
+    void failedBatchFailsQueuedMarksOfTheSameStudent() throws Exception {
+        dataService.failNextAppend();
+        CompletableFuture<ConcurrentRoster.Counters> failed = roster.mark(0, AttendanceStatus.PRESENT, writer);
+        assertTrue(dataService.appending.await(5, TimeUnit.SECONDS), "the writer did not start the batch");
+
+        // Queued while the first batch is being written; both include the failing mark's counts
+        CompletableFuture<ConcurrentRoster.Counters> queued = roster.mark(0, AttendanceStatus.ABSENT, writer);
+        CompletableFuture<ConcurrentRoster.Counters> other = roster.mark(1, AttendanceStatus.PRESENT, writer);
+        dataService.release.countDown();
+
+        assertThrows(CompletionException.class, failed::join);
+        assertThrows(CompletionException.class, queued::join);
+        assertEquals(4, other.join().timesCalled);
+        assertCounters(0, 0, 0, 0, RosterStore.NO_DATE, roster.read(0));
+
+        // The student can be marked again once the failed marks are rolled back
+        ConcurrentRoster.Counters after = roster.mark(0, AttendanceStatus.EXCUSED, writer).join();
+        assertCounters(1, 0, 0, 1, (int) TODAY.toEpochDay(), after);
+
+        writer.close();
+        Map<Integer, Student> replayed = replayLog();
+        for (int row = 0; row < roster.size(); row++) {
+            ConcurrentRoster.Counters memory = roster.read(row);
+            Student student = replayed.get(memory.id);
+            assertEquals(memory.timesCalled, student.getTimesCalled(), "calls of student " + memory.id);
+            assertEquals(memory.timesPresent, student.getTimesPresent(), "present of student " + memory.id);
+            assertEquals(memory.timesAbsent, student.getTimesAbsent(), "absent of student " + memory.id);
+            assertEquals(memory.timesExcused, student.getTimesExcused(), "excused of student " + memory.id);
+        }
+    }
+
+    @Test
+    void markAfterFailureIsWrittenWithRestoredCounters() {
+        dataService.failNextAppend();
+        dataService.release.countDown();
+        assertThrows(CompletionException.class, () -> roster.mark(1, AttendanceStatus.ABSENT, writer).join());
+        assertCounters(3, 2, 1, 0, (int) TODAY.minusDays(10).toEpochDay(), roster.read(1));
+
+        ConcurrentRoster.Counters after = roster.mark(1, AttendanceStatus.PRESENT, writer).join();
+        assertCounters(4, 3, 1, 0, (int) TODAY.toEpochDay(), after);
+    }
+
+    private Map<Integer, Student> replayLog() throws IOException {
+        Map<Integer, Student> students = new HashMap<>();
+        for (int row = 0; row < roster.size(); row++) {
+            students.put(roster.getId(row), new SimpleStudent(roster.getId(row), roster.getName(row), ""));
+        }
+        AttendanceEventLog.replay(baseDir.resolve("resources").resolve("data").resolve("students.log"), students);
+        return students;
+    }
+
+    private static void assertCounters(int called, int present, int absent, int excused, int lastCalledDay,
+                                       ConcurrentRoster.Counters counters) {
+        assertEquals(called, counters.timesCalled, "calls");
+        assertEquals(present, counters.timesPresent, "present");
+        assertEquals(absent, counters.timesAbsent, "absent");
+        assertEquals(excused, counters.timesExcused, "excused");
+        assertEquals(lastCalledDay, counters.lastCalledDay, "last-called day");
+    }
+
+    /**
+     * Fails one append once it is released, as a full or unreachable disk would.
+     */
+    private static final class FailingDataService extends StudentDataService {
+        final CountDownLatch appending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean failNext;
+
+        FailingDataService(Path baseDir) {
+            super(baseDir);
+        }
+
+        void failNextAppend() {
+            failNext = true;
+        }
+
+        @Override
+        public void appendAttendanceRecords(ByteBuffer records) {
+            if (failNext) {
+                failNext = false;
+                appending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new RuntimeException("Failed to record attendance");
+            }
+            super.appendAttendanceRecords(records);
+        }
+    }
+}
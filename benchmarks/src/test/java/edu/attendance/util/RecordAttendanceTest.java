@@ -0,0 +1,95 @@
+package edu.attendance.util;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.Student;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that marking a student, as the Present/Absent/Excused buttons do, never syncs the
+ * event log on the calling thread, and that the marks still reach the log. Syncs are seen
+ * through JFR's {@code jdk.FileForce} event, which records the thread that forced a file.
+ */
+class RecordAttendanceTest {
+    private static final int STUDENTS = 20;
+    private static final int MARKS = 200;
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void clickPathDoesNotSync() throws IOException {
+        writeRoster();
+        List<RecordedEvent> forces;
+        StudentDataService service = new StudentDataService(baseDir);
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.FileForce").withThreshold(Duration.ZERO);
+            List<Student> students = service.loadStudents();
+            recording.start();
+            for (int i = 0; i < MARKS; i++) {
+                service.recordAttendance(students.get(i % STUDENTS), AttendanceStatus.values()[i % 3]);
+            }
+            assertTrue(service.flushAttendanceRecords(30_000), "the marks were not written");
+            recording.stop();
+            Path dump = baseDir.resolve("marks.jfr");
+            recording.dump(dump);
+            forces = RecordingFile.readAllEvents(dump);
+        } finally {
+            service.close();
+        }
+
+        assertFalse(forces.isEmpty(), "the event log was never synced");
+        long caller = Thread.currentThread().getId();
+        for (RecordedEvent force : forces) {
+            assertNotEquals(caller, force.getThread().getJavaThreadId(),
+                    "synced " + force.getString("path") + " on the marking thread");
+        }
+    }
+
+    @Test
+    void queuedMarksReachTheLog() throws IOException {
+        writeRoster();
+        StudentDataService service = new StudentDataService(baseDir);
+        List<Student> students = service.loadStudents();
+        for (int i = 0; i < MARKS; i++) {
+            service.recordAttendance(students.get(i % STUDENTS), AttendanceStatus.PRESENT);
+        }
+        service.close();
+
+        StudentDataService reloaded = new StudentDataService(baseDir);
+        try {
+            for (Student student : reloaded.loadStudents()) {
+                assertEquals(MARKS / STUDENTS, student.getTimesCalled(), "calls of student " + student.getId());
+                assertEquals(MARKS / STUDENTS, student.getTimesPresent(), "present of student " + student.getId());
+            }
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    private void writeRoster() throws IOException {
+        Path dataDir = baseDir.resolve("resources").resolve("data");
+        Files.createDirectories(dataDir);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,name,favorite_quote,times_called,times_present,times_absent,times_excused,last_called_date");
+        for (int id = 1; id <= STUDENTS; id++) {
+            lines.add(id + ",Student " + id + ",,0,0,0,0,");
+        }
+        Files.write(dataDir.resolve("students.csv"), lines);
+    }
+}
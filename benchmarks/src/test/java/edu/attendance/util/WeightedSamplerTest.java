@@ -0,0 +1,193 @@
+package edu.attendance.util;
+
+import edu.attendance.model.SimpleStudent;
+import edu.attendance.model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the Fenwick-tree sampler picks students as often as the linear cumulative
+ * scan it replaced. Draws use fixed seeds, so the chi-square statistics are the same on
+ * every run; the bound is the 0.1% critical value for the number of students who can be
+ * picked. Students called today have weight 0 and must never be picked.
+ */
+class WeightedSamplerTest {
+    private static final int STUDENTS = 50;
+    private static final int DRAWS = 200_000;
+    /** Standard normal quantile for p = 0.001. */
+    private static final double Z_999 = 3.09;
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 1);
+
+    private List<Student> students;
+    private double[] weights;
+    private double criticalValue;
+
+    @BeforeEach
+    void createRoster() {
+        Random random = new Random(7);
+        students = new ArrayList<>();
+        weights = new double[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            int called = random.nextInt(12);
+            int absent = called == 0 ? 0 : random.nextInt(called + 1);
+            LocalDate lastCalled = called == 0 ? null : TODAY.minusDays(random.nextInt(30));
+            Student student = new SimpleStudent(i + 1, "Student " + i, "", called, called - absent, absent, 0, lastCalled);
+            students.add(student);
+            weights[i] = student.getSelectionProbability(TODAY);
+        }
+        criticalValue = criticalValue(weights);
+    }
+
+    @Test
+    void sampleMatchesLinearScan() {
+        WeightedSampler sampler = new WeightedSampler(weights);
+        long[] fenwick = new long[STUDENTS];
+        long[] linear = new long[STUDENTS];
+        Random fenwickRandom = new Random(1);
+        Random linearRandom = new Random(2);
+        for (int i = 0; i < DRAWS; i++) {
+            fenwick[sampler.sample(fenwickRandom.nextDouble())]++;
+            linear[linearScan(weights, linearRandom.nextDouble())]++;
+        }
+
+        double[] expected = normalized(weights);
+        assertNeverPicksZeroWeights(fenwick);
+        assertTrue(chiSquare(fenwick, expected) < criticalValue, "sampler differs from the weights");
+        assertTrue(chiSquare(linear, expected) < criticalValue, "linear scan differs from the weights");
+        assertTrue(twoSampleChiSquare(fenwick, linear) < criticalValue, "sampler differs from the linear scan");
+    }
+
+    @Test
+    void selectorPicksMatchLinearScan() {
+        Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        StudentSelector selector = new StudentSelector(students, clock);
+        try {
+            long[] picked = new long[STUDENTS];
+            long[] linear = new long[STUDENTS];
+            Random pickRandom = new Random(3);
+            Random linearRandom = new Random(4);
+            for (int i = 0; i < DRAWS; i++) {
+                picked[selector.pickIndex(pickRandom)]++;
+                linear[linearScan(weights, linearRandom.nextDouble())]++;
+            }
+            assertNeverPicksZeroWeights(picked);
+            assertTrue(twoSampleChiSquare(picked, linear) < criticalValue, "selector differs from the linear scan");
+        } finally {
+            selector.getWeightEngine().close();
+        }
+    }
+
+    @Test
+    void updatedWeightsMatchRebuiltSampler() {
+        WeightedSampler sampler = new WeightedSampler(weights);
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            int index = random.nextInt(STUDENTS);
+            weights[index] = random.nextInt(4) == 0 ? 0 : random.nextDouble() * 10;
+            sampler.setWeight(index, weights[index]);
+        }
+
+        WeightedSampler rebuilt = new WeightedSampler(weights);
+        long[] updated = new long[STUDENTS];
+        long[] fresh = new long[STUDENTS];
+        for (int i = 0; i < 10_000; i++) {
+            double u = random.nextDouble();
+            int index = sampler.sample(u);
+            updated[index]++;
+            fresh[rebuilt.sample(u)]++;
+            assertTrue(weights[index] > 0, "picked an index with zero weight");
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            assertEquals(fresh[i], updated[i], 10, "picks of index " + i);
+        }
+    }
+
+    /**
+     * The pick as the controller made it before the sampler: normalize the weights, then
+     * walk their cumulative sum until it reaches the random value.
+     */
+    private static int linearScan(double[] weights, double value) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double cumulative = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i] / total;
+            if (value <= cumulative) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void assertNeverPicksZeroWeights(long[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (weights[i] == 0) {
+                assertEquals(0, counts[i], "picks of student " + i + ", who has weight 0");
+            }
+        }
+    }
+
+    /**
+     * Wilson-Hilferty approximation of the chi-square quantile, with one degree of freedom
+     * fewer than there are students with positive weight.
+     */
+    private static double criticalValue(double[] weights) {
+        int df = -1;
+        for (double weight : weights) {
+            if (weight > 0) df++;
+        }
+        double c = 2.0 / (9.0 * df);
+        return df * Math.pow(1 - c + Z_999 * Math.sqrt(c), 3);
+    }
+
+    private static double[] normalized(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] p = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            p[i] = weights[i] / total;
+        }
+        return p;
+    }
+
+    private static double chiSquare(long[] counts, double[] expectedShare) {
+        long n = 0;
+        for (long count : counts) {
+            n += count;
+        }
+        double statistic = 0;
+        for (int i = 0; i < counts.length; i++) {
+            double expected = expectedShare[i] * n;
+            if (expected == 0) continue;
+            statistic += (counts[i] - expected) * (counts[i] - expected) / expected;
+        }
+        return statistic;
+    }
+
+    /**
+     * Chi-square statistic for two samples of equal size drawn from the same distribution.
+     */
+    private static double twoSampleChiSquare(long[] a, long[] b) {
+        double statistic = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] + b[i] > 0) {
+                statistic += (double) (a[i] - b[i]) * (a[i] - b[i]) / (a[i] + b[i]);
+            }
+        }
+        return statistic;
+    }
+}
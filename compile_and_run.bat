@@ -1,14 +1,25 @@
 @echo off
 
+REM Usage: compile_and_run.bat [--cds]
+REM   --cds  Start from an application class-data sharing (AppCDS) archive (JDK 13+).
+REM          The first run records the loaded classes into bin\attendance.jsa on exit;
+REM          later runs map them instead of loading them again, which shortens startup.
+
 REM Setting up variables
 set JAVAFX_PATH=C:\path\to\javafx-sdk
 set SRC_DIR=src
 set OUTPUT_DIR=bin
 set MAIN_CLASS=edu.attendance.AttendanceApplication
+set APP_JAR=%OUTPUT_DIR%\attendance.jar
+set CDS_ARCHIVE=%OUTPUT_DIR%\attendance.jsa
 
 REM Create output directory if it doesn't exist
 if not exist %OUTPUT_DIR% mkdir %OUTPUT_DIR%
 
+REM An archive is only valid for the jar it was created from, so with --cds an
+REM existing jar and archive are reused; delete the archive after changing the code
+if "%1"=="--cds" if exist %APP_JAR% if exist %CDS_ARCHIVE% goto resources
+
 echo Compiling Java files...
 REM Compile Java files
 javac --module-path %JAVAFX_PATH%\lib ^
@@ -17,22 +28,42 @@ javac --module-path %JAVAFX_PATH%\lib ^
       %SRC_DIR%\edu\attendance\*.java ^
       %SRC_DIR%\edu\attendance\model\*.java ^
       %SRC_DIR%\edu\attendance\controller\*.java ^
-      %SRC_DIR%\edu\attendance\util\*.java
+      %SRC_DIR%\edu\attendance\util\*.java ^
+      %SRC_DIR%\edu\attendance\server\*.java ^
+      %SRC_DIR%\edu\attendance\report\*.java ^
+      %SRC_DIR%\edu\attendance\simulation\*.java ^
+      %SRC_DIR%\edu\attendance\importer\*.java
 
 if %ERRORLEVEL% NEQ 0 (
     echo Compilation failed
     exit /b 1
 )
 
+REM Class-data sharing archives classes from jars only
+jar --create --file %APP_JAR% -C %OUTPUT_DIR% edu
+if exist %CDS_ARCHIVE% del %CDS_ARCHIVE%
+
+:resources
 echo Copying resources...
 REM Copy resources
 if not exist %OUTPUT_DIR%\resources mkdir %OUTPUT_DIR%\resources
 xcopy /E /Y resources %OUTPUT_DIR%\resources\
 
+set CDS_OPTIONS=
+if "%1"=="--cds" (
+    if exist %CDS_ARCHIVE% (
+        set CDS_OPTIONS=-XX:SharedArchiveFile=%CDS_ARCHIVE%
+    ) else (
+        echo Recording class-data sharing archive; close the application to write it
+        set CDS_OPTIONS=-XX:ArchiveClassesAtExit=%CDS_ARCHIVE%
+    )
+)
+
 echo Running application...
 REM Run the application
-java --module-path %JAVAFX_PATH%\lib ^
+java %CDS_OPTIONS% ^
+     --module-path %JAVAFX_PATH%\lib ^
      --add-modules javafx.controls,javafx.fxml,javafx.media ^
-     -cp %OUTPUT_DIR% %MAIN_CLASS%
+     -cp %APP_JAR% %MAIN_CLASS%
 
 echo Done
@@ -1,11 +1,24 @@
 #!/bin/bash
 
+# Usage: ./compile_and_run.sh [--cds]
+#   --cds  Start from an application class-data sharing (AppCDS) archive (JDK 13+).
+#          The first run records the classes it loads into bin/attendance.jsa on exit;
+#          later runs map them instead of loading and verifying them again, which
+#          shortens startup. The archive is recreated whenever the code is recompiled.
+
 # Setting up variables
 JAVA_HOME="/Users/tianlema/java/jdk/Contents/Home"
 JAVAFX_PATH="/Users/tianlema/java/javafx-sdk" # User needs to update this to their JavaFX SDK path
 SRC_DIR="src"
 OUTPUT_DIR="bin"
 MAIN_CLASS="edu.attendance.AttendanceApplication"
+APP_JAR="$OUTPUT_DIR/attendance.jar"
+CDS_ARCHIVE="$OUTPUT_DIR/attendance.jsa"
+
+USE_CDS=0
+if [ "$1" == "--cds" ]; then
+    USE_CDS=1
+fi
 
 # Add Java to PATH
 export PATH="$JAVA_HOME/bin:$PATH"
@@ -19,16 +32,26 @@ fi
 # Create output directory if it doesn't exist
 mkdir -p $OUTPUT_DIR
 
-echo "Compiling Java files..."
-# Compile Java files
-javac --module-path $JAVAFX_PATH/lib \
-      --add-modules javafx.controls,javafx.fxml,javafx.media \
-      -d $OUTPUT_DIR \
-      $(find $SRC_DIR -name "*.java")
+# An archive is only valid for the exact jar it was created from, so with --cds the
+# sources are only recompiled when they have changed
+if [ $USE_CDS -eq 1 ] && [ -f "$APP_JAR" ] && [ -z "$(find $SRC_DIR -name '*.java' -newer "$APP_JAR")" ]; then
+    echo "Classes are up to date"
+else
+    echo "Compiling Java files..."
+    # Compile Java files
+    javac --module-path $JAVAFX_PATH/lib \
+          --add-modules javafx.controls,javafx.fxml,javafx.media \
+          -d $OUTPUT_DIR \
+          $(find $SRC_DIR -name "*.java")
 
-if [ $? -ne 0 ]; then
-    echo "Compilation failed"
-    exit 1
+    if [ $? -ne 0 ]; then
+        echo "Compilation failed"
+        exit 1
+    fi
+
+    # Class-data sharing archives classes from jars only
+    jar --create --file "$APP_JAR" -C $OUTPUT_DIR edu
+    rm -f "$CDS_ARCHIVE"
 fi
 
 echo "Copying resources..."
@@ -36,10 +59,21 @@ echo "Copying resources..."
 mkdir -p $OUTPUT_DIR/resources
 cp -R resources/* $OUTPUT_DIR/resources/
 
+CDS_OPTIONS=""
+if [ $USE_CDS -eq 1 ]; then
+    if [ -f "$CDS_ARCHIVE" ]; then
+        CDS_OPTIONS="-XX:SharedArchiveFile=$CDS_ARCHIVE"
+    else
+        echo "Recording class-data sharing archive; close the application to write it"
+        CDS_OPTIONS="-XX:ArchiveClassesAtExit=$CDS_ARCHIVE"
+    fi
+fi
+
 echo "Running application..."
 # Run the application
-java --module-path $JAVAFX_PATH/lib \
+java $CDS_OPTIONS \
+     --module-path $JAVAFX_PATH/lib \
      --add-modules javafx.controls,javafx.fxml,javafx.media \
-     -cp $OUTPUT_DIR $MAIN_CLASS
+     -cp "$APP_JAR" $MAIN_CLASS
 
 echo "Done"
@@ -0,0 +1,19 @@
+#!/bin/bash
+
+# Runs the load-test client against a server started with run_server.sh.
+# Any arguments are passed to the client, e.g.
+#   ./run_load_test.sh --clients 400 --seconds 30 --mark-ratio 0.8
+#   ./run_load_test.sh --url http://otherhost:8080
+
+JAVA_HOME="/Users/tianlema/java/jdk/Contents/Home"
+OUTPUT_DIR="bin"
+MAIN_CLASS="edu.attendance.server.LoadTestClient"
+
+export PATH="$JAVA_HOME/bin:$PATH"
+
+if [ ! -d "$OUTPUT_DIR/edu/attendance/server" ]; then
+    echo "Error: classes not found. Run ./run_server.sh first to compile."
+    exit 1
+fi
+
+java -cp $OUTPUT_DIR $MAIN_CLASS "$@"
@@ -0,0 +1,35 @@
+#!/bin/bash
+
+# Compiles the project and starts the headless attendance server.
+# Any arguments are passed to the server, e.g.
+#   ./run_server.sh --port 8080 --section cs101
+# Stop it with Ctrl+C; the roster is saved on shutdown.
+
+JAVA_HOME="/Users/tianlema/java/jdk/Contents/Home"
+JAVAFX_PATH="/Users/tianlema/java/javafx-sdk" # User needs to update this to their JavaFX SDK path
+SRC_DIR="src"
+OUTPUT_DIR="bin"
+MAIN_CLASS="edu.attendance.server.AttendanceServer"
+
+export PATH="$JAVA_HOME/bin:$PATH"
+
+if ! command -v java &> /dev/null; then
+    echo "Error: Java not found. Please check your Java installation."
+    exit 1
+fi
+
+mkdir -p $OUTPUT_DIR
+
+echo "Compiling Java files..."
+javac --module-path $JAVAFX_PATH/lib \
+      --add-modules javafx.controls,javafx.fxml,javafx.media \
+      -d $OUTPUT_DIR \
+      $(find $SRC_DIR -name "*.java")
+
+if [ $? -ne 0 ]; then
+    echo "Compilation failed"
+    exit 1
+fi
+
+echo "Starting server..."
+java -cp $OUTPUT_DIR $MAIN_CLASS "$@"
@@ -1,5 +1,9 @@
 package edu.attendance;
 
+import edu.attendance.controller.AttendanceController;
+import edu.attendance.util.StartupMetrics;
+
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -16,6 +20,7 @@ import java.util.logging.Level;
  */
 public class AttendanceApplication extends Application {
     private static final Logger LOGGER = Logger.getLogger(AttendanceApplication.class.getName());
+    private AttendanceController controller;
 
     @Override
     public void start(Stage primaryStage) {
@@ -28,6 +33,7 @@ public class AttendanceApplication extends Application {
             // Load the FXML file
             FXMLLoader loader = new FXMLLoader(fxmlPath.toUri().toURL());
             Parent root = loader.load();
+            controller = loader.getController();
             
             // Set up the scene with CSS
             Scene scene = new Scene(root);
@@ -40,6 +46,15 @@ public class AttendanceApplication extends Application {
             primaryStage.setMinHeight(600);
             primaryStage.show();
             
+            // The first pulse after showing the stage renders its first frame
+            new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    stop();
+                    StartupMetrics.firstFrame();
+                }
+            }.start();
+            
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to start application", e);
             System.err.println("Failed to start application: " + e.getMessage());
@@ -47,10 +62,19 @@ public class AttendanceApplication extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     /**
      * Main method to launch the application.
      */
     public static void main(String[] args) {
+        // Fixes the fallback start time early if the OS does not report the process start
+        StartupMetrics.sinceProcessStart();
         launch(args);
     }
 }
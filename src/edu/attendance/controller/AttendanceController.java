@@ -1,19 +1,45 @@
 package edu.attendance.controller;
 
+import edu.attendance.model.AttendanceStatus;
 import edu.attendance.model.Student;
+import edu.attendance.util.AutosaveService;
+import edu.attendance.util.MetricsRegistry;
+import edu.attendance.util.NameIndex;
+import edu.attendance.util.PhotoCache;
+import edu.attendance.util.PronunciationPlayer;
+import edu.attendance.util.RosterLeaderboards;
+import edu.attendance.util.SectionManager;
+import edu.attendance.util.StartupMetrics;
 import edu.attendance.util.StudentDataService;
+import edu.attendance.util.StudentSelector;
+import edu.attendance.util.ThumbnailAtlas;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.image.*;
-import javafx.scene.media.*;
+import javafx.scene.layout.VBox;
 import javafx.fxml.Initializable;
+import javafx.scene.Scene;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,36 +48,78 @@ import java.time.format.DateTimeFormatter;
  * Controller for the Attendance Application UI.
  */
 public class AttendanceController implements Initializable {
+    private static final long PHOTO_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final double PHOTO_DECODE_SIZE = 400;
+    private static final int PREFETCH_NEIGHBORS = 2;
+    private static final int PREFETCH_LIKELY_PICKS = 3;
+    private static final int AUDIO_POOL_SIZE = 8;
+    private static final long AUTOSAVE_DEBOUNCE_MILLIS = Long.getLong("attendance.autosave.debounceMillis", 2000L);
+    private static final int MAX_CACHED_STUDENTS = Integer.getInteger("attendance.sections.maxCachedStudents", 5000);
+    private static final String METRICS_DUMP_FILE = System.getProperty("attendance.metrics.dumpFile");
+    private static final int FIRST_LIST_BATCH = 500;
+    private static final int THUMBNAIL_SIZE = 80;
+    private static final int LEADERBOARD_SIZE = 5;
 
     @FXML private ListView<Student> studentListView;
+    @FXML private TextField searchField;
     @FXML private ImageView studentImageView;
     @FXML private Label studentNameLabel;
     @FXML private Label quoteLabel;
     @FXML private Label statsLabel;
     @FXML private Label statusLabel;
+    @FXML private Label saveStatusLabel;
     @FXML private Button presentButton;
     @FXML private Button absentButton;
     @FXML private Button excusedButton;
     @FXML private Button playNameButton;
     @FXML private Button randomSelectButton;
     @FXML private Button saveButton;
+    @FXML private Button pickGroupButton;
+    @FXML private Button photoGridButton;
+    @FXML private Spinner<Integer> groupSizeSpinner;
+    @FXML private ComboBox<String> sectionComboBox;
+    @FXML private VBox loadingPane;
+    @FXML private Label loadingLabel;
+    @FXML private ListView<Student> mostAbsentListView;
+    @FXML private ListView<Student> leastCalledListView;
+    @FXML private ListView<Student> notCalledListView;
     
+    // Rosters are loaded here so that the window never waits for the disk
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "roster-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile StudentDataService rootDataService;
+    private volatile SectionManager sectionManager;
+    private SectionManager.Section currentSection;
     private StudentDataService dataService;
     private ObservableList<Student> students;
+    private StudentSelector selector;
+    private RosterLeaderboards leaderboards;
     private Student selectedStudent;
     private Random random = new Random();
-    private MediaPlayer mediaPlayer;
+    /** Separate from {@link #random} so guessing the next picks does not shift the real ones. */
+    private final Random prefetchRandom = new Random();
+    private PronunciationPlayer pronunciationPlayer;
+    private PhotoCache photoCache;
+    private AutosaveService autosave;
+    private AnimationTimer listFill;
+    private NameIndex.Matches searchMatches;
+    private volatile ThumbnailAtlas thumbnails;
+    private Stage photoGridStage;
+    private PhotoGridView photoGrid;
     
     /**
-     * Initializes the controller.
+     * Initializes the controller. Only the UI is set up here; the data files are opened and
+     * the default section is loaded in the background while a loading indicator is shown.
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        dataService = new StudentDataService();
-        students = FXCollections.observableArrayList(dataService.loadStudents());
+        photoCache = new PhotoCache(this::getImagePath, PHOTO_CACHE_BYTES, PHOTO_DECODE_SIZE);
+        pronunciationPlayer = new PronunciationPlayer(this::getAudioPath, AUDIO_POOL_SIZE, PREFETCH_LIKELY_PICKS);
         
         // Set up student list view
-        studentListView.setItems(students);
         studentListView.setCellFactory(lv -> new ListCell<Student>() {
             @Override
             protected void updateItem(Student student, boolean empty) {
@@ -64,6 +132,9 @@ public class AttendanceController implements Initializable {
             }
         });
         
+        // Allow a whole group to be highlighted at once
+        studentListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        
         // Add selection listener
         studentListView.getSelectionModel().selectedItemProperty().addListener(
             (observable, oldValue, newValue) -> {
@@ -71,6 +142,7 @@ public class AttendanceController implements Initializable {
                     displayStudentDetails(newValue);
                     selectedStudent = newValue;
                     enableAttendanceButtons(true);
+                    if (photoGrid != null) photoGrid.setSelected(newValue);
                 } else {
                     clearStudentDetails();
                     enableAttendanceButtons(false);
@@ -78,11 +150,299 @@ public class AttendanceController implements Initializable {
             }
         );
         
+        // Statistics panels; clicking a student selects them
+        setUpLeaderboard(mostAbsentListView, student -> student.getName() + " (" + student.getTimesAbsent() + " absent)");
+        setUpLeaderboard(leastCalledListView, student -> student.getName() + " (" + student.getTimesCalled() + " calls)");
+        setUpLeaderboard(notCalledListView, student -> student.getName() + " (" + (student.getLastCalledDate() == null
+                ? "never called" : "last " + student.getLastCalledDate()) + ")");
+        
+        // Narrow the list as the user types
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> filterStudents(newValue));
+        
         // Initialize attendance buttons
         enableAttendanceButtons(false);
         
-        // Set initial status
-        updateStatus("Ready. " + students.size() + " students loaded.");
+        // Load the default section; others are loaded when chosen
+        showLoading("Loading students...");
+        CompletableFuture.supplyAsync(this::openDefaultSection, loader)
+                .whenComplete((section, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        hideLoading();
+                        studentListView.setDisable(true);
+                        updateStatus("Error loading students: " + causeOf(error).getMessage());
+                    } else {
+                        showSection(section);
+                    }
+                }));
+    }
+    
+    /**
+     * Opens the data files and loads the default section. Runs on the loader thread.
+     */
+    private SectionManager.Section openDefaultSection() {
+        StudentDataService service = new StudentDataService();
+        rootDataService = service;
+        
+        // Pick up photos and clips added, replaced or removed while the app is running
+        service.addImageChangeListener(studentId -> {
+            photoCache.invalidate(studentId);
+            Platform.runLater(() -> refreshIfSelected(studentId));
+        });
+        service.addAudioChangeListener(studentId -> Platform.runLater(() -> {
+            pronunciationPlayer.invalidate(studentId);
+            refreshIfSelected(studentId);
+        }));
+        
+        // The photo grid draws from downscaled copies that are built once and kept on disk
+        thumbnails = service.openThumbnailAtlas(THUMBNAIL_SIZE);
+        
+        // Each section saves in the background shortly after changes instead of on the UI thread
+        SectionManager manager = new SectionManager(service, MAX_CACHED_STUDENTS, AUTOSAVE_DEBOUNCE_MILLIS,
+                new AutosaveService.Listener() {
+            @Override
+            public void saveCompleted(long latencyMillis, int pendingChanges) {
+                Platform.runLater(() -> updateSaveStatus("Saved in " + latencyMillis + " ms", pendingChanges));
+            }
+            
+            @Override
+            public void saveFailed(RuntimeException error, int pendingChanges) {
+                Platform.runLater(() -> updateSaveStatus("Save failed, retrying", pendingChanges));
+            }
+        });
+        sectionManager = manager;
+        
+        List<String> names = manager.getSectionNames();
+        Platform.runLater(() -> {
+            sectionComboBox.getItems().setAll(names);
+            sectionComboBox.setValue(SectionManager.DEFAULT_SECTION);
+        });
+        return manager.open(SectionManager.DEFAULT_SECTION);
+    }
+    
+    private String getImagePath(int studentId) {
+        StudentDataService service = rootDataService;
+        return service == null ? null : service.getStudentImagePath(studentId);
+    }
+    
+    private String getAudioPath(int studentId) {
+        StudentDataService service = rootDataService;
+        return service == null ? null : service.getStudentAudioPath(studentId);
+    }
+    
+    /**
+     * Handles choosing a course section. Cached sections switch instantly; others are
+     * loaded in the background.
+     */
+    @FXML
+    private void handleSectionChange() {
+        String name = sectionComboBox.getValue();
+        if (name == null || currentSection == null || name.equals(currentSection.getName())) return;
+        
+        if (sectionManager.isCached(name)) {
+            showSection(sectionManager.open(name));
+            return;
+        }
+        
+        String previous = currentSection.getName();
+        showLoading("Loading section " + name + "...");
+        CompletableFuture.supplyAsync(() -> sectionManager.open(name), loader)
+                .whenComplete((section, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        // Loading stopped the list fill; a partly filled list is filled again
+                        if (students.size() < currentSection.getStudents().size()) {
+                            showSection(currentSection);
+                        } else {
+                            hideLoading();
+                        }
+                        updateStatus("Error loading section " + name + ": " + causeOf(error).getMessage());
+                        sectionComboBox.setValue(previous);
+                    } else {
+                        showSection(section);
+                    }
+                }));
+    }
+    
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    /**
+     * Makes a section the one shown and marked in the UI.
+     */
+    private void showSection(SectionManager.Section section) {
+        currentSection = section;
+        dataService = section.getService();
+        selector = section.getSelector();
+        autosave = section.getAutosave();
+        leaderboards = section.getLeaderboards();
+        refreshLeaderboards();
+        List<Student> roster = section.getStudents();
+        students = FXCollections.observableArrayList();
+        searchMatches = null;
+        searchField.clear();
+        
+        // The list and the statistics panels stay disabled until the list matches the
+        // roster, as a selection reaches list positions that may not be filled yet
+        studentListView.setItems(students);
+        studentListView.setDisable(true);
+        clearStudentDetails();
+        enableAttendanceButtons(false);
+        setControlsDisabled(true);
+        groupSizeSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                1, Math.max(1, roster.size()), Math.min(5, Math.max(1, roster.size()))));
+        updateSaveStatus("Autosave on", autosave.getPendingChanges());
+        if (photoGrid != null) {
+            photoGrid.setStudents(roster);
+            photoGridStage.setTitle("Photo Grid - " + section.getName());
+        }
+        
+        // The list fills in view; progress moves to the status bar
+        loadingPane.setVisible(false);
+        fillStudentList(roster, () -> {
+            hideLoading();
+            updateStatus("Ready. " + roster.size() + " students loaded in section " + section.getName() + ".");
+            StartupMetrics.interactive();
+        });
+        
+        // Search is enabled once the section's name index is built
+        CompletableFuture.supplyAsync(section::getNameIndex, loader)
+                .thenAccept(index -> Platform.runLater(() -> {
+                    if (currentSection != section) return;
+                    searchMatches = index.newMatches();
+                    searchField.setDisable(studentListView.isDisabled());
+                }));
+    }
+    
+    /**
+     * Sets up a statistics panel to show each student with the given text.
+     */
+    private void setUpLeaderboard(ListView<Student> listView, Function<Student, String> text) {
+        listView.setCellFactory(lv -> new ListCell<Student>() {
+            @Override
+            protected void updateItem(Student student, boolean empty) {
+                super.updateItem(student, empty);
+                setText(empty || student == null ? null : text.apply(student));
+            }
+        });
+        listView.setOnMouseClicked(event -> {
+            Student student = listView.getSelectionModel().getSelectedItem();
+            if (student != null) {
+                clearSearch();
+                studentListView.getSelectionModel().clearSelection();
+                studentListView.getSelectionModel().select(student);
+                studentListView.scrollTo(student);
+            }
+        });
+    }
+    
+    /**
+     * Reads the first few students of each ranking into the statistics panels. The rankings
+     * are kept up to date by each mark, so this never sorts the roster.
+     */
+    private void refreshLeaderboards() {
+        mostAbsentListView.getItems().setAll(leaderboards.getMostAbsent(LEADERBOARD_SIZE));
+        leastCalledListView.getItems().setAll(leaderboards.getLeastCalled(LEADERBOARD_SIZE));
+        notCalledListView.getItems().setAll(leaderboards.getNotCalledRecently(LocalDate.now(), LEADERBOARD_SIZE));
+    }
+    
+    /**
+     * Shows the students whose names match the search text, or the whole roster if it is blank.
+     */
+    private void filterStudents(String text) {
+        if (searchMatches == null) return;
+        if (text == null || text.trim().isEmpty()) {
+            if (studentListView.getItems() != students) {
+                studentListView.setItems(students);
+                updateStatus(students.size() + " students in section " + currentSection.getName() + ".");
+            }
+            return;
+        }
+        searchMatches.setQuery(text);
+        if (studentListView.getItems() != searchMatches) {
+            studentListView.setItems(searchMatches);
+        }
+        updateStatus(searchMatches.size() + (searchMatches.size() == 1 ? " student matches" : " students match")
+                + " \"" + text.trim() + "\".");
+    }
+    
+    /**
+     * Clears the search so that the list shows the whole roster again, as list positions
+     * from the selector refer to the roster.
+     */
+    private void clearSearch() {
+        if (!searchField.getText().isEmpty()) {
+            searchField.clear();
+        }
+    }
+    
+    /**
+     * Adds a roster to the list over several frames, doubling the batch each frame, so the
+     * first students appear at once and a large roster never stalls a single frame.
+     * Picks and selections stay disabled until the list matches the roster.
+     */
+    private void fillStudentList(List<Student> roster, Runnable onFilled) {
+        if (listFill != null) {
+            listFill.stop();
+        }
+        ObservableList<Student> target = students;
+        listFill = new AnimationTimer() {
+            private int next;
+            private int batch = FIRST_LIST_BATCH;
+            
+            @Override
+            public void handle(long now) {
+                int end = Math.min(roster.size(), next + batch);
+                target.addAll(roster.subList(next, end));
+                next = end;
+                if (batch < (1 << 24)) batch *= 2;
+                if (next < roster.size()) {
+                    updateStatus("Listing students... " + (int) (100L * next / roster.size()) + "%");
+                }
+                
+                if (next >= roster.size()) {
+                    stop();
+                    listFill = null;
+                    onFilled.run();
+                }
+            }
+        };
+        listFill.start();
+    }
+    
+    /**
+     * Shows the loading indicator and disables everything that needs a loaded roster.
+     */
+    private void showLoading(String message) {
+        if (listFill != null) {
+            listFill.stop();
+            listFill = null;
+        }
+        loadingLabel.setText(message);
+        loadingPane.setVisible(true);
+        studentListView.getSelectionModel().clearSelection();
+        studentListView.setDisable(true);
+        enableAttendanceButtons(false);
+        setControlsDisabled(true);
+        updateStatus(message);
+    }
+    
+    private void hideLoading() {
+        loadingPane.setVisible(false);
+        studentListView.setDisable(currentSection == null);
+        setControlsDisabled(currentSection == null);
+    }
+    
+    private void setControlsDisabled(boolean disabled) {
+        randomSelectButton.setDisable(disabled);
+        saveButton.setDisable(disabled);
+        pickGroupButton.setDisable(disabled);
+        photoGridButton.setDisable(disabled);
+        groupSizeSpinner.setDisable(disabled);
+        mostAbsentListView.setDisable(disabled);
+        leastCalledListView.setDisable(disabled);
+        notCalledListView.setDisable(disabled);
+        searchField.setDisable(disabled || searchMatches == null);
+        sectionComboBox.setDisable(disabled);
     }
     
     /**
@@ -101,22 +461,59 @@ public class AttendanceController implements Initializable {
                 student.getTimesAbsent(), student.getTimesExcused());
         statsLabel.setText(stats);
         
-        // Display image if available
-        String imagePath = dataService.getStudentImagePath(student.getId());
-        if (imagePath != null) {
-            try {
-                Image image = new Image(new File(imagePath).toURI().toString());
-                studentImageView.setImage(image);
-            } catch (Exception e) {
-                studentImageView.setImage(null);
-            }
-        } else {
-            studentImageView.setImage(null);
+        // Display image if available, decoding it in the background on a cache miss
+        CompletableFuture<Image> photo = photoCache.get(student.getId());
+        studentImageView.setImage(photo.getNow(null));
+        if (!photo.isDone()) {
+            photo.thenAccept(image -> Platform.runLater(() -> {
+                if (selectedStudent == student) {
+                    studentImageView.setImage(image);
+                }
+            }));
         }
+        prefetchMedia();
         
-        // Check if audio is available
+        // Check if audio is available and get it ready to play
         String audioPath = dataService.getStudentAudioPath(student.getId());
         playNameButton.setDisable(audioPath == null);
+        if (audioPath != null) {
+            pronunciationPlayer.preload(student.getId());
+        }
+    }
+    
+    /**
+     * Prepares the media most likely to be needed next: photos for the neighbors of the
+     * current list selection, and photos and name clips for a few students the weighted
+     * picker might choose. The clips go to the player's guess slots, so guesses do not
+     * evict the players of students just shown.
+     */
+    private void prefetchMedia() {
+        int index = studentListView.getSelectionModel().getSelectedIndex();
+        List<Student> items = studentListView.getItems();
+        for (int offset = 1; offset <= PREFETCH_NEIGHBORS; offset++) {
+            if (index - offset >= 0) {
+                photoCache.prefetch(items.get(index - offset).getId());
+            }
+            if (index >= 0 && index + offset < items.size()) {
+                photoCache.prefetch(items.get(index + offset).getId());
+            }
+        }
+        // Selector positions refer to the section roster, not to the list being filled
+        List<Student> roster = currentSection.getStudents();
+        for (int i = 0; i < PREFETCH_LIKELY_PICKS && !roster.isEmpty(); i++) {
+            int likelyId = roster.get(selector.sampleIndex(prefetchRandom.nextDouble())).getId();
+            photoCache.prefetch(likelyId);
+            pronunciationPlayer.preloadGuess(likelyId);
+        }
+    }
+    
+    /**
+     * Redisplays the selected student if their media changed on disk.
+     */
+    private void refreshIfSelected(int studentId) {
+        if (selectedStudent != null && selectedStudent.getId() == studentId) {
+            displayStudentDetails(selectedStudent);
+        }
     }
     
     /**
@@ -147,6 +544,14 @@ public class AttendanceController implements Initializable {
         statusLabel.setText(message);
     }
     
+    /**
+     * Updates the save indicator in the status bar.
+     */
+    private void updateSaveStatus(String message, int pendingChanges) {
+        saveStatusLabel.setText(message + " | " + pendingChanges + " unsaved "
+                + (pendingChanges == 1 ? "change" : "changes"));
+    }
+    
     /**
      * Handles the random student selection.
      */
@@ -157,48 +562,57 @@ public class AttendanceController implements Initializable {
             return;
         }
         
-        // Calculate selection probabilities
-        double[] probabilities = new double[students.size()];
-        double totalProbability = 0;
-        
-        for (int i = 0; i < students.size(); i++) {
-            probabilities[i] = students.get(i).getSelectionProbability();
-            totalProbability += probabilities[i];
-        }
-        
-        // Normalize probabilities
-        for (int i = 0; i < probabilities.length; i++) {
-            probabilities[i] /= totalProbability;
-        }
-        
         // Select a student based on weighted probability
-        double value = random.nextDouble();
-        double cumulativeProbability = 0.0;
-        int selectedIndex = 0;
-        
-        for (int i = 0; i < probabilities.length; i++) {
-            cumulativeProbability += probabilities[i];
-            if (value <= cumulativeProbability) {
-                selectedIndex = i;
-                break;
-            }
-        }
+        clearSearch();
+        int selectedIndex = selector.pickIndex(random);
         
         // Select and show the student
-        studentListView.getSelectionModel().select(selectedIndex);
+        studentListView.getSelectionModel().clearAndSelect(selectedIndex);
         studentListView.scrollTo(selectedIndex);
         
         // Update status
         updateStatus("Randomly selected: " + students.get(selectedIndex).getName());
     }
     
+    /**
+     * Handles picking a group of distinct students in one weighted draw.
+     */
+    @FXML
+    private void handlePickGroup() {
+        if (students.isEmpty()) {
+            updateStatus("No students available for selection.");
+            return;
+        }
+        
+        clearSearch();
+        int groupSize = groupSizeSpinner.getValue();
+        int[] selectedIndices = selector.pickDistinctIndices(groupSize, random);
+        
+        // Select and show the whole group
+        studentListView.getSelectionModel().clearSelection();
+        studentListView.getSelectionModel().selectIndices(selectedIndices[0],
+                Arrays.copyOfRange(selectedIndices, 1, selectedIndices.length));
+        studentListView.scrollTo(selectedIndices[0]);
+        
+        // Update status
+        StringJoiner names = new StringJoiner(", ");
+        for (int index : selectedIndices) {
+            names.add(students.get(index).getName());
+        }
+        updateStatus("Selected group of " + selectedIndices.length + ": " + names);
+    }
+    
     /**
      * Handles marking a student as present.
      */
     @FXML
     private void handlePresent() {
         if (selectedStudent != null) {
-            selectedStudent.markPresent();
+            dataService.recordAttendance(selectedStudent, AttendanceStatus.PRESENT);
+            selector.update(selectedStudent);
+            leaderboards.update(selector.indexOf(selectedStudent));
+            refreshLeaderboards();
+            updateSaveStatus("Autosave pending", autosave.markDirty());
             updateStudentDisplay();
             updateStatus(selectedStudent.getName() + " marked as PRESENT.");
         }
@@ -210,7 +624,11 @@ public class AttendanceController implements Initializable {
     @FXML
     private void handleAbsent() {
         if (selectedStudent != null) {
-            selectedStudent.markAbsent();
+            dataService.recordAttendance(selectedStudent, AttendanceStatus.ABSENT);
+            selector.update(selectedStudent);
+            leaderboards.update(selector.indexOf(selectedStudent));
+            refreshLeaderboards();
+            updateSaveStatus("Autosave pending", autosave.markDirty());
             updateStudentDisplay();
             updateStatus(selectedStudent.getName() + " marked as ABSENT.");
         }
@@ -222,7 +640,11 @@ public class AttendanceController implements Initializable {
     @FXML
     private void handleExcused() {
         if (selectedStudent != null) {
-            selectedStudent.markExcused();
+            dataService.recordAttendance(selectedStudent, AttendanceStatus.EXCUSED);
+            selector.update(selectedStudent);
+            leaderboards.update(selector.indexOf(selectedStudent));
+            refreshLeaderboards();
+            updateSaveStatus("Autosave pending", autosave.markDirty());
             updateStudentDisplay();
             updateStatus(selectedStudent.getName() + " marked as EXCUSED.");
         }
@@ -243,33 +665,150 @@ public class AttendanceController implements Initializable {
     private void handlePlayName() {
         if (selectedStudent == null) return;
         
-        String audioPath = dataService.getStudentAudioPath(selectedStudent.getId());
-        if (audioPath != null) {
-            try {
-                // Stop any currently playing audio
-                if (mediaPlayer != null) {
-                    mediaPlayer.stop();
-                }
-                
-                // Create and play the new audio
-                Media media = new Media(new File(audioPath).toURI().toString());
-                mediaPlayer = new MediaPlayer(media);
-                mediaPlayer.play();
-                
+        try {
+            if (pronunciationPlayer.play(selectedStudent.getId())) {
                 updateStatus("Playing name pronunciation for " + selectedStudent.getName());
-            } catch (Exception e) {
-                updateStatus("Error playing audio: " + e.getMessage());
             }
+        } catch (Exception e) {
+            updateStatus("Error playing audio: " + e.getMessage());
         }
     }
     
     /**
-     * Handles saving the attendance records.
+     * Handles saving the attendance records. The save runs in the background; the
+     * status bar reports when it has finished.
      */
     @FXML
     private void handleSave() {
-        dataService.saveStudents(new ArrayList<>(students));
-        updateStatus("Attendance records saved successfully. " + 
+        autosave.saveNow();
+        updateStatus("Saving attendance records... " + 
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
     }
+    
+    /**
+     * Opens the photo grid of the current section in its own window, or brings it to the
+     * front if it is already open. Clicking a photo selects that student.
+     */
+    @FXML
+    private void handlePhotoGrid() {
+        if (photoGridStage != null) {
+            photoGridStage.toFront();
+            return;
+        }
+        photoGrid = new PhotoGridView(thumbnails);
+        photoGrid.setStudents(currentSection.getStudents());
+        photoGrid.setSelected(selectedStudent);
+        photoGrid.setOnSelect(student -> {
+            if (studentListView.isDisabled()) return;
+            clearSearch();
+            studentListView.getSelectionModel().clearSelection();
+            studentListView.getSelectionModel().select(student);
+            studentListView.scrollTo(student);
+        });
+        
+        Scene scene = new Scene(photoGrid, 900, 640);
+        scene.getStylesheets().setAll(studentListView.getScene().getStylesheets());
+        photoGridStage = new Stage();
+        photoGridStage.setTitle("Photo Grid - " + currentSection.getName());
+        photoGridStage.initOwner(studentListView.getScene().getWindow());
+        photoGridStage.setScene(scene);
+        photoGridStage.setOnHidden(event -> {
+            photoGrid.dispose();
+            photoGrid = null;
+            photoGridStage = null;
+        });
+        photoGridStage.show();
+    }
+    
+    /**
+     * Shows the metrics snapshot in a diagnostics dialog, with an option to save it to a file.
+     */
+    @FXML
+    private void handleShowDiagnostics() {
+        String snapshot = diagnosticsSnapshot();
+        TextArea text = new TextArea(snapshot);
+        text.setEditable(false);
+        text.setStyle("-fx-font-family: monospace;");
+        text.setPrefColumnCount(90);
+        text.setPrefRowCount(24);
+        
+        ButtonType saveType = new ButtonType("Save to File...", ButtonBar.ButtonData.LEFT);
+        Alert dialog = new Alert(Alert.AlertType.INFORMATION, null, saveType, ButtonType.CLOSE);
+        dialog.setTitle("Diagnostics");
+        dialog.setHeaderText("Performance metrics for this session");
+        dialog.getDialogPane().setContent(text);
+        dialog.setResizable(true);
+        
+        if (dialog.showAndWait().orElse(ButtonType.CLOSE) == saveType) {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Save Metrics Snapshot");
+            chooser.setInitialFileName("attendance-metrics-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+            File file = chooser.showSaveDialog(studentListView.getScene().getWindow());
+            if (file != null) {
+                try {
+                    Files.write(file.toPath(), snapshot.getBytes(StandardCharsets.UTF_8));
+                    updateStatus("Metrics snapshot saved to " + file);
+                } catch (IOException e) {
+                    updateStatus("Error saving metrics snapshot: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Renders the metrics registry plus the caches owned by this controller.
+     */
+    private String diagnosticsSnapshot() {
+        if (currentSection == null) {
+            return MetricsRegistry.getDefault().format();
+        }
+        return MetricsRegistry.getDefault().format()
+                + String.format("%nPhoto cache: hit rate %.1f%%, %d hits, %d misses, %d KB cached%n",
+                        photoCache.getHitRate() * 100, photoCache.getHits(), photoCache.getMisses(),
+                        photoCache.getCachedBytes() / 1024)
+                + String.format("Audio players prepared: %d%n", pronunciationPlayer.size())
+                + String.format("Section %s: %d students, %d unsaved changes%n",
+                        currentSection.getName(), students.size(), autosave.getPendingChanges())
+                + String.format("Cached sections: %s, %d students%n",
+                        sectionManager.getCachedSectionNames(), sectionManager.getCachedStudentCount());
+    }
+    
+    /**
+     * Releases resources held by the controller when the application exits.
+     * If {@code -Dattendance.metrics.dumpFile} is set, a metrics snapshot is written there.
+     */
+    public void shutdown() {
+        if (listFill != null) {
+            listFill.stop();
+        }
+        
+        // Let a load in progress finish so that the files it opened are closed below
+        loader.shutdown();
+        try {
+            loader.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (sectionManager != null) {
+            sectionManager.close();
+        }
+        pronunciationPlayer.dispose();
+        photoCache.shutdown();
+        if (thumbnails != null) {
+            thumbnails.close();
+        }
+        if (rootDataService != null) {
+            rootDataService.close();
+        }
+        
+        if (METRICS_DUMP_FILE != null) {
+            try {
+                MetricsRegistry.getDefault().dump(Paths.get(METRICS_DUMP_FILE));
+            } catch (IOException e) {
+                System.err.println("Failed to write metrics snapshot: " + e.getMessage());
+            }
+        }
+    }
 }
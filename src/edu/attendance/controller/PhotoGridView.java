@@ -0,0 +1,247 @@
+package edu.attendance.controller;
+
+import edu.attendance.model.Student;
+import edu.attendance.util.ThumbnailAtlas;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Seating view of a section as a grid of student photos.
+ * <p>
+ * The grid is virtualized: a single canvas the size of the viewport is redrawn with only
+ * the rows in view, and thumbnails are copied straight from the {@link ThumbnailAtlas}
+ * mapping, so scrolling costs the same for a lecture hall as for a small class and no
+ * photo is decoded while drawing. Students whose thumbnail is not built yet show their
+ * initials until it is.
+ */
+public class PhotoGridView extends Region {
+    private static final int GAP = 8;
+    private static final int LABEL_HEIGHT = 18;
+    private static final Color BACKGROUND = Color.web("#f9f9f9");
+    private static final Color CELL = Color.WHITE;
+    private static final Color PLACEHOLDER = Color.web("#d6e4f0");
+    private static final Color TEXT = Color.web("#333333");
+    private static final Color SELECTION = Color.web("#3498db");
+
+    private final ThumbnailAtlas atlas;
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar scrollBar = new ScrollBar();
+    private final AtomicBoolean redrawPending = new AtomicBoolean();
+    private final IntConsumer thumbnailListener = studentId -> requestRedraw();
+    private final Font nameFont = Font.font(11);
+    private final Font initialsFont = Font.font(24);
+    private List<Student> students = new ArrayList<>();
+    private Student selected;
+    private Consumer<Student> onSelect = student -> { };
+
+    /**
+     * @param atlas Thumbnails to draw; the view follows its updates until {@link #dispose}
+     */
+    public PhotoGridView(ThumbnailAtlas atlas) {
+        this.atlas = atlas;
+        getStyleClass().add("photo-grid");
+        scrollBar.setOrientation(Orientation.VERTICAL);
+        scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> redraw());
+        getChildren().addAll(canvas, scrollBar);
+
+        canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            Student student = studentAt(event.getX(), event.getY());
+            if (student != null) {
+                setSelected(student);
+                onSelect.accept(student);
+            }
+        });
+        addEventHandler(ScrollEvent.SCROLL, event -> {
+            scrollBar.setValue(clamp(scrollBar.getValue() - event.getDeltaY()));
+            event.consume();
+        });
+        atlas.addListener(thumbnailListener);
+    }
+
+    /**
+     * Shows a roster, scrolled to the top.
+     */
+    public void setStudents(List<Student> students) {
+        this.students = new ArrayList<>(students);
+        selected = null;
+        scrollBar.setValue(0);
+        requestLayout();
+        redraw();
+    }
+
+    /**
+     * Highlights a student and scrolls them into view; null clears the highlight.
+     */
+    public void setSelected(Student student) {
+        selected = student;
+        int index = student == null ? -1 : students.indexOf(student);
+        if (index >= 0) {
+            double top = (double) (index / columns()) * rowHeight();
+            double height = canvas.getHeight();
+            if (top < scrollBar.getValue()) {
+                scrollBar.setValue(top);
+            } else if (top + rowHeight() > scrollBar.getValue() + height) {
+                scrollBar.setValue(clamp(top + rowHeight() - height));
+            }
+        }
+        redraw();
+    }
+
+    /**
+     * Sets the callback run when a student's cell is clicked.
+     */
+    public void setOnSelect(Consumer<Student> onSelect) {
+        this.onSelect = onSelect;
+    }
+
+    /**
+     * Stops following the atlas. The atlas itself stays open.
+     */
+    public void dispose() {
+        atlas.removeListener(thumbnailListener);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double barWidth = scrollBar.prefWidth(-1);
+        double width = Math.max(0, getWidth() - barWidth);
+        double height = getHeight();
+        canvas.setWidth(Math.floor(width));
+        canvas.setHeight(Math.floor(height));
+        scrollBar.resizeRelocate(width, 0, barWidth, height);
+
+        double content = (double) rowCount() * rowHeight() + GAP;
+        scrollBar.setMax(Math.max(0, content - height));
+        scrollBar.setVisibleAmount(height);
+        scrollBar.setUnitIncrement(rowHeight() / 4.0);
+        scrollBar.setBlockIncrement(Math.max(rowHeight(), height - rowHeight()));
+        scrollBar.setValue(clamp(scrollBar.getValue()));
+        redraw();
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 6 * cellWidth() + GAP + 16;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 4 * rowHeight() + GAP;
+    }
+
+    /**
+     * Coalesces thumbnail updates from the builder thread into one redraw per pulse.
+     */
+    private void requestRedraw() {
+        if (redrawPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                redrawPending.set(false);
+                redraw();
+            });
+        }
+    }
+
+    private void redraw() {
+        int width = (int) canvas.getWidth();
+        int height = (int) canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, width, height);
+        if (width == 0 || height == 0 || students.isEmpty()) return;
+
+        int columns = columns();
+        int rowHeight = rowHeight();
+        int scroll = (int) scrollBar.getValue();
+        int firstRow = scroll / rowHeight;
+        int lastRow = Math.min(rowCount() - 1, (scroll + height) / rowHeight);
+        int cellSize = atlas.getCellSize();
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = GAP + row * rowHeight - scroll;
+            for (int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+                if (index >= students.size()) break;
+                Student student = students.get(index);
+                int x = GAP + column * cellWidth();
+
+                if (student == selected) {
+                    gc.setFill(SELECTION);
+                    gc.fillRect(x - 3, y - 3, cellSize + 6, cellSize + LABEL_HEIGHT + 6);
+                }
+                gc.setFill(CELL);
+                gc.fillRect(x, y, cellSize, cellSize + LABEL_HEIGHT);
+                if (!atlas.draw(student.getId(), gc.getPixelWriter(), x, y, width, height)) {
+                    drawPlaceholder(gc, student, x, y, cellSize);
+                }
+                gc.setFill(TEXT);
+                gc.setFont(nameFont);
+                gc.fillText(student.getName(), x + cellSize / 2.0, y + cellSize + LABEL_HEIGHT / 2.0, cellSize);
+            }
+        }
+    }
+
+    private void drawPlaceholder(GraphicsContext gc, Student student, int x, int y, int cellSize) {
+        gc.setFill(PLACEHOLDER);
+        gc.fillOval(x + cellSize * 0.1, y + cellSize * 0.1, cellSize * 0.8, cellSize * 0.8);
+        gc.setFill(TEXT);
+        gc.setFont(initialsFont);
+        gc.fillText(initials(student.getName()), x + cellSize / 2.0, y + cellSize / 2.0, cellSize * 0.7);
+    }
+
+    private static String initials(String name) {
+        StringBuilder initials = new StringBuilder(2);
+        for (String part : name.trim().split("\\s+")) {
+            if (!part.isEmpty() && initials.length() < 2) {
+                initials.appendCodePoint(Character.toUpperCase(part.codePointAt(0)));
+            }
+        }
+        return initials.toString();
+    }
+
+    private Student studentAt(double x, double y) {
+        int column = (int) ((x - GAP / 2.0) / cellWidth());
+        int row = (int) ((y + scrollBar.getValue() - GAP / 2.0) / rowHeight());
+        if (x < GAP / 2.0 || column >= columns() || row < 0) return null;
+        int index = row * columns() + column;
+        return index < students.size() ? students.get(index) : null;
+    }
+
+    private int cellWidth() {
+        return atlas.getCellSize() + GAP;
+    }
+
+    private int rowHeight() {
+        return atlas.getCellSize() + LABEL_HEIGHT + GAP;
+    }
+
+    private int columns() {
+        return Math.max(1, (int) ((canvas.getWidth() - GAP) / cellWidth()));
+    }
+
+    private int rowCount() {
+        return (students.size() + columns() - 1) / columns();
+    }
+
+    private double clamp(double value) {
+        return Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), value));
+    }
+}
@@ -0,0 +1,228 @@
+package edu.attendance.importer;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.Student;
+import edu.attendance.util.AttendanceEventLog;
+import edu.attendance.util.AttendanceHistory;
+import edu.attendance.util.MetricsRegistry;
+import edu.attendance.util.StudentDataService;
+import edu.attendance.util.StudentIdIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies a stream of attendance events, such as a card-swipe or student information
+ * system export, to a loaded roster.
+ * <p>
+ * The file is read one line at a time. Each event's student is found through a
+ * {@link StudentIdIndex} over the roster, marked in the {@link RosterStore} and encoded
+ * into a fixed-size batch buffer. A full batch is committed through
+ * {@link StudentDataService#appendAttendanceRecords} with one write and one sync, and
+ * every so many marks the roster is saved, which folds the event log and the pending
+ * history into the snapshot. Memory therefore stays bounded by the roster, one batch and
+ * the marks since the last save, however long the file is.
+ * <p>
+ * A student gets at most one mark per day: an event for a student who already has a mark
+ * on that day, from the application, an earlier line or an earlier import, is counted as
+ * a duplicate and skipped. Several swipes on one day count once, and running an import
+ * again after it failed part-way only applies the events that were not committed.
+ */
+public class AttendanceImporter {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceImporter.class.getName());
+    private static final int MAX_LOGGED_REJECTS = 10;
+
+    private final RosterStore store;
+    private final StudentDataService dataService;
+    private final AttendanceHistory history;
+    private final StudentIdIndex index;
+    private final int batchSize;
+    private final long checkpointMarks;
+
+    /**
+     * @param store Roster loaded with {@link StudentDataService#loadRosterStore()}
+     * @param dataService The service that loaded it
+     * @param batchSize Events appended to the event log with one sync
+     * @param checkpointMarks Marks after which the roster is saved
+     */
+    public AttendanceImporter(RosterStore store, StudentDataService dataService, int batchSize,
+                              long checkpointMarks) {
+        if (batchSize < 1 || checkpointMarks < 1) {
+            throw new IllegalArgumentException("Batch size and checkpoint interval must be at least 1");
+        }
+        this.store = store;
+        this.dataService = dataService;
+        this.history = dataService.getAttendanceHistory();
+        this.index = new StudentIdIndex(store);
+        this.batchSize = batchSize;
+        this.checkpointMarks = checkpointMarks;
+    }
+
+    /**
+     * Reads events until the end of the stream, applies them and saves the roster.
+     * A first line that does not parse is taken as a header.
+     * @param reader The event file
+     * @param parser Parser for the file's columns
+     * @return Counts of what was applied and skipped
+     * @throws IOException If the file cannot be read
+     */
+    public ImportResult importEvents(BufferedReader reader, EventLineParser parser) throws IOException {
+        long start = System.nanoTime();
+        List<Student> students = store.asList();
+        ByteBuffer batch = ByteBuffer.allocate(batchSize * AttendanceEventLog.RECORD_SIZE);
+        DayKeySet batchDays = new DayKeySet(batchSize);
+        int[] batchRows = new int[batchSize];
+        int[] previousDays = new int[batchSize];
+
+        long lines = 0;
+        long marks = 0;
+        long duplicates = 0;
+        long unknownIds = 0;
+        long malformed = 0;
+        long batches = 0;
+        long checkpoints = 0;
+        long committedLines = 0;
+        long marksSinceSave = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (line.isEmpty()) continue;
+                if (!parser.parse(line)) {
+                    if (lines == 1) continue;
+                    if (malformed++ < MAX_LOGGED_REJECTS) {
+                        LOGGER.warning("Skipping malformed line " + lines + ": " + line);
+                    }
+                    continue;
+                }
+
+                int id = parser.getId();
+                int row = index.rowOf(id);
+                if (row < 0) {
+                    if (unknownIds++ < MAX_LOGGED_REJECTS) {
+                        LOGGER.warning("Skipping event for unknown student id " + id + " on line " + lines);
+                    }
+                    continue;
+                }
+                int day = parser.getDay();
+                if (history.getStatus(id, day) != null || !batchDays.add(row, day)) {
+                    duplicates++;
+                    continue;
+                }
+
+                AttendanceStatus status = parser.getStatus();
+                int pending = batch.position() / AttendanceEventLog.RECORD_SIZE;
+                batchRows[pending] = row;
+                previousDays[pending] = store.getLastCalledDay(row);
+                store.markOn(row, status, day);
+                AttendanceEventLog.encode(batch, id, status, day, store.getTimesCalled(row),
+                        store.getTimesPresent(row), store.getTimesAbsent(row), store.getTimesExcused(row),
+                        store.getLastCalledDay(row));
+                marks++;
+                marksSinceSave++;
+
+                if (!batch.hasRemaining()) {
+                    commit(batch);
+                    batchDays.clear();
+                    batches++;
+                    committedLines = lines;
+                    if (marksSinceSave >= checkpointMarks) {
+                        dataService.saveStudents(students);
+                        checkpoints++;
+                        marksSinceSave = 0;
+                    }
+                }
+            }
+
+            if (batch.position() > 0) {
+                commit(batch);
+                batches++;
+            }
+            committedLines = lines;
+            dataService.saveStudents(students);
+        } catch (IOException | RuntimeException e) {
+            rollBack(batch, batchRows, previousDays);
+            LOGGER.log(Level.SEVERE, "Import stopped after line " + lines + "; events up to line "
+                    + committedLines + " are committed", e);
+            throw e;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        LOGGER.info("Imported " + marks + " of " + lines + " lines in " + batches + " batches");
+        return new ImportResult(lines, marks, duplicates, unknownIds, malformed, batches, checkpoints, elapsed);
+    }
+
+    private void commit(ByteBuffer batch) {
+        long start = System.nanoTime();
+        ByteBuffer records = batch.duplicate();
+        records.flip();
+        dataService.appendAttendanceRecords(records);
+        batch.clear();
+        MetricsRegistry.getDefault().timer(MetricsRegistry.IMPORT_BATCH).stop(start);
+    }
+
+    /**
+     * Undoes the marks of a batch that was not committed, newest first, so that the roster
+     * matches the event log again and a later save does not persist them.
+     */
+    private void rollBack(ByteBuffer batch, int[] batchRows, int[] previousDays) {
+        int records = batch.position() / AttendanceEventLog.RECORD_SIZE;
+        for (int i = records - 1; i >= 0; i--) {
+            int offset = i * AttendanceEventLog.RECORD_SIZE;
+            AttendanceStatus status = AttendanceStatus.fromCode((char) batch.get(offset + 4));
+            int row = batchRows[i];
+            store.restoreCounters(row, batch.getInt(offset + 9) - 1,
+                    batch.getInt(offset + 13) - (status == AttendanceStatus.PRESENT ? 1 : 0),
+                    batch.getInt(offset + 17) - (status == AttendanceStatus.ABSENT ? 1 : 0),
+                    batch.getInt(offset + 21) - (status == AttendanceStatus.EXCUSED ? 1 : 0),
+                    previousDays[i]);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Set of (row, day) pairs marked in the current batch, which are not yet in the history.
+     * Slots carry the generation they were written in, so clearing is O(1).
+     */
+    private static final class DayKeySet {
+        private final int[] rows;
+        private final int[] days;
+        private final int[] generations;
+        private final int mask;
+        private int generation = 1;
+
+        DayKeySet(int maxKeys) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxKeys) * 2 - 1) << 1;
+            rows = new int[capacity];
+            days = new int[capacity];
+            generations = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return False if the pair was already in the set
+         */
+        boolean add(int row, int day) {
+            int hash = row * 0x9E3779B9 + day * 0x85EBCA6B;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (generations[slot] == generation) {
+                if (rows[slot] == row && days[slot] == day) return false;
+                slot = (slot + 1) & mask;
+            }
+            generations[slot] = generation;
+            rows[slot] = row;
+            days[slot] = day;
+            return true;
+        }
+
+        void clear() {
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package edu.attendance.importer;
+
+import edu.attendance.model.AttendanceStatus;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Parses the lines of an attendance event export, such as a card-swipe log or a student
+ * information system extract, without splitting them into strings.
+ * <p>
+ * Fields are separated by a delimiter and may be quoted, in which case they may contain
+ * the delimiter. Only the id, date and status columns are read; other columns are
+ * skipped. Dates are ISO days, optionally followed by a time as in
+ * {@code 2025-09-01T08:02:11} or {@code 2025-09-01 08:02:11}. Exports are usually in time
+ * order, so the day of the last date parsed is kept and reused while the date repeats.
+ * Statuses are codes ({@code P}, {@code A}, {@code E}) or names, in any case; files
+ * without a status column, like swipe logs, give every event the same status.
+ * <p>
+ * A parser keeps the fields of the last line it parsed and is not thread-safe.
+ */
+public class EventLineParser {
+    private static final int DATE_LENGTH = 10;
+
+    private final char delimiter;
+    private final int idColumn;
+    private final int dateColumn;
+    private final int statusColumn;
+    private final int lastColumn;
+    private final AttendanceStatus defaultStatus;
+
+    private int id;
+    private int day;
+    private AttendanceStatus status;
+
+    private final char[] cachedDate = new char[DATE_LENGTH];
+    private int cachedDay;
+    private boolean dateCached;
+
+    /**
+     * @param delimiter Field separator
+     * @param idColumn Zero-based column of the student id
+     * @param dateColumn Zero-based column of the event date
+     * @param statusColumn Zero-based column of the status, or -1 if there is none
+     * @param defaultStatus Status of every event if there is no status column
+     */
+    public EventLineParser(char delimiter, int idColumn, int dateColumn, int statusColumn,
+                           AttendanceStatus defaultStatus) {
+        if (idColumn < 0 || dateColumn < 0 || statusColumn < -1) {
+            throw new IllegalArgumentException("Column numbers must not be negative");
+        }
+        if (idColumn == dateColumn || idColumn == statusColumn || dateColumn == statusColumn) {
+            throw new IllegalArgumentException("Id, date and status must be in different columns");
+        }
+        if (statusColumn < 0 && defaultStatus == null) {
+            throw new IllegalArgumentException("A status is required for files without a status column");
+        }
+        if (delimiter == '"') {
+            throw new IllegalArgumentException("The delimiter cannot be a quote");
+        }
+        this.delimiter = delimiter;
+        this.idColumn = idColumn;
+        this.dateColumn = dateColumn;
+        this.statusColumn = statusColumn;
+        this.lastColumn = Math.max(idColumn, Math.max(dateColumn, statusColumn));
+        this.defaultStatus = defaultStatus;
+    }
+
+    /**
+     * Parses a line. On success its fields can be read with {@link #getId()},
+     * {@link #getDay()} and {@link #getStatus()}.
+     * @param line The line, without its terminator
+     * @return False if the line has too few columns or a field cannot be parsed
+     */
+    public boolean parse(String line) {
+        int length = line.length();
+        int position = 0;
+        boolean hasId = false;
+        boolean hasDate = false;
+        status = defaultStatus;
+
+        for (int column = 0; column <= lastColumn; column++) {
+            if (position > length) return false;
+            int start = position;
+            int end;
+            int next;
+            if (position < length && line.charAt(position) == '"') {
+                start = position + 1;
+                int quote = start;
+                while (true) {
+                    quote = line.indexOf('"', quote);
+                    if (quote < 0) return false;
+                    if (quote + 1 < length && line.charAt(quote + 1) == '"') {
+                        quote += 2;
+                    } else {
+                        break;
+                    }
+                }
+                end = quote;
+                int separator = line.indexOf(delimiter, quote + 1);
+                next = separator < 0 ? length + 1 : separator + 1;
+            } else {
+                int separator = line.indexOf(delimiter, position);
+                end = separator < 0 ? length : separator;
+                next = end + 1;
+            }
+            while (start < end && line.charAt(start) <= ' ') start++;
+            while (end > start && line.charAt(end - 1) <= ' ') end--;
+
+            if (column == idColumn) {
+                if (!parseId(line, start, end)) return false;
+                hasId = true;
+            } else if (column == dateColumn) {
+                if (!parseDate(line, start, end)) return false;
+                hasDate = true;
+            } else if (column == statusColumn) {
+                status = parseStatus(line, start, end);
+                if (status == null) return false;
+            }
+            position = next;
+        }
+        return hasId && hasDate;
+    }
+
+    /**
+     * @return Student id of the last line parsed
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Epoch day of the last line parsed
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * @return Status of the last line parsed
+     */
+    public AttendanceStatus getStatus() {
+        return status;
+    }
+
+    private boolean parseId(String line, int start, int end) {
+        if (start == end || end - start > 10) return false;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') return false;
+            value = value * 10 + (c - '0');
+        }
+        if (value > Integer.MAX_VALUE) return false;
+        id = (int) value;
+        return true;
+    }
+
+    private boolean parseDate(String line, int start, int end) {
+        if (end - start < DATE_LENGTH) return false;
+        if (end - start > DATE_LENGTH) {
+            char separator = line.charAt(start + DATE_LENGTH);
+            if (separator != 'T' && separator != ' ') return false;
+        }
+        if (dateCached && isCachedDate(line, start)) {
+            day = cachedDay;
+            return true;
+        }
+        if (line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-') return false;
+        int year = digits(line, start, 4);
+        int month = digits(line, start + 5, 2);
+        int dayOfMonth = digits(line, start + 8, 2);
+        if (year < 0 || month < 0 || dayOfMonth < 0) return false;
+        try {
+            day = (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+        } catch (DateTimeException e) {
+            return false;
+        }
+        line.getChars(start, start + DATE_LENGTH, cachedDate, 0);
+        cachedDay = day;
+        dateCached = true;
+        return true;
+    }
+
+    private boolean isCachedDate(String line, int start) {
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            if (line.charAt(start + i) != cachedDate[i]) return false;
+        }
+        return true;
+    }
+
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static AttendanceStatus parseStatus(String line, int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            switch (Character.toUpperCase(line.charAt(start))) {
+                case 'P':
+                    return AttendanceStatus.PRESENT;
+                case 'A':
+                    return AttendanceStatus.ABSENT;
+                case 'E':
+                    return AttendanceStatus.EXCUSED;
+                default:
+                    return null;
+            }
+        }
+        for (AttendanceStatus candidate : AttendanceStatus.values()) {
+            String name = candidate.name();
+            if (name.length() == length && line.regionMatches(true, start, name, 0, length)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
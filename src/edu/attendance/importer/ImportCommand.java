@@ -0,0 +1,155 @@
+package edu.attendance.importer;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.util.SectionManager;
+import edu.attendance.util.StudentDataService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Headless import of attendance events from a card-swipe or student information system export.
+ * <p>
+ * Options: {@code --in FILE} (required; {@code .gz} files are decompressed on the fly),
+ * {@code --delimiter C} (default {@code ,}, {@code tab} for tabs), {@code --id-column N}
+ * (default 0), {@code --date-column N} (default 1), {@code --status-column N} (default 2, or
+ * {@code none} for files without one), {@code --status STATUS} for every event of a file
+ * without a status column (default {@code present}), {@code --batch N} events per sync
+ * (default 4096), {@code --checkpoint N} marks between saves (default 1000000),
+ * {@code --data-dir DIR} (folder containing {@code resources}, default the working
+ * directory) and {@code --section NAME}. Columns are counted from 0.
+ */
+public class ImportCommand {
+    public static void main(String[] args) throws IOException {
+        Path in = null;
+        char delimiter = ',';
+        int idColumn = 0;
+        int dateColumn = 1;
+        int statusColumn = 2;
+        AttendanceStatus defaultStatus = AttendanceStatus.PRESENT;
+        int batchSize = 4096;
+        long checkpoint = 1_000_000;
+        Path baseDir = Paths.get(System.getProperty("user.dir"));
+        String section = SectionManager.DEFAULT_SECTION;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--in":
+                    in = Paths.get(value);
+                    break;
+                case "--delimiter":
+                    if ("tab".equalsIgnoreCase(value)) {
+                        delimiter = '\t';
+                    } else if (value.length() == 1) {
+                        delimiter = value.charAt(0);
+                    } else {
+                        usage("The delimiter must be one character or tab");
+                    }
+                    break;
+                case "--id-column":
+                    idColumn = Integer.parseInt(value);
+                    break;
+                case "--date-column":
+                    dateColumn = Integer.parseInt(value);
+                    break;
+                case "--status-column":
+                    statusColumn = "none".equalsIgnoreCase(value) ? -1 : Integer.parseInt(value);
+                    break;
+                case "--status":
+                    try {
+                        defaultStatus = AttendanceStatus.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        usage("Unknown status " + value);
+                    }
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(value);
+                    break;
+                case "--checkpoint":
+                    checkpoint = Long.parseLong(value);
+                    break;
+                case "--data-dir":
+                    baseDir = Paths.get(value);
+                    break;
+                case "--section":
+                    section = value;
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (in == null) {
+            usage("--in is required");
+        }
+        if (batchSize < 1 || checkpoint < 1) {
+            usage("Batch size and checkpoint interval must be positive");
+        }
+
+        EventLineParser parser = null;
+        try {
+            parser = new EventLineParser(delimiter, idColumn, dateColumn, statusColumn, defaultStatus);
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+        }
+
+        StudentDataService rootService = new StudentDataService(baseDir);
+        StudentDataService dataService = SectionManager.DEFAULT_SECTION.equals(section)
+                ? rootService : rootService.forSection(section);
+        try {
+            // The importer saves at its own checkpoints; a background compaction would
+            // save the roster while it is being marked
+            dataService.setCompactionThreshold(Long.MAX_VALUE);
+            long start = System.nanoTime();
+            RosterStore store = dataService.loadRosterStore();
+            AttendanceImporter importer = new AttendanceImporter(store, dataService, batchSize, checkpoint);
+            long loaded = System.nanoTime();
+
+            ImportResult result;
+            try (BufferedReader reader = open(in)) {
+                result = importer.importEvents(reader, parser);
+            }
+
+            System.out.printf("%d lines: %d marks applied, %d duplicates, %d unknown ids, %d malformed%n",
+                    result.getLines(), result.getMarks(), result.getDuplicates(), result.getUnknownIds(),
+                    result.getMalformed());
+            System.out.printf("Loaded %d students in %d ms, imported in %.2f s (%.0f lines/s) "
+                            + "with %d batches and %d checkpoints%n",
+                    store.size(), (loaded - start) / 1_000_000, result.getElapsedNanos() / 1e9,
+                    result.getLinesPerSecond(), result.getBatches(), result.getCheckpoints());
+        } finally {
+            if (dataService != rootService) {
+                dataService.close();
+            }
+            rootService.close();
+        }
+    }
+
+    private static BufferedReader open(Path path) throws IOException {
+        InputStream input = Files.newInputStream(path);
+        if (path.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ImportCommand --in FILE[.gz] [--delimiter C|tab] [--id-column N] "
+                + "[--date-column N] [--status-column N|none] [--status present|absent|excused] [--batch N] "
+                + "[--checkpoint N] [--data-dir DIR] [--section NAME]");
+        System.exit(2);
+    }
+}
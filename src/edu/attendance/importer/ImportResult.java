@@ -0,0 +1,85 @@
+package edu.attendance.importer;
+
+/**
+ * Counts of an {@link AttendanceImporter} run: what happened to each line of the event
+ * file, and how fast the file was applied.
+ */
+public class ImportResult {
+    private final long lines;
+    private final long marks;
+    private final long duplicates;
+    private final long unknownIds;
+    private final long malformed;
+    private final long batches;
+    private final long checkpoints;
+    private final long elapsedNanos;
+
+    ImportResult(long lines, long marks, long duplicates, long unknownIds, long malformed, long batches,
+                 long checkpoints, long elapsedNanos) {
+        this.lines = lines;
+        this.marks = marks;
+        this.duplicates = duplicates;
+        this.unknownIds = unknownIds;
+        this.malformed = malformed;
+        this.batches = batches;
+        this.checkpoints = checkpoints;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return Lines read, including a header and blank lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return Events applied to the roster
+     */
+    public long getMarks() {
+        return marks;
+    }
+
+    /**
+     * @return Events skipped because the student already had a mark on that day
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return Events skipped because no student has their id
+     */
+    public long getUnknownIds() {
+        return unknownIds;
+    }
+
+    /**
+     * @return Lines that could not be parsed
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return Batches appended to the event log, one sync each
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return Saves of the roster during the import, not counting the final one
+     */
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getLinesPerSecond() {
+        return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+    }
+}
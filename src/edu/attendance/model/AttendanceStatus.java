@@ -0,0 +1,38 @@
+package edu.attendance.model;
+
+/**
+ * The outcome recorded when a student is called.
+ */
+public enum AttendanceStatus {
+    PRESENT('P'),
+    ABSENT('A'),
+    EXCUSED('E');
+
+    private final char code;
+
+    AttendanceStatus(char code) {
+        this.code = code;
+    }
+
+    /**
+     * @return Single-character code used in compact file formats
+     */
+    public char getCode() {
+        return code;
+    }
+
+    /**
+     * Looks up a status by its single-character code.
+     * @param code The code to look up
+     * @return The matching status
+     * @throws IllegalArgumentException If the code is unknown
+     */
+    public static AttendanceStatus fromCode(char code) {
+        for (AttendanceStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown attendance status code: " + code);
+    }
+}
@@ -0,0 +1,387 @@
+package edu.attendance.model;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented roster for very large student populations.
+ * <p>
+ * Instead of one {@link Student} object per enrollment, counters and the last-called day
+ * are kept in primitive arrays indexed by row, so a million students cost a handful of
+ * arrays rather than a million objects with their own {@code LocalDate}. Marking and
+ * weight computation work on the arrays directly; {@link #view(int)} hands out a
+ * lightweight {@code Student} backed by a row for code that expects the object model.
+ */
+public class RosterStore {
+    /** Last-called day value for a student who has never been called. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private int size;
+    private int[] ids;
+    private String[] names;
+    private String[] quotes;
+    private int[] timesCalled;
+    private int[] timesPresent;
+    private int[] timesAbsent;
+    private int[] timesExcused;
+    private int[] lastCalledDay;
+    private boolean[] dirty;
+
+    public RosterStore() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity Number of rows to allocate up front
+     */
+    public RosterStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        ids = new int[capacity];
+        names = new String[capacity];
+        quotes = new String[capacity];
+        timesCalled = new int[capacity];
+        timesPresent = new int[capacity];
+        timesAbsent = new int[capacity];
+        timesExcused = new int[capacity];
+        lastCalledDay = new int[capacity];
+        dirty = new boolean[capacity];
+    }
+
+    /**
+     * Copies a list of students into a new store.
+     * @param students The students to copy
+     * @return A store with one row per student, in list order
+     */
+    public static RosterStore of(List<Student> students) {
+        RosterStore store = new RosterStore(students.size());
+        for (Student student : students) {
+            store.add(student.getId(), student.getName(), student.getFavoriteQuote(),
+                    student.getTimesCalled(), student.getTimesPresent(), student.getTimesAbsent(),
+                    student.getTimesExcused(), toDay(student.getLastCalledDate()));
+        }
+        return store;
+    }
+
+    /**
+     * Appends a row.
+     * @param lastCalledDay Epoch day of the last call, or {@link #NO_DATE}
+     * @return The row index of the new student
+     */
+    public int add(int id, String name, String quote, int called, int present,
+                   int absent, int excused, int lastCalledDay) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        names[row] = name;
+        quotes[row] = quote;
+        timesCalled[row] = called;
+        timesPresent[row] = present;
+        timesAbsent[row] = absent;
+        timesExcused[row] = excused;
+        this.lastCalledDay[row] = lastCalledDay;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getFavoriteQuote(int row) {
+        return quotes[row];
+    }
+
+    public int getTimesCalled(int row) {
+        return timesCalled[row];
+    }
+
+    public int getTimesPresent(int row) {
+        return timesPresent[row];
+    }
+
+    public int getTimesAbsent(int row) {
+        return timesAbsent[row];
+    }
+
+    public int getTimesExcused(int row) {
+        return timesExcused[row];
+    }
+
+    /**
+     * @return Epoch day of the last call, or {@link #NO_DATE}
+     */
+    public int getLastCalledDay(int row) {
+        return lastCalledDay[row];
+    }
+
+    public LocalDate getLastCalledDate(int row) {
+        int day = lastCalledDay[row];
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Records an attendance outcome for a row.
+     * @param row The student's row
+     * @param status The outcome to record
+     * @param today The day of the mark
+     */
+    public void mark(int row, AttendanceStatus status, LocalDate today) {
+        count(row, status);
+        lastCalledDay[row] = (int) today.toEpochDay();
+        dirty[row] = true;
+    }
+
+    /**
+     * Records an attendance outcome from an imported event, which may be older than the
+     * row's last call; the last-called day only moves forward.
+     * @param row The student's row
+     * @param status The outcome to record
+     * @param day Epoch day of the event
+     */
+    public void markOn(int row, AttendanceStatus status, int day) {
+        count(row, status);
+        if (day > lastCalledDay[row]) {
+            lastCalledDay[row] = day;
+        }
+        dirty[row] = true;
+    }
+
+    private void count(int row, AttendanceStatus status) {
+        timesCalled[row]++;
+        switch (status) {
+            case PRESENT:
+                timesPresent[row]++;
+                break;
+            case ABSENT:
+                timesAbsent[row]++;
+                break;
+            case EXCUSED:
+                timesExcused[row]++;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown attendance status: " + status);
+        }
+    }
+
+    /**
+     * Overwrites a row's counters, e.g. when replaying a saved record.
+     */
+    public void restoreCounters(int row, int called, int present, int absent, int excused, int lastCalledDay) {
+        timesCalled[row] = called;
+        timesPresent[row] = present;
+        timesAbsent[row] = absent;
+        timesExcused[row] = excused;
+        this.lastCalledDay[row] = lastCalledDay;
+        dirty[row] = true;
+    }
+
+    /**
+     * @return True if the row was marked or restored since the last {@link #clearDirty(int)}
+     */
+    public boolean isDirty(int row) {
+        return dirty[row];
+    }
+
+    /**
+     * Marks a row as saved; see {@link Student#clearDirty()}.
+     */
+    public void clearDirty(int row) {
+        dirty[row] = false;
+    }
+
+    /**
+     * Computes a row's selection weight with the same formula as {@link Student#getSelectionProbability()}.
+     * @param row The student's row
+     * @param todayEpochDay The current epoch day
+     */
+    public double selectionWeight(int row, long todayEpochDay) {
+        int day = lastCalledDay[row];
+        long daysSinceLastCall = day == NO_DATE ? Long.MAX_VALUE : todayEpochDay - day;
+        return Student.selectionWeight(timesCalled[row], timesAbsent[row], daysSinceLastCall);
+    }
+
+    /**
+     * Computes every row's selection weight in one sequential pass over the arrays.
+     * @param out Array of at least {@link #size()} entries to fill
+     * @param today The current day
+     */
+    public void fillWeights(double[] out, LocalDate today) {
+        long todayEpochDay = today.toEpochDay();
+        for (int row = 0; row < size; row++) {
+            out[row] = selectionWeight(row, todayEpochDay);
+        }
+    }
+
+    /**
+     * Returns a {@code Student} backed by a row. Reads and marks go straight to the arrays.
+     * @param row The student's row
+     */
+    public Student view(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return new StudentView(this, row);
+    }
+
+    /**
+     * @return A list over the store that creates row views on access
+     */
+    public List<Student> asList() {
+        return new ViewList();
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1) + 1;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        quotes = Arrays.copyOf(quotes, capacity);
+        timesCalled = Arrays.copyOf(timesCalled, capacity);
+        timesPresent = Arrays.copyOf(timesPresent, capacity);
+        timesAbsent = Arrays.copyOf(timesAbsent, capacity);
+        timesExcused = Arrays.copyOf(timesExcused, capacity);
+        lastCalledDay = Arrays.copyOf(lastCalledDay, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+    }
+
+    private static int toDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private class ViewList extends AbstractList<Student> implements RandomAccess {
+        @Override
+        public Student get(int index) {
+            return view(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A {@code Student} whose state lives in a row of the store. It holds nothing but the
+     * store and the row, so a view per row costs an object header and two fields.
+     */
+    private static final class StudentView implements Student {
+        private final RosterStore store;
+        private final int row;
+
+        StudentView(RosterStore store, int row) {
+            this.store = store;
+            this.row = row;
+        }
+
+        @Override
+        public double getSelectionProbability(LocalDate today) {
+            return store.selectionWeight(row, today.toEpochDay());
+        }
+
+        @Override
+        public void markPresent() {
+            store.mark(row, AttendanceStatus.PRESENT, LocalDate.now());
+        }
+
+        @Override
+        public void markAbsent() {
+            store.mark(row, AttendanceStatus.ABSENT, LocalDate.now());
+        }
+
+        @Override
+        public void markExcused() {
+            store.mark(row, AttendanceStatus.EXCUSED, LocalDate.now());
+        }
+
+        @Override
+        public void restoreCounters(int timesCalled, int timesPresent, int timesAbsent,
+                                    int timesExcused, LocalDate lastCalledDate) {
+            store.restoreCounters(row, timesCalled, timesPresent, timesAbsent, timesExcused, toDay(lastCalledDate));
+        }
+
+        @Override
+        public boolean isDirty() {
+            return store.isDirty(row);
+        }
+
+        @Override
+        public void clearDirty() {
+            store.clearDirty(row);
+        }
+
+        @Override
+        public int getId() {
+            return store.getId(row);
+        }
+
+        @Override
+        public String getName() {
+            return store.getName(row);
+        }
+
+        @Override
+        public String getFavoriteQuote() {
+            return store.getFavoriteQuote(row);
+        }
+
+        @Override
+        public int getTimesCalled() {
+            return store.getTimesCalled(row);
+        }
+
+        @Override
+        public int getTimesPresent() {
+            return store.getTimesPresent(row);
+        }
+
+        @Override
+        public int getTimesAbsent() {
+            return store.getTimesAbsent(row);
+        }
+
+        @Override
+        public int getTimesExcused() {
+            return store.getTimesExcused(row);
+        }
+
+        @Override
+        public LocalDate getLastCalledDate() {
+            return store.getLastCalledDate(row);
+        }
+
+        @Override
+        public void setLastCalledDate(LocalDate lastCalledDate) {
+            store.lastCalledDay[row] = toDay(lastCalledDate);
+            store.dirty[row] = true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StudentView)) return false;
+            StudentView other = (StudentView) o;
+            return store == other.store && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + row;
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
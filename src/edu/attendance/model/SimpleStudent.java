@@ -0,0 +1,136 @@
+package edu.attendance.model;
+
+import java.time.LocalDate;
+
+/**
+ * A student held as its own object, as loaded from the CSV or a snapshot.
+ */
+public class SimpleStudent implements Student {
+    private int id;
+    private String name;
+    private String favoriteQuote;
+    private int timesCalled;
+    private int timesPresent;
+    private int timesAbsent;
+    private int timesExcused;
+    private LocalDate lastCalledDate;
+    private boolean dirty;
+
+    public SimpleStudent(int id, String name, String favoriteQuote) {
+        this.id = id;
+        this.name = name;
+        this.favoriteQuote = favoriteQuote;
+        this.timesCalled = 0;
+        this.timesPresent = 0;
+        this.timesAbsent = 0;
+        this.timesExcused = 0;
+    }
+
+    public SimpleStudent(int id, String name, String favoriteQuote, int timesCalled, 
+                  int timesPresent, int timesAbsent, int timesExcused, LocalDate lastCalledDate) {
+        this.id = id;
+        this.name = name;
+        this.favoriteQuote = favoriteQuote;
+        this.timesCalled = timesCalled;
+        this.timesPresent = timesPresent;
+        this.timesAbsent = timesAbsent;
+        this.timesExcused = timesExcused;
+        this.lastCalledDate = lastCalledDate;
+    }
+
+    @Override
+    public void markPresent() {
+        this.timesCalled++;
+        this.timesPresent++;
+        this.lastCalledDate = LocalDate.now();
+        this.dirty = true;
+    }
+
+    @Override
+    public void markAbsent() {
+        this.timesCalled++;
+        this.timesAbsent++;
+        this.lastCalledDate = LocalDate.now();
+        this.dirty = true;
+    }
+
+    @Override
+    public void markExcused() {
+        this.timesCalled++;
+        this.timesExcused++;
+        this.lastCalledDate = LocalDate.now();
+        this.dirty = true;
+    }
+
+    @Override
+    public void restoreCounters(int timesCalled, int timesPresent, int timesAbsent,
+                                int timesExcused, LocalDate lastCalledDate) {
+        this.timesCalled = timesCalled;
+        this.timesPresent = timesPresent;
+        this.timesAbsent = timesAbsent;
+        this.timesExcused = timesExcused;
+        this.lastCalledDate = lastCalledDate;
+        this.dirty = true;
+    }
+
+    @Override
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    @Override
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getFavoriteQuote() {
+        return favoriteQuote;
+    }
+
+    @Override
+    public int getTimesCalled() {
+        return timesCalled;
+    }
+
+    @Override
+    public int getTimesPresent() {
+        return timesPresent;
+    }
+
+    @Override
+    public int getTimesAbsent() {
+        return timesAbsent;
+    }
+
+    @Override
+    public int getTimesExcused() {
+        return timesExcused;
+    }
+
+    @Override
+    public LocalDate getLastCalledDate() {
+        return lastCalledDate;
+    }
+
+    @Override
+    public void setLastCalledDate(LocalDate lastCalledDate) {
+        this.lastCalledDate = lastCalledDate;
+        this.dirty = true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
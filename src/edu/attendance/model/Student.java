@@ -4,48 +4,48 @@ import java.time.LocalDate;
 
 /**
  * Represents a student in the attendance system.
+ * <p>
+ * {@link SimpleStudent} holds a student's fields itself; {@link RosterStore#view(int)}
+ * returns a student that only refers to a row of the store, so a view costs a few bytes
+ * rather than a copy of every field.
  */
-public class Student {
-    private int id;
-    private String name;
-    private String favoriteQuote;
-    private int timesCalled;
-    private int timesPresent;
-    private int timesAbsent;
-    private int timesExcused;
-    private LocalDate lastCalledDate;
-
-    public Student(int id, String name, String favoriteQuote) {
-        this.id = id;
-        this.name = name;
-        this.favoriteQuote = favoriteQuote;
-        this.timesCalled = 0;
-        this.timesPresent = 0;
-        this.timesAbsent = 0;
-        this.timesExcused = 0;
+public interface Student {
+    /** Number of days after a call during which a student's weight is reduced. */
+    int RECENCY_WINDOW_DAYS = 7;
+
+    /**
+     * Calculates the selection probability for this student based on their history.
+     * Students who have been called less frequently or who have been absent have a higher probability.
+     * @return A value representing the relative probability (higher is more likely to be selected)
+     */
+    default double getSelectionProbability() {
+        return getSelectionProbability(LocalDate.now());
     }
 
-    public Student(int id, String name, String favoriteQuote, int timesCalled, 
-                  int timesPresent, int timesAbsent, int timesExcused, LocalDate lastCalledDate) {
-        this.id = id;
-        this.name = name;
-        this.favoriteQuote = favoriteQuote;
-        this.timesCalled = timesCalled;
-        this.timesPresent = timesPresent;
-        this.timesAbsent = timesAbsent;
-        this.timesExcused = timesExcused;
-        this.lastCalledDate = lastCalledDate;
+    /**
+     * Calculates the selection probability as of a given day.
+     * @param today The day to measure recency from
+     * @return A value representing the relative probability (higher is more likely to be selected)
+     */
+    default double getSelectionProbability(LocalDate today) {
+        LocalDate lastCalledDate = getLastCalledDate();
+        long daysSinceLastCall = lastCalledDate != null
+                ? today.toEpochDay() - lastCalledDate.toEpochDay()
+                : Long.MAX_VALUE;
+        return selectionWeight(getTimesCalled(), getTimesAbsent(), daysSinceLastCall);
     }
 
     /**
-     * Calculates the selection probability for this student based on their history.
-     * Students who have been called less frequently or who have been absent have a higher probability.
+     * The selection weighting formula, shared by every representation of a student.
+     * @param timesCalled Number of times the student has been called
+     * @param timesAbsent Number of times the student was absent
+     * @param daysSinceLastCall Days since the student was last called, or {@link Long#MAX_VALUE} if never
      * @return A value representing the relative probability (higher is more likely to be selected)
      */
-    public double getSelectionProbability() {
+    static double selectionWeight(int timesCalled, int timesAbsent, long daysSinceLastCall) {
         // Base probability
         double probability = 1.0;
-        
+
         // Decrease probability if called recently
         if (timesCalled > 0) {
             probability *= (1.0 / Math.sqrt(timesCalled));
@@ -53,80 +53,78 @@ public class Student {
             // Boost probability if never called
             probability *= 2.0;
         }
-        
+
         // Boost probability for students who have been absent
         if (timesAbsent > 0) {
             probability *= (1.0 + (0.5 * timesAbsent));
         }
-        
+
         // Reduce probability for recently called students
-        if (lastCalledDate != null) {
-            long daysSinceLastCall = LocalDate.now().toEpochDay() - lastCalledDate.toEpochDay();
-            if (daysSinceLastCall < 7) {
-                probability *= (daysSinceLastCall / 7.0);
-            }
+        if (daysSinceLastCall < RECENCY_WINDOW_DAYS) {
+            probability *= ((double) daysSinceLastCall / RECENCY_WINDOW_DAYS);
         }
-        
+
         return probability;
     }
 
-    public void markPresent() {
-        this.timesCalled++;
-        this.timesPresent++;
-        this.lastCalledDate = LocalDate.now();
-    }
+    void markPresent();
 
-    public void markAbsent() {
-        this.timesCalled++;
-        this.timesAbsent++;
-        this.lastCalledDate = LocalDate.now();
-    }
+    void markAbsent();
 
-    public void markExcused() {
-        this.timesCalled++;
-        this.timesExcused++;
-        this.lastCalledDate = LocalDate.now();
-    }
+    void markExcused();
 
-    // Getters and setters
-    public int getId() {
-        return id;
+    /**
+     * Records an attendance outcome, dispatching to the matching mark method.
+     * @param status The outcome to record
+     */
+    default void mark(AttendanceStatus status) {
+        switch (status) {
+            case PRESENT:
+                markPresent();
+                break;
+            case ABSENT:
+                markAbsent();
+                break;
+            case EXCUSED:
+                markExcused();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown attendance status: " + status);
+        }
     }
 
-    public String getName() {
-        return name;
-    }
+    /**
+     * Overwrites the attendance counters, e.g. when replaying a saved record.
+     */
+    void restoreCounters(int timesCalled, int timesPresent, int timesAbsent,
+                         int timesExcused, LocalDate lastCalledDate);
 
-    public String getFavoriteQuote() {
-        return favoriteQuote;
-    }
+    /**
+     * @return True if the counters or last-called date changed since the last {@link #clearDirty()}
+     */
+    boolean isDirty();
 
-    public int getTimesCalled() {
-        return timesCalled;
-    }
+    /**
+     * Marks the student as saved. Called by a save before it reads the counters, so a
+     * change made while saving sets the flag again and is picked up by the next save.
+     */
+    void clearDirty();
 
-    public int getTimesPresent() {
-        return timesPresent;
-    }
+    int getId();
 
-    public int getTimesAbsent() {
-        return timesAbsent;
-    }
+    String getName();
 
-    public int getTimesExcused() {
-        return timesExcused;
-    }
+    String getFavoriteQuote();
 
-    public LocalDate getLastCalledDate() {
-        return lastCalledDate;
-    }
+    int getTimesCalled();
 
-    public void setLastCalledDate(LocalDate lastCalledDate) {
-        this.lastCalledDate = lastCalledDate;
-    }
+    int getTimesPresent();
 
-    @Override
-    public String toString() {
-        return name;
-    }
+    int getTimesAbsent();
+
+    int getTimesExcused();
+
+    LocalDate getLastCalledDate();
+
+    void setLastCalledDate(LocalDate lastCalledDate);
 }
@@ -0,0 +1,160 @@
+package edu.attendance.report;
+
+import java.time.LocalDate;
+
+/**
+ * Roster-wide results of a {@link ReportEngine} run: attendance totals, chronic absence,
+ * weekly totals from the attendance history and how evenly calls are spread.
+ */
+public class AttendanceReport {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final double chronicThreshold;
+    private final int minCalls;
+    private final ReportEngine.Totals totals;
+    private final LocalDate[] weekStarts;
+    private final int[] weeklyPresent;
+    private final int[] weeklyAbsent;
+    private final int[] weeklyExcused;
+    private final double gini;
+    private final double topDecileShare;
+
+    AttendanceReport(LocalDate from, LocalDate to, double chronicThreshold, int minCalls,
+                     ReportEngine.Totals totals, LocalDate[] weekStarts,
+                     int[] weeklyPresent, int[] weeklyAbsent, int[] weeklyExcused) {
+        this.from = from;
+        this.to = to;
+        this.chronicThreshold = chronicThreshold;
+        this.minCalls = minCalls;
+        this.totals = totals;
+        this.weekStarts = weekStarts;
+        this.weeklyPresent = weeklyPresent;
+        this.weeklyAbsent = weeklyAbsent;
+        this.weeklyExcused = weeklyExcused;
+        this.gini = totals.gini();
+        this.topDecileShare = totals.topShare(0.1);
+    }
+
+    /**
+     * @return First day of the weekly totals
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * @return Last day of the weekly totals
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int getStudentCount() {
+        return totals.students;
+    }
+
+    public long getTotalCalls() {
+        return totals.called;
+    }
+
+    public long getTotalPresent() {
+        return totals.present;
+    }
+
+    public long getTotalAbsent() {
+        return totals.absent;
+    }
+
+    public long getTotalExcused() {
+        return totals.excused;
+    }
+
+    /**
+     * @return Share of all calls answered present, or NaN if nobody was called
+     */
+    public double getAttendanceRate() {
+        return totals.called == 0 ? Double.NaN : (double) totals.present / totals.called;
+    }
+
+    /**
+     * @return Share of missed calls from which a student counts as chronically absent
+     */
+    public double getChronicThreshold() {
+        return chronicThreshold;
+    }
+
+    /**
+     * @return Calls a student needs before they can be flagged as chronically absent
+     */
+    public int getMinCalls() {
+        return minCalls;
+    }
+
+    public int getChronicallyAbsentCount() {
+        return totals.chronic;
+    }
+
+    public int getNeverCalledCount() {
+        return totals.neverCalled;
+    }
+
+    public int getMinTimesCalled() {
+        return totals.students == 0 ? 0 : totals.minCalled;
+    }
+
+    public int getMaxTimesCalled() {
+        return totals.maxCalled;
+    }
+
+    public double getMeanTimesCalled() {
+        return totals.students == 0 ? 0 : (double) totals.called / totals.students;
+    }
+
+    public double getStdDevTimesCalled() {
+        if (totals.students == 0) return 0;
+        double mean = getMeanTimesCalled();
+        return Math.sqrt(Math.max(0, (double) totals.calledSquares / totals.students - mean * mean));
+    }
+
+    /**
+     * @return Standard deviation over mean of calls per student; 0 is perfectly even
+     */
+    public double getCallVariation() {
+        double mean = getMeanTimesCalled();
+        return mean == 0 ? 0 : getStdDevTimesCalled() / mean;
+    }
+
+    /**
+     * @return Gini coefficient of calls per student, from 0 (everyone called equally
+     *         often) to nearly 1 (one student gets every call)
+     */
+    public double getCallGini() {
+        return gini;
+    }
+
+    /**
+     * @return Share of all calls that went to the most-called tenth of the roster
+     */
+    public double getTopDecileCallShare() {
+        return topDecileShare;
+    }
+
+    /**
+     * @return Monday of each week in the range; the first week may start before {@link #getFrom()}
+     */
+    public LocalDate[] getWeekStarts() {
+        return weekStarts.clone();
+    }
+
+    public int[] getWeeklyPresent() {
+        return weeklyPresent.clone();
+    }
+
+    public int[] getWeeklyAbsent() {
+        return weeklyAbsent.clone();
+    }
+
+    public int[] getWeeklyExcused() {
+        return weeklyExcused.clone();
+    }
+}
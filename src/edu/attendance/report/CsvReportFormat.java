@@ -0,0 +1,109 @@
+package edu.attendance.report;
+
+import edu.attendance.model.RosterStore;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Writes one CSV line per student. The roster-wide results go to a separate summary
+ * file through {@link #writeSummary}.
+ */
+public class CsvReportFormat implements ReportFormat {
+    private static final String HEADER =
+            "id,name,times_called,times_present,times_absent,times_excused,attendance_rate,chronic_absence,last_called_date";
+
+    @Override
+    public void appendStudent(StringBuilder out, RosterStore store, int row, double attendanceRate,
+                              boolean chronicAbsence) {
+        out.append(store.getId(row)).append(',');
+        appendField(out, store.getName(row));
+        out.append(',').append(store.getTimesCalled(row))
+           .append(',').append(store.getTimesPresent(row))
+           .append(',').append(store.getTimesAbsent(row))
+           .append(',').append(store.getTimesExcused(row))
+           .append(',');
+        if (!Double.isNaN(attendanceRate)) {
+            ReportFormat.appendFixed(out, attendanceRate, 3);
+        }
+        out.append(',').append(chronicAbsence).append(',');
+        int day = store.getLastCalledDay(row);
+        if (day != RosterStore.NO_DATE) {
+            ReportFormat.appendDate(out, day);
+        }
+        out.append('\n');
+    }
+
+    @Override
+    public void write(Writer out, AttendanceReport report, List<? extends CharSequence> studentLines)
+            throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+        for (CharSequence lines : studentLines) {
+            out.append(lines);
+        }
+    }
+
+    /**
+     * Writes the roster-wide results as {@code metric,value} lines followed by the weekly totals.
+     */
+    public static void writeSummary(Writer out, AttendanceReport report) throws IOException {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("metric,value\n");
+        metric(sb, "from", report.getFrom());
+        metric(sb, "to", report.getTo());
+        metric(sb, "students", report.getStudentCount());
+        metric(sb, "total_calls", report.getTotalCalls());
+        metric(sb, "total_present", report.getTotalPresent());
+        metric(sb, "total_absent", report.getTotalAbsent());
+        metric(sb, "total_excused", report.getTotalExcused());
+        metric(sb, "attendance_rate", report.getAttendanceRate());
+        metric(sb, "chronic_absence_threshold", report.getChronicThreshold());
+        metric(sb, "chronic_absence_min_calls", report.getMinCalls());
+        metric(sb, "chronically_absent", report.getChronicallyAbsentCount());
+        metric(sb, "never_called", report.getNeverCalledCount());
+        metric(sb, "min_times_called", report.getMinTimesCalled());
+        metric(sb, "max_times_called", report.getMaxTimesCalled());
+        metric(sb, "mean_times_called", report.getMeanTimesCalled());
+        metric(sb, "stddev_times_called", report.getStdDevTimesCalled());
+        metric(sb, "call_variation", report.getCallVariation());
+        metric(sb, "call_gini", report.getCallGini());
+        metric(sb, "top_decile_call_share", report.getTopDecileCallShare());
+
+        sb.append("\nweek_start,present,absent,excused\n");
+        LocalDate[] weeks = report.getWeekStarts();
+        int[] present = report.getWeeklyPresent();
+        int[] absent = report.getWeeklyAbsent();
+        int[] excused = report.getWeeklyExcused();
+        for (int w = 0; w < weeks.length; w++) {
+            sb.append(weeks[w]).append(',').append(present[w]).append(',')
+              .append(absent[w]).append(',').append(excused[w]).append('\n');
+        }
+        out.append(sb);
+    }
+
+    private static void metric(StringBuilder sb, String name, Object value) {
+        sb.append(name).append(',');
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (!Double.isNaN(d)) {
+                ReportFormat.appendFixed(sb, d, 4);
+            }
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static void appendField(StringBuilder out, String field) {
+        if (field == null) return;
+        if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                || field.indexOf('\r') >= 0) {
+            out.append('"').append(field.replace("\"", "\"\"")).append('"');
+        } else {
+            out.append(field);
+        }
+    }
+}
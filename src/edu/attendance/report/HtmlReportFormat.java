@@ -0,0 +1,139 @@
+package edu.attendance.report;
+
+import edu.attendance.model.RosterStore;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Writes a self-contained HTML page with the roster-wide results, the weekly totals and a
+ * table of the chronically absent students. Other students are left out so that the
+ * page stays readable for very large rosters; the CSV format lists everyone.
+ */
+public class HtmlReportFormat implements ReportFormat {
+    private static final String STYLE =
+            "body{font-family:sans-serif;margin:2em;color:#222}"
+            + "table{border-collapse:collapse;margin-bottom:2em}"
+            + "th,td{border:1px solid #ccc;padding:4px 10px;text-align:right}"
+            + "th{background:#f0f0f0}td.name{text-align:left}"
+            + ".bar{display:inline-block;height:10px;background:#4a7ebb}";
+
+    @Override
+    public void appendStudent(StringBuilder out, RosterStore store, int row, double attendanceRate,
+                              boolean chronicAbsence) {
+        if (!chronicAbsence) return;
+        out.append("<tr><td>").append(store.getId(row)).append("</td><td class=\"name\">");
+        escape(out, store.getName(row));
+        out.append("</td><td>").append(store.getTimesCalled(row))
+           .append("</td><td>").append(store.getTimesPresent(row))
+           .append("</td><td>").append(store.getTimesAbsent(row))
+           .append("</td><td>").append(store.getTimesExcused(row))
+           .append("</td><td>");
+        ReportFormat.appendFixed(out, attendanceRate * 100, 1);
+        out.append("%</td><td>");
+        int day = store.getLastCalledDay(row);
+        if (day != RosterStore.NO_DATE) {
+            ReportFormat.appendDate(out, day);
+        }
+        out.append("</td></tr>\n");
+    }
+
+    @Override
+    public void write(Writer out, AttendanceReport report, List<? extends CharSequence> studentLines)
+            throws IOException {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        sb.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Attendance Report</title><style>")
+          .append(STYLE).append("</style></head><body>\n")
+          .append("<h1>Attendance Report</h1>\n<p>")
+          .append(report.getFrom()).append(" to ").append(report.getTo()).append("</p>\n");
+
+        sb.append("<h2>Summary</h2>\n<table>\n");
+        row(sb, "Students", Integer.toString(report.getStudentCount()));
+        row(sb, "Calls", Long.toString(report.getTotalCalls()));
+        row(sb, "Present / absent / excused", report.getTotalPresent() + " / " + report.getTotalAbsent()
+                + " / " + report.getTotalExcused());
+        row(sb, "Attendance rate", percent(report.getAttendanceRate()));
+        row(sb, "Chronically absent", report.getChronicallyAbsentCount() + " (missed at least "
+                + percent(report.getChronicThreshold()) + " of " + report.getMinCalls() + "+ calls)");
+        row(sb, "Never called", Integer.toString(report.getNeverCalledCount()));
+        sb.append("</table>\n");
+
+        sb.append("<h2>Call Fairness</h2>\n<table>\n");
+        row(sb, "Calls per student (min / mean / max)", report.getMinTimesCalled() + " / "
+                + fixed(report.getMeanTimesCalled(), 2) + " / " + report.getMaxTimesCalled());
+        row(sb, "Standard deviation", fixed(report.getStdDevTimesCalled(), 2));
+        row(sb, "Coefficient of variation", fixed(report.getCallVariation(), 3));
+        row(sb, "Gini coefficient", fixed(report.getCallGini(), 3));
+        row(sb, "Calls to most-called 10%", percent(report.getTopDecileCallShare()));
+        sb.append("</table>\n");
+
+        LocalDate[] weeks = report.getWeekStarts();
+        int[] present = report.getWeeklyPresent();
+        int[] absent = report.getWeeklyAbsent();
+        int[] excused = report.getWeeklyExcused();
+        int max = 1;
+        for (int w = 0; w < weeks.length; w++) {
+            max = Math.max(max, present[w] + absent[w] + excused[w]);
+        }
+        sb.append("<h2>Weekly Totals</h2>\n<table>\n<tr><th>Week of</th><th>Present</th><th>Absent</th>"
+                + "<th>Excused</th><th>Rate</th><th></th></tr>\n");
+        for (int w = 0; w < weeks.length; w++) {
+            int total = present[w] + absent[w] + excused[w];
+            sb.append("<tr><td>").append(weeks[w]).append("</td><td>").append(present[w])
+              .append("</td><td>").append(absent[w]).append("</td><td>").append(excused[w])
+              .append("</td><td>").append(total == 0 ? "" : percent((double) present[w] / total))
+              .append("</td><td class=\"name\"><span class=\"bar\" style=\"width:")
+              .append(200L * total / max).append("px\"></span></td></tr>\n");
+        }
+        sb.append("</table>\n");
+
+        sb.append("<h2>Chronically Absent Students</h2>\n<table>\n<tr><th>ID</th><th>Name</th><th>Called</th>"
+                + "<th>Present</th><th>Absent</th><th>Excused</th><th>Rate</th><th>Last Called</th></tr>\n");
+        out.append(sb);
+        for (CharSequence lines : studentLines) {
+            out.append(lines);
+        }
+        out.write("</table>\n</body></html>\n");
+    }
+
+    private static void row(StringBuilder sb, String label, String value) {
+        sb.append("<tr><th>").append(label).append("</th><td>");
+        escape(sb, value);
+        sb.append("</td></tr>\n");
+    }
+
+    private static String percent(double share) {
+        return Double.isNaN(share) ? "n/a" : fixed(share * 100, 1) + "%";
+    }
+
+    private static String fixed(double value, int decimals) {
+        StringBuilder sb = new StringBuilder();
+        ReportFormat.appendFixed(sb, value, decimals);
+        return sb.toString();
+    }
+
+    private static void escape(StringBuilder out, String text) {
+        if (text == null) return;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    out.append(ch);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package edu.attendance.report;
+
+import edu.attendance.model.RosterStore;
+import edu.attendance.util.AttendanceHistory;
+import edu.attendance.util.SectionManager;
+import edu.attendance.util.StudentDataService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Headless attendance report.
+ * <p>
+ * Options: {@code --out FILE} (required; {@code .html} for an HTML page, otherwise CSV with
+ * a {@code -summary.csv} file next to it), {@code --from DATE} and {@code --to DATE} for the
+ * weekly totals (default the history's term start and today), {@code --chronic-threshold R}
+ * (default 0.1), {@code --min-calls N} (default 3), {@code --data-dir DIR} (folder
+ * containing {@code resources}, default the working directory) and {@code --section NAME}.
+ */
+public class ReportCommand {
+    public static void main(String[] args) throws IOException {
+        Path out = null;
+        LocalDate from = null;
+        LocalDate to = LocalDate.now();
+        double threshold = 0.1;
+        int minCalls = 3;
+        Path baseDir = Paths.get(System.getProperty("user.dir"));
+        String section = SectionManager.DEFAULT_SECTION;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                case "--from":
+                    from = LocalDate.parse(value);
+                    break;
+                case "--to":
+                    to = LocalDate.parse(value);
+                    break;
+                case "--chronic-threshold":
+                    threshold = Double.parseDouble(value);
+                    break;
+                case "--min-calls":
+                    minCalls = Integer.parseInt(value);
+                    break;
+                case "--data-dir":
+                    baseDir = Paths.get(value);
+                    break;
+                case "--section":
+                    section = value;
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (out == null) {
+            usage("--out is required");
+        }
+
+        StudentDataService rootService = new StudentDataService(baseDir);
+        StudentDataService dataService = SectionManager.DEFAULT_SECTION.equals(section)
+                ? rootService : rootService.forSection(section);
+        try {
+            long start = System.nanoTime();
+            RosterStore store = dataService.loadRosterStore();
+            AttendanceHistory history = dataService.getAttendanceHistory();
+            long loaded = System.nanoTime();
+
+            boolean html = out.getFileName().toString().toLowerCase().endsWith(".html");
+            ReportEngine engine = new ReportEngine(threshold, minCalls);
+            AttendanceReport report;
+            try (Writer writer = new BufferedWriter(Files.newBufferedWriter(out), 1 << 16)) {
+                report = engine.generate(store, history, from != null ? from : history.getTermStart(), to,
+                        html ? new HtmlReportFormat() : new CsvReportFormat(), writer);
+            }
+            if (!html) {
+                String name = out.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                Path summary = out.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + "-summary.csv");
+                try (Writer writer = Files.newBufferedWriter(summary)) {
+                    CsvReportFormat.writeSummary(writer, report);
+                }
+            }
+            long done = System.nanoTime();
+
+            System.out.printf("%d students, %d chronically absent, call Gini %.3f%n",
+                    report.getStudentCount(), report.getChronicallyAbsentCount(), report.getCallGini());
+            System.out.printf("Loaded in %d ms, report written to %s in %d ms%n",
+                    (loaded - start) / 1_000_000, out, (done - loaded) / 1_000_000);
+        } finally {
+            if (dataService != rootService) {
+                dataService.close();
+            }
+            rootService.close();
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ReportCommand --out FILE[.csv|.html] [--from DATE] [--to DATE] "
+                + "[--chronic-threshold R] [--min-calls N] [--data-dir DIR] [--section NAME]");
+        System.exit(2);
+    }
+}
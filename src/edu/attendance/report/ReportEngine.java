@@ -0,0 +1,222 @@
+package edu.attendance.report;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.util.AttendanceHistory;
+import edu.attendance.util.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes an attendance report in one parallel pass over a {@link RosterStore}.
+ * <p>
+ * The roster is split into fixed-size row ranges that run on the common fork-join pool.
+ * Each range reads the store's columns, formats its students' lines into one buffer and
+ * keeps its own running totals and a histogram of calls per student, so no per-student
+ * objects are created. The ranges are then merged in roster order. Fairness metrics that
+ * need sorted call counts, such as the Gini coefficient, are computed from the merged
+ * histogram. Weekly totals come from the {@link AttendanceHistory} bitmaps.
+ */
+public class ReportEngine {
+    private static final int CHUNK_ROWS = 16 * 1024;
+
+    private final double chronicThreshold;
+    private final int minCalls;
+
+    /**
+     * @param chronicThreshold Share of missed calls, absent or excused, from which a
+     *                         student is chronically absent (commonly 0.1)
+     * @param minCalls Calls a student needs before they can be flagged
+     */
+    public ReportEngine(double chronicThreshold, int minCalls) {
+        if (chronicThreshold <= 0 || chronicThreshold > 1) {
+            throw new IllegalArgumentException("Chronic absence threshold must be in (0, 1]");
+        }
+        this.chronicThreshold = chronicThreshold;
+        this.minCalls = Math.max(1, minCalls);
+    }
+
+    /**
+     * Computes the report and writes it.
+     * @param store The roster
+     * @param history Per-day marks for the weekly totals, or null to leave them empty
+     * @param from First day of the weekly totals
+     * @param to Last day of the weekly totals
+     * @param format Output format
+     * @param out Receives the report; not closed
+     * @return The roster-wide results
+     * @throws IOException If the report cannot be written
+     */
+    public AttendanceReport generate(RosterStore store, AttendanceHistory history, LocalDate from, LocalDate to,
+                                     ReportFormat format, Writer out) throws IOException {
+        long start = System.nanoTime();
+        int size = store.size();
+        int chunks = (size + CHUNK_ROWS - 1) / CHUNK_ROWS;
+
+        List<Chunk> results = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(c -> scan(store, c * CHUNK_ROWS, Math.min(size, (c + 1) * CHUNK_ROWS), format))
+                .collect(Collectors.toList());
+
+        Totals totals = new Totals();
+        for (Chunk chunk : results) {
+            totals.merge(chunk.totals);
+        }
+
+        AttendanceReport report = weekly(history, from, to, totals);
+        format.write(out, report, results.stream().map(chunk -> chunk.lines).collect(Collectors.toList()));
+        MetricsRegistry.getDefault().timer(MetricsRegistry.REPORT_GENERATE).stop(start);
+        return report;
+    }
+
+    private Chunk scan(RosterStore store, int fromRow, int toRow, ReportFormat format) {
+        Chunk chunk = new Chunk(new StringBuilder((toRow - fromRow) * 72));
+        Totals totals = chunk.totals;
+        for (int row = fromRow; row < toRow; row++) {
+            int called = store.getTimesCalled(row);
+            int present = store.getTimesPresent(row);
+            int absent = store.getTimesAbsent(row);
+            int excused = store.getTimesExcused(row);
+
+            double rate = called == 0 ? Double.NaN : (double) present / called;
+            double missed = called == 0 ? 0 : (double) (absent + excused) / called;
+            boolean chronic = called >= minCalls && missed >= chronicThreshold;
+
+            totals.add(called, present, absent, excused, chronic);
+            format.appendStudent(chunk.lines, store, row, rate, chronic);
+        }
+        return chunk;
+    }
+
+    private AttendanceReport weekly(AttendanceHistory history, LocalDate from, LocalDate to, Totals totals) {
+        LocalDate firstWeek = from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int weeks = to.isBefore(from) ? 0 : (int) ((to.toEpochDay() - firstWeek.toEpochDay()) / 7 + 1);
+        LocalDate[] weekStarts = new LocalDate[weeks];
+        for (int w = 0; w < weeks; w++) {
+            weekStarts[w] = firstWeek.plusWeeks(w);
+        }
+        int[] present = new int[weeks];
+        int[] absent = new int[weeks];
+        int[] excused = new int[weeks];
+        if (history != null && weeks > 0) {
+            int[][] daily = history.getDailyTotalsByStatus(from, to);
+            sumWeeks(daily[AttendanceStatus.PRESENT.ordinal()], from, firstWeek, present);
+            sumWeeks(daily[AttendanceStatus.ABSENT.ordinal()], from, firstWeek, absent);
+            sumWeeks(daily[AttendanceStatus.EXCUSED.ordinal()], from, firstWeek, excused);
+        }
+        return new AttendanceReport(from, to, chronicThreshold, minCalls, totals, weekStarts,
+                present, absent, excused);
+    }
+
+    private static void sumWeeks(int[] daily, LocalDate from, LocalDate firstWeek, int[] weekly) {
+        int lead = (int) (from.toEpochDay() - firstWeek.toEpochDay());
+        for (int day = 0; day < daily.length; day++) {
+            weekly[(day + lead) / 7] += daily[day];
+        }
+    }
+
+    private static final class Chunk {
+        final StringBuilder lines;
+        final Totals totals = new Totals();
+
+        Chunk(StringBuilder lines) {
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Running totals of one row range, merged into roster totals afterwards.
+     */
+    static final class Totals {
+        int students;
+        long called;
+        long calledSquares;
+        long present;
+        long absent;
+        long excused;
+        int chronic;
+        int neverCalled;
+        int minCalled = Integer.MAX_VALUE;
+        int maxCalled;
+        /** Students by number of times called. */
+        int[] callHistogram = new int[64];
+
+        void add(int timesCalled, int timesPresent, int timesAbsent, int timesExcused, boolean chronicAbsence) {
+            int calls = Math.max(0, timesCalled);
+            students++;
+            called += calls;
+            calledSquares += (long) calls * calls;
+            present += timesPresent;
+            absent += timesAbsent;
+            excused += timesExcused;
+            if (chronicAbsence) chronic++;
+            if (calls == 0) neverCalled++;
+            minCalled = Math.min(minCalled, calls);
+            maxCalled = Math.max(maxCalled, calls);
+            if (calls >= callHistogram.length) {
+                callHistogram = Arrays.copyOf(callHistogram, Math.max(calls + 1, callHistogram.length * 2));
+            }
+            callHistogram[calls]++;
+        }
+
+        void merge(Totals other) {
+            students += other.students;
+            called += other.called;
+            calledSquares += other.calledSquares;
+            present += other.present;
+            absent += other.absent;
+            excused += other.excused;
+            chronic += other.chronic;
+            neverCalled += other.neverCalled;
+            minCalled = Math.min(minCalled, other.minCalled);
+            maxCalled = Math.max(maxCalled, other.maxCalled);
+            if (other.callHistogram.length > callHistogram.length) {
+                callHistogram = Arrays.copyOf(callHistogram, other.callHistogram.length);
+            }
+            for (int calls = 0; calls < other.callHistogram.length; calls++) {
+                callHistogram[calls] += other.callHistogram[calls];
+            }
+        }
+
+        /**
+         * Gini coefficient over students sorted by calls. The students with {@code v} calls
+         * fill sorted positions p+1..p+c, which contribute v * c * (2p + c - n) to the sum
+         * of (2i - n - 1) * x_i.
+         */
+        double gini() {
+            if (called == 0) return 0;
+            double sum = 0;
+            long position = 0;
+            for (int calls = 0; calls < callHistogram.length; calls++) {
+                long count = callHistogram[calls];
+                if (count == 0) continue;
+                sum += (double) calls * count * (2 * position + count - students);
+                position += count;
+            }
+            return sum / ((double) students * called);
+        }
+
+        /**
+         * @return Share of calls received by the given fraction of most-called students
+         */
+        double topShare(double fraction) {
+            if (called == 0) return 0;
+            long remaining = (long) Math.ceil(students * fraction);
+            long calls = 0;
+            for (int value = callHistogram.length - 1; value >= 0 && remaining > 0; value--) {
+                long take = Math.min(remaining, callHistogram[value]);
+                calls += take * value;
+                remaining -= take;
+            }
+            return (double) calls / called;
+        }
+    }
+}
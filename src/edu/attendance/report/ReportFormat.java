@@ -0,0 +1,65 @@
+package edu.attendance.report;
+
+import edu.attendance.model.RosterStore;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Output format of a {@link ReportEngine} report.
+ */
+public interface ReportFormat {
+    /**
+     * Appends the line of one student. Called concurrently for different row ranges, each
+     * with its own builder, so implementations must not keep mutable state.
+     * @param out The builder of the student's row range
+     * @param store The roster
+     * @param row The student's row
+     * @param attendanceRate Share of calls answered present, or NaN if never called
+     * @param chronicAbsence Whether the student is chronically absent
+     */
+    void appendStudent(StringBuilder out, RosterStore store, int row, double attendanceRate, boolean chronicAbsence);
+
+    /**
+     * Writes the report once all students have been scanned.
+     * @param out Destination; not closed
+     * @param report The roster-wide results
+     * @param studentLines The output of {@link #appendStudent} per row range, in roster order
+     */
+    void write(Writer out, AttendanceReport report, List<? extends CharSequence> studentLines) throws IOException;
+
+    /**
+     * Appends an epoch day as an ISO date, as {@code LocalDate.toString()} would for years
+     * 1000 to 9999, without creating the date string.
+     */
+    static void appendDate(StringBuilder out, int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        out.append(date.getYear()).append(month < 10 ? "-0" : "-").append(month)
+           .append(day < 10 ? "-0" : "-").append(day);
+    }
+
+    /**
+     * Appends a non-negative number rounded to a fixed number of decimals, without the
+     * cost of {@code String.format} on a per-student path.
+     */
+    static void appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(value * scale);
+        out.append(scaled / scale);
+        if (decimals > 0) {
+            out.append('.');
+            String fraction = Long.toString(scaled % scale);
+            for (int i = fraction.length(); i < decimals; i++) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+    }
+}
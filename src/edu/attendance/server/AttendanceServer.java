@@ -0,0 +1,361 @@
+package edu.attendance.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.util.MetricsRegistry;
+import edu.attendance.util.SectionManager;
+import edu.attendance.util.StudentDataService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless attendance service for several clients at once, e.g. one tablet per teaching
+ * assistant in a large lecture.
+ * <p>
+ * Endpoints:
+ * <pre>
+ *   POST /mark?id=42&amp;status=PRESENT   mark a student PRESENT, ABSENT or EXCUSED
+ *   GET  /pick?k=3                      weighted pick of k distinct students
+ *   GET  /students/42                   a student's counters
+ *   GET  /metrics                       timings as plain text
+ *   GET  /health
+ * </pre>
+ * A mark is answered once its event log record is durable. Marks are applied in memory
+ * under per-student striped locks ({@link ConcurrentRoster}) and persisted by a
+ * {@link GroupCommitWriter}, so concurrent marks share log writes and syncs. The roster
+ * is saved on shutdown.
+ */
+public class AttendanceServer {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceServer.class.getName());
+
+    static final String MARK_TIMER = "server.mark";
+    static final String PICK_TIMER = "server.pick";
+    static final String QUERY_TIMER = "server.query";
+    private static final int MAX_PICK = 1000;
+
+    private final ConcurrentRoster roster;
+    private final GroupCommitWriter writer;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    /**
+     * @param roster The shared roster
+     * @param writer Persists applied marks
+     * @param address Address to listen on
+     * @param threads Request threads when virtual threads are unavailable
+     */
+    AttendanceServer(ConcurrentRoster roster, GroupCommitWriter writer, InetSocketAddress address,
+                     int threads) throws IOException {
+        this.roster = roster;
+        this.writer = writer;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = newRequestExecutor(threads);
+        server.setExecutor(executor);
+        server.createContext("/mark", timed(MARK_TIMER, this::handleMark));
+        server.createContext("/pick", timed(PICK_TIMER, this::handlePick));
+        server.createContext("/students/", timed(QUERY_TIMER, this::handleStudent));
+        server.createContext("/metrics", exchange -> send(exchange, 200, "text/plain", metrics.format()));
+        server.createContext("/health", exchange -> send(exchange, 200, "application/json",
+                "{\"status\":\"ok\",\"students\":" + roster.size() + "}"));
+    }
+
+    void start() {
+        server.start();
+        LOGGER.info("Attendance server listening on port " + server.getAddress().getPort()
+                + " with " + roster.size() + " students");
+    }
+
+    /**
+     * Stops accepting requests, letting requests in progress finish for up to a second.
+     */
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleMark(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "text/plain", "Use POST");
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange);
+        int row = findRow(query.get("id"));
+        if (row < 0) {
+            send(exchange, 404, "text/plain", "No such student");
+            return;
+        }
+        AttendanceStatus status = parseStatus(query.get("status"));
+        if (status == null) {
+            send(exchange, 400, "text/plain", "status must be PRESENT, ABSENT or EXCUSED");
+            return;
+        }
+
+        ConcurrentRoster.Counters after;
+        try {
+            after = roster.mark(row, status, writer).join();
+        } catch (CompletionException e) {
+            LOGGER.log(Level.WARNING, "Mark for student " + roster.getId(row) + " was not persisted",
+                    e.getCause());
+            send(exchange, 503, "text/plain", "Mark could not be saved");
+            return;
+        }
+        send(exchange, 200, "application/json", toJson(row, after));
+    }
+
+    private void handlePick(HttpExchange exchange) throws IOException {
+        String k = parseQuery(exchange).get("k");
+        int count;
+        try {
+            count = k == null ? 1 : Integer.parseInt(k);
+        } catch (NumberFormatException e) {
+            count = -1;
+        }
+        if (count < 1 || count > MAX_PICK) {
+            send(exchange, 400, "text/plain", "k must be between 1 and " + MAX_PICK);
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] rows = roster.pick(count, random::nextDouble);
+        StringBuilder json = new StringBuilder(rows.length * 32 + 2).append('[');
+        for (int i = 0; i < rows.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(roster.getId(rows[i])).append(",\"name\":");
+            appendString(json, roster.getName(rows[i]));
+            json.append('}');
+        }
+        send(exchange, 200, "application/json", json.append(']').toString());
+    }
+
+    private void handleStudent(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int row = findRow(path.substring("/students/".length()));
+        if (row < 0) {
+            send(exchange, 404, "text/plain", "No such student");
+            return;
+        }
+        send(exchange, 200, "application/json", toJson(row, roster.read(row)));
+    }
+
+    private int findRow(String id) {
+        if (id == null) return -1;
+        try {
+            return roster.rowOf(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static AttendanceStatus parseStatus(String value) {
+        if (value == null) return null;
+        switch (value.toUpperCase()) {
+            case "P":
+            case "PRESENT":
+                return AttendanceStatus.PRESENT;
+            case "A":
+            case "ABSENT":
+                return AttendanceStatus.ABSENT;
+            case "E":
+            case "EXCUSED":
+                return AttendanceStatus.EXCUSED;
+            default:
+                return null;
+        }
+    }
+
+    private String toJson(int row, ConcurrentRoster.Counters c) {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"id\":").append(c.id).append(",\"name\":");
+        appendString(json, roster.getName(row));
+        json.append(",\"timesCalled\":").append(c.timesCalled)
+            .append(",\"timesPresent\":").append(c.timesPresent)
+            .append(",\"timesAbsent\":").append(c.timesAbsent)
+            .append(",\"timesExcused\":").append(c.timesExcused)
+            .append(",\"lastCalledDate\":");
+        if (c.lastCalledDay == RosterStore.NO_DATE) {
+            json.append("null");
+        } else {
+            json.append('"').append(LocalDate.ofEpochDay(c.lastCalledDay)).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+        json.append('"');
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private HttpHandler timed(String timerName, HttpHandler handler) {
+        MetricsRegistry.Timer timer = metrics.timer(timerName);
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(exchange);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Request " + exchange.getRequestURI() + " failed", e);
+                send(exchange, 500, "text/plain", "Internal error");
+            } finally {
+                timer.stop(start);
+            }
+        };
+    }
+
+    /**
+     * Uses a virtual thread per request when the JDK has them (21+), since request threads
+     * spend most of their time waiting for a group commit. Falls back to a fixed pool of
+     * platform threads on older JDKs.
+     */
+    private static ExecutorService newRequestExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(r, "attendance-http-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            LOGGER.info("Virtual threads unavailable, serving requests on " + threads + " threads");
+            return Executors.newFixedThreadPool(threads, factory);
+        }
+    }
+
+    /**
+     * Starts the server.
+     * Options: {@code --port N} (default 8080, 0 for any free port), {@code --threads N}
+     * (default 256, used without virtual threads), {@code --batch N} (most marks per log
+     * sync, default 512), {@code --data-dir DIR} (folder containing {@code resources},
+     * default the working directory) and {@code --section NAME}.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = 256;
+        int batch = 512;
+        Path baseDir = Paths.get(System.getProperty("user.dir"));
+        String section = SectionManager.DEFAULT_SECTION;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(value);
+                    break;
+                case "--data-dir":
+                    baseDir = Paths.get(value);
+                    break;
+                case "--section":
+                    section = value;
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+
+        StudentDataService rootService = new StudentDataService(baseDir);
+        StudentDataService dataService = SectionManager.DEFAULT_SECTION.equals(section)
+                ? rootService : rootService.forSection(section);
+        ConcurrentRoster roster = new ConcurrentRoster(dataService.loadRosterStore(), Clock.systemDefaultZone());
+        GroupCommitWriter writer = new GroupCommitWriter(dataService, batch);
+        AttendanceServer server = new AttendanceServer(roster, writer, new InetSocketAddress(port), threads);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LOGGER.info("Shutting down attendance server");
+            server.stop();
+            writer.close();
+            try {
+                dataService.saveStudents(roster.asList());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to save roster; marks remain in the event log", e);
+            }
+            roster.close();
+            if (dataService != rootService) {
+                dataService.close();
+            }
+            rootService.close();
+        }, "attendance-server-shutdown"));
+
+        server.start();
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: AttendanceServer [--port N] [--threads N] [--batch N] "
+                + "[--data-dir DIR] [--section NAME]");
+        System.exit(2);
+    }
+}
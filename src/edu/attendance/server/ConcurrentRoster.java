@@ -0,0 +1,248 @@
+package edu.attendance.server;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.Student;
+import edu.attendance.util.SelectionWeightEngine;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A {@link RosterStore} shared by many request threads.
+ * <p>
+ * Counter updates are guarded by striped locks: a student's row maps to one of a fixed
+ * set of locks, so marks for different students rarely contend while the counters of one
+ * student always change together. The values after a mark are captured and handed to the
+ * event log under the same lock, which gives the log a consistent record, queued in the
+ * order the student's marks were applied, without locking the whole roster.
+ * Because each record holds absolute counters, a failed record taints every later record
+ * of the same student: when a write fails, the log also fails the student's records
+ * queued behind it and any submitted until the roster has undone the failed marks, so
+ * that no durable record counts a mark whose client was told it failed.
+ * Names, quotes and the id-to-row index never change after construction and are read
+ * without locking. Weighted picks go through a {@link SelectionWeightEngine}, whose short
+ * O(log n) critical section is the only roster-wide lock.
+ */
+public class ConcurrentRoster {
+    private static final int STRIPES = 64;
+
+    private final RosterStore store;
+    private final List<Student> views;
+    private final Map<Integer, Integer> rowById;
+    private final Object[] locks = new Object[STRIPES];
+    /** Marks of each row whose records are not yet durable or failed; guarded by the row's lock. */
+    private final int[] inFlight;
+    /** Counters to restore once a row's failed marks are undone, or null; guarded by the row's lock. */
+    private final Counters[] rollbackTo;
+    private final SelectionWeightEngine weights;
+    private final Clock clock;
+
+    /**
+     * @param store The roster; it must not be modified except through this class
+     * @param clock Source of the day recorded with each mark
+     */
+    public ConcurrentRoster(RosterStore store, Clock clock) {
+        this.store = store;
+        this.views = store.asList();
+        this.clock = clock;
+        this.rowById = new HashMap<>(store.size() * 2);
+        for (int row = 0; row < store.size(); row++) {
+            rowById.putIfAbsent(store.getId(row), row);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.inFlight = new int[store.size()];
+        this.rollbackTo = new Counters[store.size()];
+        this.weights = new SelectionWeightEngine(views, clock);
+        weights.startRolloverScheduler();
+    }
+
+    /**
+     * @return Number of students
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * @param id A student id
+     * @return The student's row, or -1 if there is no such student
+     */
+    public int rowOf(int id) {
+        Integer row = rowById.get(id);
+        return row != null ? row : -1;
+    }
+
+    public int getId(int row) {
+        return store.getId(row);
+    }
+
+    public String getName(int row) {
+        return store.getName(row);
+    }
+
+    public String getFavoriteQuote(int row) {
+        return store.getFavoriteQuote(row);
+    }
+
+    /**
+     * Records an attendance outcome and updates the student's selection weight.
+     * <p>
+     * The counters after the mark are submitted to {@code log} while the student's lock is
+     * still held, so records of the same student are queued in the order of their marks and
+     * replaying the log ends with the latest counters. If persisting fails, the mark is
+     * undone before the returned future completes.
+     * @param row The student's row
+     * @param status The outcome
+     * @param log Persists the record of the mark
+     * @return A future of the student's counters right after this mark, completed once the mark is durable
+     */
+    public CompletableFuture<Counters> mark(int row, AttendanceStatus status, MarkLog log) {
+        Counters before;
+        Counters after;
+        CompletableFuture<Void> persisted;
+        synchronized (lockFor(row)) {
+            before = capture(row);
+            store.mark(row, status, LocalDate.now(clock));
+            after = capture(row);
+            inFlight[row]++;
+            persisted = log.submit(status, after);
+        }
+        weights.update(row);
+        return persisted.handle((ignored, failure) -> {
+            settle(row, status, before, failure != null, log);
+            if (failure != null) {
+                throw failure instanceof CompletionException
+                        ? (CompletionException) failure : new CompletionException(failure);
+            }
+            return after;
+        });
+    }
+
+    /**
+     * Accounts for a mark whose record was written or failed. A failed mark's counts are
+     * subtracted at once. Its failure also failed every later mark of the student still in
+     * flight, so once none is left the counters are back to those before the earliest failed
+     * mark; its last-called day is restored and the log accepts the student's records again.
+     * @param failed True if the record was not written
+     */
+    private void settle(int row, AttendanceStatus status, Counters before, boolean failed, MarkLog log) {
+        boolean changed = failed;
+        synchronized (lockFor(row)) {
+            inFlight[row]--;
+            if (failed) {
+                store.restoreCounters(row, store.getTimesCalled(row) - 1,
+                        store.getTimesPresent(row) - (status == AttendanceStatus.PRESENT ? 1 : 0),
+                        store.getTimesAbsent(row) - (status == AttendanceStatus.ABSENT ? 1 : 0),
+                        store.getTimesExcused(row) - (status == AttendanceStatus.EXCUSED ? 1 : 0),
+                        store.getLastCalledDay(row));
+                if (rollbackTo[row] == null || before.timesCalled < rollbackTo[row].timesCalled) {
+                    rollbackTo[row] = before;
+                }
+            }
+            if (rollbackTo[row] != null && inFlight[row] == 0) {
+                Counters target = rollbackTo[row];
+                rollbackTo[row] = null;
+                store.restoreCounters(row, target.timesCalled, target.timesPresent, target.timesAbsent,
+                        target.timesExcused, target.lastCalledDay);
+                log.rolledBack(target.id);
+                changed = true;
+            }
+        }
+        if (changed) {
+            weights.update(row);
+        }
+    }
+
+    /**
+     * @param row The student's row
+     * @return A consistent copy of the student's counters
+     */
+    public Counters read(int row) {
+        synchronized (lockFor(row)) {
+            return capture(row);
+        }
+    }
+
+    /**
+     * Picks distinct rows, each weighted by selection probability.
+     * @param k Number of students to pick
+     * @param uniform Source of uniform random numbers in [0, 1)
+     * @return The picked rows in draw order
+     */
+    public int[] pick(int k, DoubleSupplier uniform) {
+        return weights.sampleWithoutReplacement(k, uniform);
+    }
+
+    /**
+     * @return Row views for saving the roster. Counters read through them are not locked;
+     *         a save that races with marks is completed by the event log on the next load.
+     */
+    public List<Student> asList() {
+        return views;
+    }
+
+    /**
+     * Stops the selection weight rollover job.
+     */
+    public void close() {
+        weights.close();
+    }
+
+    private Object lockFor(int row) {
+        return locks[row & (STRIPES - 1)];
+    }
+
+    private Counters capture(int row) {
+        return new Counters(store.getId(row), store.getTimesCalled(row), store.getTimesPresent(row),
+                store.getTimesAbsent(row), store.getTimesExcused(row), store.getLastCalledDay(row));
+    }
+
+    /**
+     * Where {@link #mark} sends the records of applied marks.
+     */
+    public interface MarkLog {
+        /**
+         * Queues the record of an applied mark.
+         * @return A future completed once the record is durable
+         */
+        CompletableFuture<Void> submit(AttendanceStatus status, Counters after);
+
+        /**
+         * Called once every failed mark of a student has been undone; records of the
+         * student submitted from now on hold counters without those marks.
+         * @param id The student id
+         */
+        void rolledBack(int id);
+    }
+
+    /**
+     * Immutable copy of a student's counters.
+     */
+    public static final class Counters {
+        public final int id;
+        public final int timesCalled;
+        public final int timesPresent;
+        public final int timesAbsent;
+        public final int timesExcused;
+        /** Epoch day of the last call, or {@link RosterStore#NO_DATE}. */
+        public final int lastCalledDay;
+
+        Counters(int id, int timesCalled, int timesPresent, int timesAbsent, int timesExcused, int lastCalledDay) {
+            this.id = id;
+            this.timesCalled = timesCalled;
+            this.timesPresent = timesPresent;
+            this.timesAbsent = timesAbsent;
+            this.timesExcused = timesExcused;
+            this.lastCalledDay = lastCalledDay;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package edu.attendance.server;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.util.AttendanceEventLog;
+import edu.attendance.util.MetricsRegistry;
+import edu.attendance.util.StudentDataService;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists attendance marks with group commit.
+ * <p>
+ * Request threads hand in the records of marks they have applied and wait on a future.
+ * A single writer thread takes whatever has queued up since its last write, appends it
+ * to the event log in one write and forces it with one sync, then completes all of the
+ * futures. Under load many marks share one sync, so throughput grows with concurrency
+ * while every acknowledged mark is still durable.
+ * <p>
+ * If a write fails, the records queued behind it for the same students fail with it, and
+ * so do records submitted for them until the roster reports them rolled back: their
+ * absolute counters include the failed marks.
+ */
+class GroupCommitWriter implements Closeable, ConcurrentRoster.MarkLog {
+    private static final Logger LOGGER = Logger.getLogger(GroupCommitWriter.class.getName());
+    static final String COMMIT_TIMER = "server.commit";
+    static final String COMMIT_RECORDS = "server.commit.records";
+
+    private final StudentDataService dataService;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Object submitLock = new Object();
+    /** Students whose failed marks are not yet rolled back; guarded by submitLock. */
+    private final Set<Integer> failedIds = new HashSet<>();
+    private final Thread thread;
+    private boolean closed;
+
+    /**
+     * @param dataService Service whose event log receives the records
+     * @param maxBatch Maximum number of records written with one sync
+     */
+    GroupCommitWriter(StudentDataService dataService, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.dataService = dataService;
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "attendance-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the record of an applied mark.
+     * @return A future completed once the record is durable in the event log
+     */
+    @Override
+    public CompletableFuture<Void> submit(AttendanceStatus status, ConcurrentRoster.Counters after) {
+        Pending pending = new Pending(status, after);
+        synchronized (submitLock) {
+            if (closed) {
+                pending.done.completeExceptionally(new IllegalStateException("Writer is closed"));
+            } else if (failedIds.contains(after.id)) {
+                pending.done.completeExceptionally(new IllegalStateException(
+                        "An earlier mark of student " + after.id + " failed and is not yet rolled back"));
+            } else {
+                queue.add(pending);
+            }
+        }
+        return pending.done;
+    }
+
+    @Override
+    public void rolledBack(int id) {
+        synchronized (submitLock) {
+            failedIds.remove(id);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        ByteBuffer buffer = ByteBuffer.allocate(maxBatch * AttendanceEventLog.RECORD_SIZE);
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                synchronized (submitLock) {
+                    if (closed && queue.isEmpty()) return;
+                }
+                continue;
+            }
+
+            batch.clear();
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+
+            buffer.clear();
+            for (Pending pending : batch) {
+                ConcurrentRoster.Counters c = pending.after;
+                AttendanceEventLog.encode(buffer, c.id, pending.status, c.lastCalledDay, c.timesCalled,
+                        c.timesPresent, c.timesAbsent, c.timesExcused, c.lastCalledDay);
+            }
+            buffer.flip();
+
+            long start = System.nanoTime();
+            try {
+                dataService.appendAttendanceRecords(buffer);
+                metrics.timer(COMMIT_TIMER).stop(start);
+                metrics.counter(COMMIT_RECORDS).add(batch.size());
+                for (Pending pending : batch) {
+                    pending.done.complete(null);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Group commit of " + batch.size() + " marks failed", e);
+                failWithQueuedRecords(batch, e);
+            }
+        }
+    }
+
+    /**
+     * Fails a batch together with the queued records of its students. The futures are
+     * completed outside the lock, as completing them runs the roster's rollback.
+     */
+    private void failWithQueuedRecords(List<Pending> batch, RuntimeException error) {
+        synchronized (submitLock) {
+            for (Pending pending : batch) {
+                failedIds.add(pending.after.id);
+            }
+            Iterator<Pending> queued = queue.iterator();
+            while (queued.hasNext()) {
+                Pending pending = queued.next();
+                if (failedIds.contains(pending.after.id)) {
+                    queued.remove();
+                    batch.add(pending);
+                }
+            }
+        }
+        for (Pending pending : batch) {
+            pending.done.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Stops accepting marks, writes everything already queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            closed = true;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Pending {
+        final AttendanceStatus status;
+        final ConcurrentRoster.Counters after;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(AttendanceStatus status, ConcurrentRoster.Counters after) {
+            this.status = status;
+            this.after = after;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package edu.attendance.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local load generator for {@link AttendanceServer}.
+ * <p>
+ * Runs many concurrent clients, each sending its next request as soon as the previous one
+ * is answered, and reports throughput and latency percentiles per operation. Student ids
+ * are discovered with one large pick before the run. Latencies measured during the
+ * warm-up are discarded.
+ * <p>
+ * Options: {@code --url URL} (default http://localhost:8080), {@code --clients N}
+ * (default 200), {@code --seconds N} (default 20), {@code --warmup N} (seconds, default 5)
+ * and {@code --mark-ratio R} (share of marks, the rest split between picks and queries;
+ * default 0.6).
+ */
+public class LoadTestClient {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final String[] STATUSES = {"PRESENT", "ABSENT", "EXCUSED"};
+    private static final String[] OPERATIONS = {"mark", "pick", "query"};
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int clients = 200;
+        int seconds = 20;
+        int warmup = 5;
+        double markRatio = 0.6;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url":
+                    url = value;
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--mark-ratio":
+                    markRatio = Double.parseDouble(value);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        int[] ids = discoverIds(http, url);
+        System.out.printf("Target %s, %d students sampled, %d clients, %ds run after %ds warm-up%n",
+                url, ids.length, clients, seconds, warmup);
+
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + TimeUnit.SECONDS.toNanos(warmup);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Worker> workers = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            Worker worker = new Worker(http, url, ids, markRatio, measureFrom, deadline, done);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        report(workers, (deadline - measureFrom) / 1e9);
+    }
+
+    private static int[] discoverIds(HttpClient http, String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(url + "/pick?k=1000")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Pick failed with status " + response.statusCode() + ": " + response.body());
+        }
+        Matcher matcher = ID.matcher(response.body());
+        int[] ids = new int[1000];
+        int count = 0;
+        while (matcher.find()) {
+            ids[count++] = Integer.parseInt(matcher.group(1));
+        }
+        if (count == 0) {
+            throw new IOException("Server roster is empty");
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static void report(List<Worker> workers, double seconds) {
+        long totalRequests = 0;
+        long totalErrors = 0;
+        System.out.printf("%n%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            int total = 0;
+            long errors = 0;
+            for (Worker worker : workers) {
+                total += worker.latencies[op].size;
+                errors += worker.errors[op];
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Worker worker : workers) {
+                LongList list = worker.latencies[op];
+                System.arraycopy(list.values, 0, merged, offset, list.size);
+                offset += list.size;
+            }
+            Arrays.sort(merged);
+            printRow(OPERATIONS[op], merged, errors, seconds);
+            totalRequests += total;
+            totalErrors += errors;
+        }
+        System.out.printf("%-8s %10d %8d %10.0f%n", "total", totalRequests, totalErrors, totalRequests / seconds);
+    }
+
+    private static void printRow(String op, long[] sorted, long errors, double seconds) {
+        if (sorted.length == 0) {
+            System.out.printf("%-8s %10d %8d%n", op, 0, errors);
+            return;
+        }
+        System.out.printf("%-8s %10d %8d %10.0f %9.2f %9.2f %9.2f %9.2f%n", op, sorted.length, errors,
+                sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * One client: a closed loop of requests. Latencies are kept per thread so recording
+     * them needs no synchronization.
+     */
+    private static final class Worker implements Runnable {
+        final LongList[] latencies = {new LongList(), new LongList(), new LongList()};
+        final long[] errors = new long[OPERATIONS.length];
+        private final HttpClient http;
+        private final String url;
+        private final int[] ids;
+        private final double markRatio;
+        private final long measureFrom;
+        private final long deadline;
+        private final CountDownLatch done;
+
+        Worker(HttpClient http, String url, int[] ids, double markRatio, long measureFrom, long deadline,
+               CountDownLatch done) {
+            this.http = http;
+            this.url = url;
+            this.ids = ids;
+            this.markRatio = markRatio;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    double r = random.nextDouble();
+                    int op = r < markRatio ? 0 : r < markRatio + (1 - markRatio) / 2 ? 1 : 2;
+                    int id = ids[random.nextInt(ids.length)];
+                    HttpRequest request;
+                    if (op == 0) {
+                        String status = STATUSES[random.nextInt(STATUSES.length)];
+                        request = HttpRequest.newBuilder(URI.create(url + "/mark?id=" + id + "&status=" + status))
+                                .POST(HttpRequest.BodyPublishers.noBody()).build();
+                    } else if (op == 1) {
+                        request = HttpRequest.newBuilder(URI.create(url + "/pick?k=1")).GET().build();
+                    } else {
+                        request = HttpRequest.newBuilder(URI.create(url + "/students/" + id)).GET().build();
+                    }
+
+                    boolean ok;
+                    try {
+                        ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (IOException e) {
+                        ok = false;
+                    }
+                    long end = System.nanoTime();
+                    if (now >= measureFrom) {
+                        if (ok) {
+                            latencies[op].add(end - now);
+                        } else {
+                            errors[op]++;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private static final class LongList {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package edu.attendance.simulation;
+
+import edu.attendance.util.WeightedSampler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates many terms of random calls in a class to see how evenly a
+ * {@link SelectionPolicy} spreads them.
+ * <p>
+ * A term is a number of class sessions a fixed number of days apart. In each session the
+ * instructor makes a few random picks, one at a time like the "Random Selection" button,
+ * and marks each picked student present or absent. Each student has their own chance of
+ * being absent, drawn at the start of the term: most rarely miss class, a share are
+ * chronically absent. Weights are kept in a {@link WeightedSampler} as in the application,
+ * and are recomputed from the policy at the start of each session and after each mark.
+ * <p>
+ * Terms run in fixed-size blocks on a fork-join pool. Each block has its own
+ * {@link SplittableRandom}, split in block order from the seed, and the blocks' tallies
+ * are merged in block order, so a seed gives the same results on any number of threads.
+ */
+public class FairnessSimulator {
+    private static final int BLOCK_TERMS = 256;
+    private static final double CHRONIC_ABSENCE_RATE = 0.35;
+
+    private final int students;
+    private final int sessions;
+    private final int picksPerSession;
+    private final int daysBetweenSessions;
+    private final double absenceRate;
+    private final double chronicShare;
+
+    /**
+     * @param students Students in the class
+     * @param sessions Class sessions per term
+     * @param picksPerSession Random picks per session
+     * @param daysBetweenSessions Days from one session to the next
+     * @param absenceRate Chance that a student who is not chronically absent misses class
+     * @param chronicShare Share of students who miss class at the chronic rate, 35%
+     */
+    public FairnessSimulator(int students, int sessions, int picksPerSession, int daysBetweenSessions,
+                             double absenceRate, double chronicShare) {
+        if (students <= 0 || sessions <= 0 || picksPerSession <= 0 || daysBetweenSessions <= 0) {
+            throw new IllegalArgumentException("Students, sessions, picks and days between sessions must be positive");
+        }
+        if (absenceRate < 0 || absenceRate > 1 || chronicShare < 0 || chronicShare > 1) {
+            throw new IllegalArgumentException("Absence rate and chronic share must be in [0, 1]");
+        }
+        this.students = students;
+        this.sessions = sessions;
+        this.picksPerSession = picksPerSession;
+        this.daysBetweenSessions = daysBetweenSessions;
+        this.absenceRate = absenceRate;
+        this.chronicShare = chronicShare;
+    }
+
+    /**
+     * Runs the simulation.
+     * @param policy Weighting to simulate
+     * @param seed Seed; the same seed gives the same result
+     * @param terms Number of terms to simulate
+     * @param pool Pool the blocks of terms run on
+     * @return Merged tallies of all terms
+     */
+    public SimulationResult run(SelectionPolicy policy, long seed, int terms, ForkJoinPool pool) {
+        int blocks = (terms + BLOCK_TERMS - 1) / BLOCK_TERMS;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            randoms[b] = root.split();
+        }
+
+        long start = System.nanoTime();
+        List<Tally> tallies;
+        try {
+            tallies = pool.submit(() -> IntStream.range(0, blocks)
+                    .parallel()
+                    .mapToObj(b -> runBlock(policy, randoms[b], Math.min(BLOCK_TERMS, terms - b * BLOCK_TERMS)))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Tally total = new Tally();
+        for (Tally tally : tallies) {
+            total.merge(tally);
+        }
+        return new SimulationResult(students, sessions, picksPerSession, daysBetweenSessions, terms, seed,
+                total, elapsed, pool.getParallelism());
+    }
+
+    /**
+     * Runs terms one after another, reusing the per-student arrays.
+     */
+    private Tally runBlock(SelectionPolicy policy, SplittableRandom random, int terms) {
+        Tally tally = new Tally();
+        int[] called = new int[students];
+        int[] absent = new int[students];
+        long[] lastCalledDay = new long[students];
+        double[] absenceChance = new double[students];
+        boolean[] chronic = new boolean[students];
+        int[] sorted = new int[students];
+        WeightedSampler sampler = new WeightedSampler(new double[students]);
+
+        for (int term = 0; term < terms; term++) {
+            for (int s = 0; s < students; s++) {
+                called[s] = 0;
+                absent[s] = 0;
+                lastCalledDay[s] = Long.MIN_VALUE;
+                chronic[s] = random.nextDouble() < chronicShare;
+                absenceChance[s] = chronic[s] ? CHRONIC_ABSENCE_RATE : absenceRate;
+            }
+
+            for (int session = 0; session < sessions; session++) {
+                long day = (long) session * daysBetweenSessions;
+                for (int s = 0; s < students; s++) {
+                    sampler.setWeight(s, weight(policy, called[s], absent[s], lastCalledDay[s], day));
+                }
+                for (int pick = 0; pick < picksPerSession; pick++) {
+                    int s = sampler.sample(random.nextDouble());
+                    called[s]++;
+                    if (random.nextDouble() < absenceChance[s]) absent[s]++;
+                    lastCalledDay[s] = day;
+                    sampler.setWeight(s, weight(policy, called[s], absent[s], day, day));
+                }
+            }
+
+            System.arraycopy(called, 0, sorted, 0, students);
+            Arrays.sort(sorted);
+            tally.addTerm(sorted, called, chronic, sessions, picksPerSession);
+        }
+        return tally;
+    }
+
+    private static double weight(SelectionPolicy policy, int called, int absent, long lastCalledDay, long today) {
+        long daysSinceLastCall = lastCalledDay == Long.MIN_VALUE ? Long.MAX_VALUE : today - lastCalledDay;
+        return policy.weight(called, absent, daysSinceLastCall);
+    }
+
+    /**
+     * Running totals of a block of terms, merged into the result afterwards.
+     */
+    static final class Tally {
+        long terms;
+        long sessions;
+        long picks;
+        long students;
+        long calls;
+        long callSquares;
+        long neverCalled;
+        long chronicStudents;
+        long chronicCalls;
+        long minCallsSum;
+        long maxCallsSum;
+        double giniSum;
+        double giniSquares;
+        /** Students by number of calls in a term. */
+        long[] callHistogram = new long[32];
+
+        /**
+         * @param sorted The term's calls per student, ascending
+         * @param called The term's calls per student, by student
+         */
+        void addTerm(int[] sorted, int[] called, boolean[] chronic, int termSessions, int picksPerSession) {
+            int n = sorted.length;
+            terms++;
+            sessions += termSessions;
+            picks += (long) termSessions * picksPerSession;
+            students += n;
+            minCallsSum += sorted[0];
+            maxCallsSum += sorted[n - 1];
+
+            long termCalls = 0;
+            double weightedSum = 0;
+            for (int i = 0; i < n; i++) {
+                int c = sorted[i];
+                termCalls += c;
+                callSquares += (long) c * c;
+                weightedSum += (2.0 * (i + 1) - n - 1) * c;
+                if (c == 0) neverCalled++;
+                if (c >= callHistogram.length) {
+                    callHistogram = Arrays.copyOf(callHistogram, Math.max(c + 1, callHistogram.length * 2));
+                }
+                callHistogram[c]++;
+            }
+            calls += termCalls;
+            double gini = termCalls == 0 ? 0 : weightedSum / ((double) n * termCalls);
+            giniSum += gini;
+            giniSquares += gini * gini;
+
+            for (int s = 0; s < n; s++) {
+                if (chronic[s]) {
+                    chronicStudents++;
+                    chronicCalls += called[s];
+                }
+            }
+        }
+
+        void merge(Tally other) {
+            terms += other.terms;
+            sessions += other.sessions;
+            picks += other.picks;
+            students += other.students;
+            calls += other.calls;
+            callSquares += other.callSquares;
+            neverCalled += other.neverCalled;
+            chronicStudents += other.chronicStudents;
+            chronicCalls += other.chronicCalls;
+            minCallsSum += other.minCallsSum;
+            maxCallsSum += other.maxCallsSum;
+            giniSum += other.giniSum;
+            giniSquares += other.giniSquares;
+            if (other.callHistogram.length > callHistogram.length) {
+                callHistogram = Arrays.copyOf(callHistogram, other.callHistogram.length);
+            }
+            for (int c = 0; c < other.callHistogram.length; c++) {
+                callHistogram[c] += other.callHistogram[c];
+            }
+        }
+    }
+}
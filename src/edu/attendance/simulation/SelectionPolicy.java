@@ -0,0 +1,62 @@
+package edu.attendance.simulation;
+
+import edu.attendance.model.Student;
+
+/**
+ * Weighting of students for a random pick, as simulated by {@link FairnessSimulator}.
+ * <p>
+ * A policy sees the same counters as {@link Student#selectionWeight}, so a tweak to the
+ * application's formula can be tried here first. Besides the built-in policies below,
+ * {@link #forName} accepts the class name of any implementation with a public no-argument
+ * constructor.
+ */
+@FunctionalInterface
+public interface SelectionPolicy {
+    /** The application's weighting, {@link Student#selectionWeight}. */
+    SelectionPolicy CURRENT = Student::selectionWeight;
+    /** Every student equally likely. */
+    SelectionPolicy UNIFORM = (timesCalled, timesAbsent, daysSinceLastCall) -> 1.0;
+    /** The application's weighting without the boost for absences. */
+    SelectionPolicy NO_ABSENCE_BOOST = (timesCalled, timesAbsent, daysSinceLastCall) ->
+            Student.selectionWeight(timesCalled, 0, daysSinceLastCall);
+    /** The application's weighting without the damping of recently called students. */
+    SelectionPolicy NO_RECENCY = (timesCalled, timesAbsent, daysSinceLastCall) ->
+            Student.selectionWeight(timesCalled, timesAbsent, Long.MAX_VALUE);
+    /** Weight 1 / (1 + calls)^2, which strongly favours the least called. */
+    SelectionPolicy INVERSE_SQUARE = (timesCalled, timesAbsent, daysSinceLastCall) ->
+            1.0 / ((1.0 + timesCalled) * (1.0 + timesCalled));
+
+    /**
+     * @param timesCalled Times the student was called so far
+     * @param timesAbsent Times the student was absent when called
+     * @param daysSinceLastCall Days since the last call, {@link Long#MAX_VALUE} if never called
+     * @return Relative weight, at least 0
+     */
+    double weight(int timesCalled, int timesAbsent, long daysSinceLastCall);
+
+    /**
+     * Resolves a policy by name: {@code current}, {@code uniform}, {@code no-absence-boost},
+     * {@code no-recency}, {@code inverse-square}, or a fully qualified class name.
+     * @throws IllegalArgumentException If the name is neither
+     */
+    static SelectionPolicy forName(String name) {
+        switch (name) {
+            case "current":
+                return CURRENT;
+            case "uniform":
+                return UNIFORM;
+            case "no-absence-boost":
+                return NO_ABSENCE_BOOST;
+            case "no-recency":
+                return NO_RECENCY;
+            case "inverse-square":
+                return INVERSE_SQUARE;
+            default:
+                try {
+                    return Class.forName(name).asSubclass(SelectionPolicy.class).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown selection policy: " + name, e);
+                }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package edu.attendance.simulation;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless fairness simulation of a selection policy.
+ * <p>
+ * Options: {@code --policy NAME} (see {@link SelectionPolicy#forName}, default
+ * {@code current}), {@code --terms N} (default 100000), {@code --students N} (default 30),
+ * {@code --sessions N} per term (default 40), {@code --picks N} per session (default 5),
+ * {@code --days-between N} (default 2), {@code --absence-rate R} (default 0.05),
+ * {@code --chronic-share R} (default 0.1), {@code --seed N} (default 42), {@code --threads N}
+ * (default the number of processors) and {@code --histogram FILE} to also write the call
+ * histogram as CSV. Everything but the throughput line is the same for the same options.
+ */
+public class SimulationCommand {
+    private static final int HISTOGRAM_BAR_WIDTH = 50;
+
+    public static void main(String[] args) throws IOException {
+        String policyName = "current";
+        int terms = 100_000;
+        int students = 30;
+        int sessions = 40;
+        int picks = 5;
+        int daysBetween = 2;
+        double absenceRate = 0.05;
+        double chronicShare = 0.1;
+        long seed = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path histogram = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--policy":
+                    policyName = value;
+                    break;
+                case "--terms":
+                    terms = Integer.parseInt(value);
+                    break;
+                case "--students":
+                    students = Integer.parseInt(value);
+                    break;
+                case "--sessions":
+                    sessions = Integer.parseInt(value);
+                    break;
+                case "--picks":
+                    picks = Integer.parseInt(value);
+                    break;
+                case "--days-between":
+                    daysBetween = Integer.parseInt(value);
+                    break;
+                case "--absence-rate":
+                    absenceRate = Double.parseDouble(value);
+                    break;
+                case "--chronic-share":
+                    chronicShare = Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--histogram":
+                    histogram = Paths.get(value);
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+
+        SelectionPolicy policy = null;
+        FairnessSimulator simulator = null;
+        try {
+            policy = SelectionPolicy.forName(policyName);
+            simulator = new FairnessSimulator(students, sessions, picks, daysBetween, absenceRate, chronicShare);
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+        }
+        if (terms <= 0 || threads <= 0) {
+            usage("Terms and threads must be positive");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        SimulationResult result;
+        try {
+            result = simulator.run(policy, seed, terms, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        print(result, policyName);
+        if (histogram != null) {
+            try (Writer writer = Files.newBufferedWriter(histogram)) {
+                writeHistogram(writer, result);
+            }
+            System.out.println("Histogram written to " + histogram);
+        }
+    }
+
+    private static void print(SimulationResult result, String policyName) {
+        System.out.printf("Policy %s, seed %d: %d terms of %d sessions, %d picks each, %d students, "
+                        + "a session every %d days%n",
+                policyName, result.getSeed(), result.getTerms(), result.getSessions(), result.getPicksPerSession(),
+                result.getStudents(), result.getDaysBetweenSessions());
+        System.out.printf("Calls per student: mean %.2f, sd %.2f, least called %.2f and most called %.2f on average%n",
+                result.getMeanCalls(), result.getStdDevCalls(), result.getMeanMinCalls(), result.getMeanMaxCalls());
+        System.out.printf("Gini: %.4f per term (sd %.4f), %.4f pooled%n",
+                result.getMeanGini(), result.getStdDevGini(), result.getPooledGini());
+        System.out.printf("Never called in a term: %.3f%% of students%n", result.getNeverCalledShare() * 100);
+        System.out.printf("Mean calls: %.2f for chronically absent students, %.2f for the others%n",
+                result.getMeanCallsChronic(), result.getMeanCallsOthers());
+
+        long[] counts = result.getCallHistogram();
+        long max = 1;
+        long total = 0;
+        for (long count : counts) {
+            max = Math.max(max, count);
+            total += count;
+        }
+        System.out.println("Calls  Students   Share");
+        for (int calls = 0; calls < counts.length; calls++) {
+            int bar = (int) (counts[calls] * HISTOGRAM_BAR_WIDTH / max);
+            System.out.printf("%5d %9d %6.2f%% %s%n", calls, counts[calls],
+                    total == 0 ? 0 : counts[calls] * 100.0 / total, repeat('#', bar));
+        }
+
+        System.out.printf("Simulated %d sessions and %d picks in %.2f s on %d threads: "
+                        + "%.0f sessions/s, %.0f picks/s%n",
+                result.getTotalSessions(), result.getTotalPicks(), result.getElapsedNanos() / 1e9,
+                result.getThreads(), result.getSessionsPerSecond(), result.getPicksPerSecond());
+    }
+
+    private static void writeHistogram(Writer writer, SimulationResult result) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("calls,students");
+        long[] counts = result.getCallHistogram();
+        for (int calls = 0; calls < counts.length; calls++) {
+            out.println(calls + "," + counts[calls]);
+        }
+        out.flush();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: SimulationCommand [--policy current|uniform|no-absence-boost|no-recency|"
+                + "inverse-square|CLASS] [--terms N] [--students N] [--sessions N] [--picks N] [--days-between N] "
+                + "[--absence-rate R] [--chronic-share R] [--seed N] [--threads N] [--histogram FILE]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,179 @@
+package edu.attendance.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Results of a {@link FairnessSimulator} run: how calls were spread over the students of
+ * each simulated term, and how fast the terms ran.
+ */
+public class SimulationResult {
+    private final int students;
+    private final int sessions;
+    private final int picksPerSession;
+    private final int daysBetweenSessions;
+    private final int terms;
+    private final long seed;
+    private final FairnessSimulator.Tally tally;
+    private final long elapsedNanos;
+    private final int threads;
+
+    SimulationResult(int students, int sessions, int picksPerSession, int daysBetweenSessions, int terms, long seed,
+                     FairnessSimulator.Tally tally, long elapsedNanos, int threads) {
+        this.students = students;
+        this.sessions = sessions;
+        this.picksPerSession = picksPerSession;
+        this.daysBetweenSessions = daysBetweenSessions;
+        this.terms = terms;
+        this.seed = seed;
+        this.tally = tally;
+        this.elapsedNanos = elapsedNanos;
+        this.threads = threads;
+    }
+
+    public int getStudents() {
+        return students;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public int getPicksPerSession() {
+        return picksPerSession;
+    }
+
+    public int getDaysBetweenSessions() {
+        return daysBetweenSessions;
+    }
+
+    public int getTerms() {
+        return terms;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Mean calls per student in a term
+     */
+    public double getMeanCalls() {
+        return tally.students == 0 ? 0 : (double) tally.calls / tally.students;
+    }
+
+    /**
+     * @return Standard deviation of calls per student, over all students of all terms
+     */
+    public double getStdDevCalls() {
+        if (tally.students == 0) return 0;
+        double mean = getMeanCalls();
+        return Math.sqrt(Math.max(0, (double) tally.callSquares / tally.students - mean * mean));
+    }
+
+    /**
+     * @return Calls of a term's least called student, averaged over terms
+     */
+    public double getMeanMinCalls() {
+        return tally.terms == 0 ? 0 : (double) tally.minCallsSum / tally.terms;
+    }
+
+    /**
+     * @return Calls of a term's most called student, averaged over terms
+     */
+    public double getMeanMaxCalls() {
+        return tally.terms == 0 ? 0 : (double) tally.maxCallsSum / tally.terms;
+    }
+
+    /**
+     * @return Gini coefficient of calls per student within a term, averaged over terms;
+     *         0 means every student of a class was called equally often
+     */
+    public double getMeanGini() {
+        return tally.terms == 0 ? 0 : tally.giniSum / tally.terms;
+    }
+
+    /**
+     * @return Standard deviation of the per-term Gini coefficient
+     */
+    public double getStdDevGini() {
+        if (tally.terms == 0) return 0;
+        double mean = getMeanGini();
+        return Math.sqrt(Math.max(0, tally.giniSquares / tally.terms - mean * mean));
+    }
+
+    /**
+     * Gini coefficient over all students of all terms pooled, from the call histogram.
+     * The students with {@code v} calls fill sorted positions p+1..p+c, which contribute
+     * v * c * (2p + c - n) to the sum of (2i - n - 1) * x_i.
+     */
+    public double getPooledGini() {
+        if (tally.calls == 0) return 0;
+        double sum = 0;
+        long position = 0;
+        for (int calls = 0; calls < tally.callHistogram.length; calls++) {
+            long count = tally.callHistogram[calls];
+            if (count == 0) continue;
+            sum += (double) calls * count * (2 * position + count - tally.students);
+            position += count;
+        }
+        return sum / ((double) tally.students * tally.calls);
+    }
+
+    /**
+     * @return Share of students never called during their term
+     */
+    public double getNeverCalledShare() {
+        return tally.students == 0 ? 0 : (double) tally.neverCalled / tally.students;
+    }
+
+    /**
+     * @return Mean calls per term of chronically absent students, or NaN if there were none
+     */
+    public double getMeanCallsChronic() {
+        return tally.chronicStudents == 0 ? Double.NaN : (double) tally.chronicCalls / tally.chronicStudents;
+    }
+
+    /**
+     * @return Mean calls per term of the other students, or NaN if there were none
+     */
+    public double getMeanCallsOthers() {
+        long others = tally.students - tally.chronicStudents;
+        return others == 0 ? Double.NaN : (double) (tally.calls - tally.chronicCalls) / others;
+    }
+
+    /**
+     * @return Students by number of calls in their term, over all terms
+     */
+    public long[] getCallHistogram() {
+        int length = tally.callHistogram.length;
+        while (length > 1 && tally.callHistogram[length - 1] == 0) length--;
+        return Arrays.copyOf(tally.callHistogram, length);
+    }
+
+    public long getTotalSessions() {
+        return tally.sessions;
+    }
+
+    public long getTotalPicks() {
+        return tally.picks;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return Parallelism of the pool the terms ran on
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public double getSessionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : tally.sessions * 1e9 / elapsedNanos;
+    }
+
+    public double getPicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : tally.picks * 1e9 / elapsedNanos;
+    }
+}
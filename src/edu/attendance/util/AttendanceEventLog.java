@@ -0,0 +1,274 @@
+package edu.attendance.util;
+
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of attendance marks, written ahead of the roster snapshot.
+ * <p>
+ * Each record is fixed-width: the student id, the status code and the day of the mark,
+ * followed by the student's counters and last-called day after the mark. Because the
+ * resulting values are stored rather than increments, replaying a record is idempotent,
+ * which lets the log be compacted into a new snapshot without coordinating both files
+ * atomically: if a crash leaves already-snapshotted records behind, replaying them
+ * simply restores values that the later records or the snapshot already agree with.
+ */
+public class AttendanceEventLog implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceEventLog.class.getName());
+    private static final int MAGIC = 0x41544C47; // "ATLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /** Size of one record in bytes. */
+    public static final int RECORD_SIZE = 4 + 1 + 4 * 6;
+
+    private final Path path;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+
+    private AttendanceEventLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a log for appending, creating it if necessary. A partially written record
+     * left by a crash is cut off.
+     * @param path The log file
+     * @return The open log
+     * @throws IOException If the file cannot be opened or is not an event log
+     */
+    public static AttendanceEventLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                writeHeader(channel);
+                channel.force(true);
+            } else {
+                readHeader(channel, path);
+                long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+                long validSize = HEADER_SIZE + records * RECORD_SIZE;
+                if (validSize < channel.size()) {
+                    LOGGER.warning("Discarding partial record at the end of " + path);
+                    channel.truncate(validSize);
+                }
+            }
+            channel.position(channel.size());
+            return new AttendanceEventLog(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays a log over a roster, restoring each student's counters from its records.
+     * @param path The log file; a missing file replays nothing
+     * @param studentsById The roster indexed by student id
+     * @return Number of records applied
+     * @throws IOException If the file cannot be read or is not an event log
+     */
+    public static int replay(Path path, Map<Integer, Student> studentsById) throws IOException {
+        return replay(path, studentsById, null);
+    }
+
+    /**
+     * Replays a log over a roster and adds each mark to an attendance history. Marks of
+     * students no longer in the roster are still added to the history.
+     * @param path The log file; a missing file replays nothing
+     * @param studentsById The roster indexed by student id, or null to only fill the history
+     * @param history Receives the day and status of every mark, or null
+     * @return Number of records applied to the roster
+     * @throws IOException If the file cannot be read or is not an event log
+     */
+    public static int replay(Path path, Map<Integer, Student> studentsById,
+                             AttendanceHistory history) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return 0;
+            readHeader(channel, path);
+            channel.position(HEADER_SIZE);
+
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < RECORD_SIZE) break;
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    int id = buffer.getInt();
+                    char code = (char) buffer.get();
+                    int markDay = buffer.getInt();
+                    int timesCalled = buffer.getInt();
+                    int timesPresent = buffer.getInt();
+                    int timesAbsent = buffer.getInt();
+                    int timesExcused = buffer.getInt();
+                    int lastCalledDay = buffer.getInt();
+
+                    if (history != null) {
+                        history.record(id, AttendanceStatus.fromCode(code), markDay);
+                    }
+                    if (studentsById == null) continue;
+                    Student student = studentsById.get(id);
+                    if (student == null) {
+                        LOGGER.warning("Event log refers to unknown student id: " + id);
+                        continue;
+                    }
+                    student.restoreCounters(timesCalled, timesPresent, timesAbsent, timesExcused,
+                            lastCalledDay == NO_DATE ? null : LocalDate.ofEpochDay(lastCalledDay));
+                    applied++;
+                }
+                buffer.compact();
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Appends a record for a mark that has just been applied to the student.
+     * The record is not forced to disk until {@link #sync()} is called.
+     * @param student The student, with counters already updated
+     * @param status The recorded outcome
+     * @param date The day of the mark
+     * @throws IOException If the record cannot be written
+     */
+    public synchronized void append(Student student, AttendanceStatus status, LocalDate date) throws IOException {
+        LocalDate lastCalledDate = student.getLastCalledDate();
+        record.clear();
+        encode(record, student.getId(), status, (int) date.toEpochDay(), student.getTimesCalled(),
+                student.getTimesPresent(), student.getTimesAbsent(), student.getTimesExcused(),
+                lastCalledDate == null ? NO_DATE : (int) lastCalledDate.toEpochDay());
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Encodes the record of a mark that has been applied, so that several marks can be
+     * collected in one buffer and written with {@link #appendEncoded}.
+     * @param out Buffer with at least {@link #RECORD_SIZE} bytes remaining
+     * @param markDay Epoch day of the mark
+     * @param lastCalledDay Epoch day of the last call after the mark, or {@link Integer#MIN_VALUE} for none
+     */
+    public static void encode(ByteBuffer out, int id, AttendanceStatus status, int markDay, int called,
+                              int present, int absent, int excused, int lastCalledDay) {
+        out.putInt(id);
+        out.put((byte) status.getCode());
+        out.putInt(markDay);
+        out.putInt(called);
+        out.putInt(present);
+        out.putInt(absent);
+        out.putInt(excused);
+        out.putInt(lastCalledDay);
+    }
+
+    /**
+     * Appends records produced by {@link #encode} in a single write.
+     * The records are not forced to disk until {@link #sync()} is called.
+     * @param records Buffer holding whole records between its position and limit
+     * @throws IOException If the records cannot be written
+     */
+    public synchronized void appendEncoded(ByteBuffer records) throws IOException {
+        if (records.remaining() % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Buffer does not hold whole records: " + records.remaining() + " bytes");
+        }
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+    }
+
+    /**
+     * Adds the marks of encoded records to an attendance history.
+     * @param records Buffer holding whole records between its position and limit; its
+     *                position is left unchanged
+     * @param history The history to update
+     */
+    public static void recordHistory(ByteBuffer records, AttendanceHistory history) {
+        for (int offset = records.position(); offset + RECORD_SIZE <= records.limit(); offset += RECORD_SIZE) {
+            history.record(records.getInt(offset), AttendanceStatus.fromCode((char) records.get(offset + 4)),
+                    records.getInt(offset + 5));
+        }
+    }
+
+    /**
+     * Forces appended records to disk.
+     */
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * @return Current size of the log file in bytes
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Removes the records before a position once they are covered by a snapshot.
+     * Records appended after that position are copied to a new file that atomically
+     * replaces the log.
+     * @param upTo Log size captured before the snapshot was taken
+     * @throws IOException If the log cannot be rewritten
+     */
+    public synchronized void truncatePrefix(long upTo) throws IOException {
+        long size = channel.size();
+        Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+            out.position(HEADER_SIZE);
+            long position = Math.max(upTo, HEADER_SIZE);
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static void readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header is complete
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not an attendance event log: " + path);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported event log version " + version + ": " + path);
+        }
+    }
+}
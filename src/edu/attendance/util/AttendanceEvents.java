@@ -0,0 +1,103 @@
+package edu.attendance.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Custom JDK Flight Recorder events for the instrumented operations, so a recording
+ * (e.g. {@code -XX:StartFlightRecording}) shows them next to GC pauses and I/O.
+ * The events are cheap when no recording is running.
+ */
+public final class AttendanceEvents {
+    private static final String CATEGORY = "Attendance";
+
+    private AttendanceEvents() {
+    }
+
+    @Name("edu.attendance.RosterLoad")
+    @Label("Roster Load")
+    @Category(CATEGORY)
+    @Description("Roster loaded from the binary snapshot or the CSV file, with the event log replayed")
+    public static final class RosterLoad extends Event {
+        @Label("Source")
+        public String source;
+
+        @Label("Students")
+        public int students;
+
+        @Label("Replayed Events")
+        public int replayedEvents;
+    }
+
+    @Name("edu.attendance.RosterSave")
+    @Label("Roster Save")
+    @Category(CATEGORY)
+    @Description("Changed student records patched into the binary snapshot, or the roster rewritten as CSV and binary snapshot")
+    public static final class RosterSave extends Event {
+        @Label("Full Save")
+        public boolean full;
+
+        @Label("Students Written")
+        public int students;
+
+        @Label("Event Log Bytes Covered")
+        @DataAmount
+        public long coveredLogBytes;
+    }
+
+    @Name("edu.attendance.CsvParse")
+    @Label("CSV Parse")
+    @Category(CATEGORY)
+    public static final class CsvParse extends Event {
+        @Label("File Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Records")
+        public int records;
+
+        @Label("Parallel")
+        public boolean parallel;
+    }
+
+    @Name("edu.attendance.RandomPick")
+    @Label("Random Pick")
+    @Category(CATEGORY)
+    @Description("Weighted pick; only slow picks are recorded unless the threshold is lowered")
+    @Threshold("1 ms")
+    public static final class RandomPick extends Event {
+        @Label("Roster Size")
+        public int rosterSize;
+
+        @Label("Picked Students")
+        public int picked;
+    }
+
+    @Name("edu.attendance.PhotoDecode")
+    @Label("Photo Decode")
+    @Category(CATEGORY)
+    public static final class PhotoDecode extends Event {
+        @Label("Student Id")
+        public int studentId;
+
+        @Label("Decoded")
+        public boolean decoded;
+    }
+
+    @Name("edu.attendance.AudioStart")
+    @Label("Audio Start")
+    @Category(CATEGORY)
+    @Description("From a play request until the name clip is playing")
+    public static final class AudioStart extends Event {
+        @Label("Student Id")
+        public int studentId;
+
+        @Label("Preloaded")
+        public boolean preloaded;
+    }
+}
@@ -0,0 +1,518 @@
+package edu.attendance.util;
+
+import edu.attendance.model.AttendanceStatus;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-day attendance history of a roster, kept as bitmaps.
+ * <p>
+ * Each student has one bit per day and status, indexed by the day's offset from the term
+ * start and packed 64 days to a {@code long}. A student's words only cover the weeks from
+ * their first to their last recorded mark, so a multi-year history costs a few hundred
+ * bytes per student, and range queries mask the words at both ends of the range and count
+ * the bits with {@link Long#bitCount}. A student has at most one status per day; a later
+ * mark on the same day replaces the earlier one.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header   magic "ATHS", version, term start epoch day, student count, tail mark count
+ * students count x (id, first word index, word count, word count x 3 words)
+ * tail     tail mark count x (id, epoch day, status ordinal)
+ * </pre>
+ * The three words of each 64-day block (present, absent, excused) are stored side by side.
+ * {@link #saveChanges} appends the marks recorded since the last save to the tail instead of
+ * rewriting the bitmaps; the tail is folded into the bitmaps once it outgrows them.
+ */
+public class AttendanceHistory {
+    private static final int MAGIC = 0x41544853; // "ATHS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 5 * 4;
+    private static final int TAIL_COUNT_OFFSET = 4 * 4;
+    private static final int MARK_SIZE = 3 * 4;
+    private static final int STATUSES = AttendanceStatus.values().length;
+    private static final AttendanceStatus[] STATUS_VALUES = AttendanceStatus.values();
+
+    private final long termStartDay;
+    private final Map<Integer, Bitmaps> byId = new HashMap<>();
+    /** Marks recorded since the last save or load, as (id, epoch day, status) triples. */
+    private int[] pendingMarks = new int[3 * 64];
+    private int pendingCount;
+    /** The file this history was last saved to or loaded from, and the extent of its sections. */
+    private Path savedFile;
+    private long savedBaseSize;
+    private int savedTailMarks;
+
+    /**
+     * @param termStart The day with offset 0. Earlier days can still be recorded.
+     */
+    public AttendanceHistory(LocalDate termStart) {
+        this.termStartDay = termStart.toEpochDay();
+    }
+
+    public LocalDate getTermStart() {
+        return LocalDate.ofEpochDay(termStartDay);
+    }
+
+    /**
+     * @return Number of students with at least one recorded mark
+     */
+    public synchronized int getStudentCount() {
+        return byId.size();
+    }
+
+    /**
+     * Records a student's attendance on a day, replacing any other status for that day.
+     * @param studentId The student
+     * @param status The outcome
+     * @param date The day of the session
+     */
+    public void record(int studentId, AttendanceStatus status, LocalDate date) {
+        record(studentId, status, date.toEpochDay());
+    }
+
+    /**
+     * Same as {@link #record(int, AttendanceStatus, LocalDate)} with an epoch day.
+     */
+    public synchronized void record(int studentId, AttendanceStatus status, long epochDay) {
+        // Replaying log records that are already in the history file changes nothing
+        if (getStatus(studentId, epochDay) == status) return;
+        apply(studentId, status, epochDay);
+        if (pendingCount * 3 == pendingMarks.length) {
+            pendingMarks = Arrays.copyOf(pendingMarks, pendingMarks.length * 2);
+        }
+        int i = pendingCount++ * 3;
+        pendingMarks[i] = studentId;
+        pendingMarks[i + 1] = Math.toIntExact(epochDay);
+        pendingMarks[i + 2] = status.ordinal();
+    }
+
+    private void apply(int studentId, AttendanceStatus status, long epochDay) {
+        long offset = epochDay - termStartDay;
+        Bitmaps bitmaps = byId.computeIfAbsent(studentId, id -> new Bitmaps());
+        int word = bitmaps.ensureWord(wordOf(offset));
+        long bit = 1L << (offset & 63);
+        for (int s = 0; s < STATUSES; s++) {
+            bitmaps.words[word + s] &= ~bit;
+        }
+        bitmaps.words[word + status.ordinal()] |= bit;
+    }
+
+    /**
+     * @return The student's status on that day, or null if they were not marked
+     */
+    public AttendanceStatus getStatus(int studentId, LocalDate date) {
+        return getStatus(studentId, date.toEpochDay());
+    }
+
+    /**
+     * Same as {@link #getStatus(int, LocalDate)} with an epoch day.
+     */
+    public synchronized AttendanceStatus getStatus(int studentId, long epochDay) {
+        Bitmaps bitmaps = byId.get(studentId);
+        if (bitmaps == null) return null;
+        long offset = epochDay - termStartDay;
+        int word = bitmaps.indexOf(wordOf(offset));
+        if (word < 0) return null;
+        long bit = 1L << (offset & 63);
+        for (AttendanceStatus status : AttendanceStatus.values()) {
+            if ((bitmaps.words[word + status.ordinal()] & bit) != 0) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts the days in a range on which a student had a status.
+     * @param studentId The student
+     * @param status The status to count, or null to count every marked day
+     * @param from First day, inclusive
+     * @param to Last day, inclusive
+     */
+    public synchronized int count(int studentId, AttendanceStatus status, LocalDate from, LocalDate to) {
+        Bitmaps bitmaps = byId.get(studentId);
+        return bitmaps == null ? 0 : bitmaps.count(status, offsetOf(from), offsetOf(to));
+    }
+
+    /**
+     * @return Share of marked days in the range on which the student was present,
+     *         or NaN if the student was not marked in the range
+     */
+    public synchronized double getAttendanceRate(int studentId, LocalDate from, LocalDate to) {
+        Bitmaps bitmaps = byId.get(studentId);
+        if (bitmaps == null) return Double.NaN;
+        long first = offsetOf(from);
+        long last = offsetOf(to);
+        int marked = bitmaps.count(null, first, last);
+        return marked == 0 ? Double.NaN : (double) bitmaps.count(AttendanceStatus.PRESENT, first, last) / marked;
+    }
+
+    /**
+     * Counts a status per student over a range, across the whole roster.
+     * @param status The status to count, or null to count every marked day
+     * @return Counts by student id; students with a count of 0 are left out
+     */
+    public synchronized Map<Integer, Integer> countByStudent(AttendanceStatus status, LocalDate from, LocalDate to) {
+        long first = offsetOf(from);
+        long last = offsetOf(to);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Map.Entry<Integer, Bitmaps> entry : byId.entrySet()) {
+            int count = entry.getValue().count(status, first, last);
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return Ids of the students who had a status on a day, in ascending order
+     */
+    public synchronized int[] getStudentsWith(AttendanceStatus status, LocalDate date) {
+        long offset = offsetOf(date);
+        long bit = 1L << (offset & 63);
+        int[] ids = new int[16];
+        int size = 0;
+        for (Map.Entry<Integer, Bitmaps> entry : byId.entrySet()) {
+            Bitmaps bitmaps = entry.getValue();
+            int word = bitmaps.indexOf(wordOf(offset));
+            if (word >= 0 && (bitmaps.words[word + status.ordinal()] & bit) != 0) {
+                if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+                ids[size++] = entry.getKey();
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Totals a status per day across the whole roster. Students are scanned in parallel,
+     * each worker counting into its own array.
+     * @param status The status to count, or null to count every mark
+     * @return One count per day from {@code from} to {@code to}, inclusive
+     */
+    public synchronized int[] getDailyTotals(AttendanceStatus status, LocalDate from, LocalDate to) {
+        long first = offsetOf(from);
+        long last = offsetOf(to);
+        if (last < first) return new int[0];
+        int days = Math.toIntExact(last - first + 1);
+        return byId.values().parallelStream().collect(
+                () -> new int[days],
+                (totals, bitmaps) -> bitmaps.forEachDay(status, first, last, offset -> totals[(int) (offset - first)]++),
+                (a, b) -> {
+                    for (int i = 0; i < days; i++) {
+                        a[i] += b[i];
+                    }
+                });
+    }
+
+    /**
+     * Totals every status per day across the whole roster, in one parallel pass.
+     * @return Daily totals indexed by {@link AttendanceStatus#ordinal()}, then by day from
+     *         {@code from} to {@code to}, inclusive
+     */
+    public synchronized int[][] getDailyTotalsByStatus(LocalDate from, LocalDate to) {
+        long first = offsetOf(from);
+        long last = offsetOf(to);
+        int days = last < first ? 0 : Math.toIntExact(last - first + 1);
+        AttendanceStatus[] statuses = AttendanceStatus.values();
+        return byId.values().parallelStream().collect(
+                () -> new int[STATUSES][days],
+                (totals, bitmaps) -> {
+                    for (AttendanceStatus status : statuses) {
+                        int[] daily = totals[status.ordinal()];
+                        bitmaps.forEachDay(status, first, last, offset -> daily[(int) (offset - first)]++);
+                    }
+                },
+                (a, b) -> {
+                    for (int s = 0; s < STATUSES; s++) {
+                        for (int i = 0; i < days; i++) {
+                            a[s][i] += b[s][i];
+                        }
+                    }
+                });
+    }
+
+    private long offsetOf(LocalDate date) {
+        return date.toEpochDay() - termStartDay;
+    }
+
+    private static int wordOf(long offset) {
+        return Math.toIntExact(Math.floorDiv(offset, 64));
+    }
+
+    /**
+     * Writes the history through a temporary file and an atomic move.
+     * @param file The history file
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long size;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt((int) termStartDay).putInt(byId.size()).putInt(0);
+            for (Map.Entry<Integer, Bitmaps> entry : byId.entrySet()) {
+                Bitmaps bitmaps = entry.getValue();
+                int used = bitmaps.wordCount * STATUSES;
+                if (buffer.remaining() < 12 + used * 8) {
+                    buffer = drain(channel, buffer, 12 + used * 8);
+                }
+                buffer.putInt(entry.getKey()).putInt(bitmaps.firstWord).putInt(bitmaps.wordCount);
+                buffer.asLongBuffer().put(bitmaps.words, 0, used);
+                buffer.position(buffer.position() + used * 8);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pendingCount = 0;
+        savedFile = file;
+        savedBaseSize = size;
+        savedTailMarks = 0;
+    }
+
+    /**
+     * Saves the marks recorded since the last save, at a cost proportional to their number.
+     * If this history was last saved to or loaded from the file, the marks are appended to
+     * its tail and synced, then the tail count in the header is updated and synced, so a
+     * crash in between leaves the previous tail. Otherwise, or once the tail would be larger
+     * than the bitmaps, the whole history is rewritten with {@link #save}.
+     * @param file The history file
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void saveChanges(Path file) throws IOException {
+        long tailSize = (long) (savedTailMarks + pendingCount) * MARK_SIZE;
+        if (!file.equals(savedFile) || tailSize > savedBaseSize || !Files.isRegularFile(file)) {
+            save(file);
+            return;
+        }
+        if (pendingCount == 0) return;
+
+        ByteBuffer marks = ByteBuffer.allocate(pendingCount * MARK_SIZE);
+        marks.asIntBuffer().put(pendingMarks, 0, pendingCount * 3);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long position = savedBaseSize + (long) savedTailMarks * MARK_SIZE;
+            while (marks.hasRemaining()) {
+                position += channel.write(marks, position);
+            }
+            channel.force(false);
+
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(0, savedTailMarks + pendingCount);
+            channel.write(count, TAIL_COUNT_OFFSET);
+            channel.force(false);
+        }
+        savedTailMarks += pendingCount;
+        pendingCount = 0;
+    }
+
+    private static ByteBuffer drain(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return needed > buffer.capacity() ? ByteBuffer.allocate(needed) : buffer.clear();
+    }
+
+    /**
+     * Loads a history by memory-mapping it.
+     * @param file The history file
+     * @return The history, with its saved term start
+     * @throws IOException If the file cannot be read or is not a valid history
+     */
+    public static AttendanceHistory load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("History too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                AttendanceHistory history = read(mapped, file);
+                if (mapped.getInt(4) == VERSION) {
+                    history.savedFile = file;
+                }
+                return history;
+            } finally {
+                MappedStudentCsvReader.unmap(mapped);
+            }
+        }
+    }
+
+    private static AttendanceHistory read(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an attendance history: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported history version " + version + ": " + file);
+        }
+        AttendanceHistory history = new AttendanceHistory(LocalDate.ofEpochDay(buffer.getInt()));
+        int count = buffer.getInt();
+        // Version 1 files have no tail
+        int tailMarks = version == 1 ? 0 : buffer.getInt();
+        try {
+            for (int i = 0; i < count; i++) {
+                int id = buffer.getInt();
+                int firstWord = buffer.getInt();
+                int wordCount = buffer.getInt();
+                if (wordCount < 0 || (long) wordCount * STATUSES * 8 > buffer.remaining()) {
+                    throw new IOException("Corrupt attendance history: " + file);
+                }
+                Bitmaps bitmaps = new Bitmaps();
+                bitmaps.firstWord = firstWord;
+                bitmaps.wordCount = wordCount;
+                bitmaps.words = new long[wordCount * STATUSES];
+                LongBuffer longs = buffer.asLongBuffer();
+                longs.get(bitmaps.words);
+                buffer.position(buffer.position() + bitmaps.words.length * 8);
+                history.byId.put(id, bitmaps);
+            }
+            history.savedBaseSize = buffer.position();
+            history.savedTailMarks = tailMarks;
+            for (int i = 0; i < tailMarks; i++) {
+                int id = buffer.getInt();
+                int day = buffer.getInt();
+                int status = buffer.getInt();
+                if (status < 0 || status >= STATUSES) {
+                    throw new IOException("Corrupt attendance history: " + file);
+                }
+                history.apply(id, STATUS_VALUES[status], day);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated attendance history: " + file, e);
+        }
+        return history;
+    }
+
+    /**
+     * The bitmaps of one student: {@code wordCount} blocks of 64 days starting at block
+     * {@code firstWord}, each block holding one word per status.
+     */
+    private static final class Bitmaps {
+        int firstWord;
+        int wordCount;
+        long[] words = new long[0];
+
+        /**
+         * @return Index in {@link #words} of the block's present word, or -1 if not covered
+         */
+        int indexOf(int block) {
+            int i = block - firstWord;
+            return i >= 0 && i < wordCount ? i * STATUSES : -1;
+        }
+
+        /**
+         * Grows the covered blocks to include the given one.
+         * @return Index in {@link #words} of the block's present word
+         */
+        int ensureWord(int block) {
+            if (wordCount == 0) {
+                firstWord = block;
+                wordCount = 1;
+                words = new long[STATUSES * 2];
+                return 0;
+            }
+            if (block < firstWord) {
+                int shift = firstWord - block;
+                long[] grown = new long[Math.max((wordCount + shift) * STATUSES, words.length)];
+                System.arraycopy(words, 0, grown, shift * STATUSES, wordCount * STATUSES);
+                words = grown;
+                firstWord = block;
+                wordCount += shift;
+                return 0;
+            }
+            int i = block - firstWord;
+            if (i >= wordCount) {
+                int needed = (i + 1) * STATUSES;
+                if (needed > words.length) {
+                    // Amortize growth as a term progresses week by week
+                    words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+                }
+                wordCount = i + 1;
+            }
+            return i * STATUSES;
+        }
+
+        /**
+         * Counts set bits of one status, or of all statuses, for day offsets first..last.
+         */
+        int count(AttendanceStatus status, long first, long last) {
+            if (last < first || wordCount == 0) return 0;
+            int firstBlock = Math.max(wordOf(first), firstWord);
+            int lastBlock = Math.min(wordOf(last), firstWord + wordCount - 1);
+            int count = 0;
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                long mask = rangeMask(block, first, last);
+                int base = (block - firstWord) * STATUSES;
+                if (status != null) {
+                    count += Long.bitCount(words[base + status.ordinal()] & mask);
+                } else {
+                    for (int s = 0; s < STATUSES; s++) {
+                        count += Long.bitCount(words[base + s] & mask);
+                    }
+                }
+            }
+            return count;
+        }
+
+        void forEachDay(AttendanceStatus status, long first, long last, LongConsumer action) {
+            if (wordCount == 0) return;
+            int firstBlock = Math.max(wordOf(first), firstWord);
+            int lastBlock = Math.min(wordOf(last), firstWord + wordCount - 1);
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                int base = (block - firstWord) * STATUSES;
+                long bits;
+                if (status != null) {
+                    bits = words[base + status.ordinal()];
+                } else {
+                    bits = 0;
+                    for (int s = 0; s < STATUSES; s++) {
+                        bits |= words[base + s];
+                    }
+                }
+                bits &= rangeMask(block, first, last);
+                while (bits != 0) {
+                    action.accept((long) block * 64 + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        /**
+         * @return The bits of a block that fall within day offsets first..last
+         */
+        private static long rangeMask(int block, long first, long last) {
+            long blockStart = (long) block * 64;
+            long mask = -1L;
+            if (first > blockStart) {
+                mask &= -1L << (first - blockStart);
+            }
+            if (last < blockStart + 63) {
+                mask &= -1L >>> (63 - (last - blockStart));
+            }
+            return mask;
+        }
+    }
+}
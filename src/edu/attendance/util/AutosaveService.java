@@ -0,0 +1,206 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the roster on a background thread shortly after it changes.
+ * <p>
+ * Each change restarts a debounce window, so a burst of marks results in a single write.
+ * A steady stream of changes is still saved at least once every few windows. Saves run on
+ * one thread, so at most one is in flight; changes made during a save are picked up by
+ * the next one. Each save writes a copy of the counters taken at the moment it starts,
+ * so marks made while it writes are never saved half applied.
+ */
+public class AutosaveService {
+    private static final Logger LOGGER = Logger.getLogger(AutosaveService.class.getName());
+    private static final int MAX_DEBOUNCE_WINDOWS = 5;
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Receives the outcome of each save, on the autosave thread.
+     */
+    public interface Listener {
+        /**
+         * @param latencyMillis Time the save took, in milliseconds
+         * @param pendingChanges Changes made since the saved snapshot was taken
+         */
+        void saveCompleted(long latencyMillis, int pendingChanges);
+
+        /**
+         * @param error The failure; the changes stay queued and are retried
+         * @param pendingChanges Changes not yet saved
+         */
+        void saveFailed(RuntimeException error, int pendingChanges);
+    }
+
+    private final StudentDataService dataService;
+    private final Supplier<List<Student>> snapshot;
+    private final long debounceMillis;
+    private final ScheduledExecutorService executor;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private int pendingChanges;
+    private long firstPendingNanos;
+    private ScheduledFuture<?> scheduled;
+    private volatile long lastSaveMillis = -1;
+
+    /**
+     * @param dataService The service that writes the roster
+     * @param snapshot Returns the students to save; called on the autosave thread. The save
+     *                 copies their counters under the mark lock when it starts, so this may
+     *                 return the live roster; see {@link StudentDataService#saveStudents}
+     * @param debounceMillis Quiet time after the last change before a save starts
+     */
+    public AutosaveService(StudentDataService dataService, Supplier<List<Student>> snapshot, long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce window cannot be negative");
+        }
+        this.dataService = dataService;
+        this.snapshot = snapshot;
+        this.debounceMillis = debounceMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "attendance-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records a change and schedules a save once the debounce window has passed without
+     * further changes.
+     * @return Number of changes waiting to be saved, including this one
+     */
+    public synchronized int markDirty() {
+        if (pendingChanges++ == 0) {
+            firstPendingNanos = System.nanoTime();
+        }
+        if (!executor.isShutdown()) {
+            schedule(debounceDelay());
+        }
+        return pendingChanges;
+    }
+
+    /**
+     * Starts a save right away, e.g. when the user presses Save. Returns immediately.
+     */
+    public synchronized void saveNow() {
+        if (!executor.isShutdown()) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Saves any pending changes, waits for the save to finish and stops the autosave thread.
+     * Called on application shutdown.
+     */
+    public void flush() {
+        Future<?> finalSave;
+        synchronized (this) {
+            if (executor.isShutdown()) return;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            finalSave = pendingChanges > 0 ? executor.submit(this::save) : null;
+            executor.shutdown();
+        }
+        try {
+            if (finalSave != null) {
+                finalSave.get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            executor.awaitTermination(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Final save did not complete; changes remain in the event log", e);
+        }
+    }
+
+    /**
+     * @return Number of changes not yet covered by a completed save
+     */
+    public synchronized int getPendingChanges() {
+        return pendingChanges;
+    }
+
+    /**
+     * @return Duration of the last successful save in milliseconds, or -1 if none has run
+     */
+    public long getLastSaveMillis() {
+        return lastSaveMillis;
+    }
+
+    /**
+     * Delay until the next save: the debounce window, capped so that continuous changes
+     * cannot postpone saving indefinitely.
+     */
+    private long debounceDelay() {
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstPendingNanos);
+        return Math.max(0, Math.min(debounceMillis, debounceMillis * MAX_DEBOUNCE_WINDOWS - waitedMillis));
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = executor.schedule(this::save, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void save() {
+        int covered;
+        synchronized (this) {
+            scheduled = null;
+            covered = pendingChanges;
+        }
+
+        long start = System.nanoTime();
+        try {
+            dataService.saveStudents(snapshot.get());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Autosave failed; changes remain in the event log", e);
+            int pending;
+            synchronized (this) {
+                pending = pendingChanges;
+                if (!executor.isShutdown() && scheduled == null) {
+                    schedule(debounceMillis);
+                }
+            }
+            for (Listener listener : listeners) {
+                listener.saveFailed(e, pending);
+            }
+            return;
+        }
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastSaveMillis = latencyMillis;
+
+        int pending;
+        synchronized (this) {
+            // Changes made while saving stay queued; their own save is already scheduled
+            pendingChanges -= covered;
+            pending = pendingChanges;
+            if (pending > 0) {
+                firstPendingNanos = System.nanoTime();
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.saveCompleted(latencyMillis, pending);
+        }
+    }
+}
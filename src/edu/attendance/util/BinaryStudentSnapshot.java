@@ -0,0 +1,412 @@
+package edu.attendance.util;
+
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.SimpleStudent;
+import edu.attendance.model.Student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary roster snapshot that loads without any text parsing.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header   magic "ATSN", version, student count, CSV size (long), CSV modified time (long),
+ *          records ahead of CSV
+ * records  count x (id, timesCalled, timesPresent, timesAbsent, timesExcused, lastCalledEpochDay)
+ * strings  count x (name length, name UTF-8 bytes, quote length, quote UTF-8 bytes)
+ * </pre>
+ * A string length of -1 stands for null and a last-called day of {@link Integer#MIN_VALUE}
+ * for no date. The CSV size and modified time identify the CSV file written in the same
+ * save; if the CSV has changed since, e.g. after a hand edit, the snapshot is stale and
+ * the CSV is loaded instead.
+ * <p>
+ * Since records have a fixed width, {@link #patch} can overwrite the records of changed
+ * students in place. The patched records are first written to a journal next to the
+ * snapshot, so a crash while patching leaves either the old or the new records once
+ * {@link #recover} has run. Patched records are newer than the CSV, which is left alone;
+ * the header counts them until the next full {@link #write}.
+ */
+public class BinaryStudentSnapshot {
+    private static final int MAGIC = 0x4154534E; // "ATSN"
+    private static final int VERSION = 2;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int JOURNAL_MAGIC = 0x41544A4E; // "ATJN"
+    private static final int JOURNAL_HEADER_SIZE = 4 + 4 + 4;
+    /** Offset of the records-ahead-of-CSV counter in the header. */
+    private static final int AHEAD_OFFSET = 4 + 4 + 4 + 8 + 8;
+
+    /** Size of the file header in bytes. */
+    public static final int HEADER_SIZE = AHEAD_OFFSET + 4;
+    /** Size of one fixed-width student record in bytes. */
+    public static final int RECORD_SIZE = 6 * 4;
+    /** Size of one entry passed to {@link #patch}: the row followed by its record. */
+    public static final int PATCH_ENTRY_SIZE = 4 + RECORD_SIZE;
+
+    private BinaryStudentSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot through a temporary file and an atomic move.
+     * @param file The snapshot file
+     * @param students The students to write
+     * @param csvFile The CSV file saved alongside; its size and modified time are recorded
+     * @throws IOException If the snapshot cannot be written
+     */
+    public static void write(Path file, List<Student> students, Path csvFile) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(students.size());
+            buffer.putLong(Files.size(csvFile));
+            buffer.putLong(Files.getLastModifiedTime(csvFile).toMillis());
+            buffer.putInt(0);
+
+            for (Student student : students) {
+                ensureRemaining(channel, buffer, RECORD_SIZE);
+                putRecord(buffer, student);
+            }
+
+            for (Student student : students) {
+                buffer = putString(channel, buffer, student.getName());
+                buffer = putString(channel, buffer, student.getFavoriteQuote());
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        // A journal left by an unrecovered patch belongs to the snapshot being replaced
+        Files.deleteIfExists(journalOf(file));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends a student's row and current record to a buffer of {@link #patch} entries.
+     * @param out Buffer with at least {@link #PATCH_ENTRY_SIZE} bytes remaining
+     * @param row The student's row in the snapshot
+     * @param student The student
+     */
+    public static void putPatchEntry(ByteBuffer out, int row, Student student) {
+        out.putInt(row);
+        putRecord(out, student);
+    }
+
+    private static void putRecord(ByteBuffer out, Student student) {
+        LocalDate lastCalledDate = student.getLastCalledDate();
+        out.putInt(student.getId());
+        out.putInt(student.getTimesCalled());
+        out.putInt(student.getTimesPresent());
+        out.putInt(student.getTimesAbsent());
+        out.putInt(student.getTimesExcused());
+        out.putInt(lastCalledDate == null ? NO_DATE : (int) lastCalledDate.toEpochDay());
+    }
+
+    /**
+     * Overwrites the records of some rows in place, with one sync for the whole batch.
+     * The entries are written to the journal and synced first, then to the snapshot, and
+     * the journal is deleted once the snapshot is synced.
+     * @param file A snapshot written by {@link #write} for the same rows
+     * @param entries Entries from {@link #putPatchEntry}, in ascending row order
+     * @param recordsAheadOfCsv New value of the header's count of records newer than the CSV
+     * @throws IOException If the records cannot be written; the next {@link #recover} completes
+     *                     or discards the patch
+     */
+    public static void patch(Path file, ByteBuffer entries, int recordsAheadOfCsv) throws IOException {
+        if (entries.remaining() % PATCH_ENTRY_SIZE != 0) {
+            throw new IllegalArgumentException("Patch entries must be " + PATCH_ENTRY_SIZE + " bytes each");
+        }
+        Path journal = journalOf(file);
+        ByteBuffer buffer = ByteBuffer.allocate(JOURNAL_HEADER_SIZE + entries.remaining() + 4);
+        buffer.putInt(JOURNAL_MAGIC).putInt(entries.remaining() / PATCH_ENTRY_SIZE).putInt(recordsAheadOfCsv);
+        buffer.put(entries.duplicate());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        apply(file, entries, recordsAheadOfCsv);
+        Files.delete(journal);
+    }
+
+    /**
+     * Completes a {@link #patch} interrupted by a crash. A complete journal is applied
+     * again, which is harmless if the records were already written; a journal cut short
+     * was never followed by writes to the snapshot and is discarded.
+     * @param file The snapshot file
+     * @throws IOException If a complete journal cannot be applied
+     */
+    public static void recover(Path file) throws IOException {
+        Path journal = journalOf(file);
+        if (!Files.exists(journal)) return;
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal));
+        boolean complete = false;
+        if (buffer.remaining() >= JOURNAL_HEADER_SIZE + 4 && buffer.getInt(0) == JOURNAL_MAGIC) {
+            int count = buffer.getInt(4);
+            int end = JOURNAL_HEADER_SIZE + count * PATCH_ENTRY_SIZE;
+            if (count >= 0 && end + 4 == buffer.capacity()) {
+                CRC32 crc = new CRC32();
+                crc.update(buffer.array(), 0, end);
+                complete = (int) crc.getValue() == buffer.getInt(end);
+            }
+        }
+        if (complete && Files.isRegularFile(file)) {
+            int recordsAheadOfCsv = buffer.getInt(8);
+            buffer.position(JOURNAL_HEADER_SIZE).limit(buffer.capacity() - 4);
+            apply(file, buffer, recordsAheadOfCsv);
+        }
+        Files.delete(journal);
+    }
+
+    private static void apply(Path file, ByteBuffer entries, int recordsAheadOfCsv) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int count = readCount(channel, file);
+            // Consecutive rows go out as one write
+            ByteBuffer run = ByteBuffer.allocate(RECORD_SIZE * 256);
+            int runStart = -1;
+            for (int offset = entries.position(); offset < entries.limit(); offset += PATCH_ENTRY_SIZE) {
+                int row = entries.getInt(offset);
+                if (row < 0 || row >= count) {
+                    throw new IOException("Row " + row + " is outside the snapshot: " + file);
+                }
+                if (runStart >= 0 && (row != runStart + run.position() / RECORD_SIZE || !run.hasRemaining())) {
+                    writeRun(channel, run, runStart);
+                    runStart = -1;
+                }
+                if (runStart < 0) {
+                    runStart = row;
+                }
+                for (int i = 4; i < PATCH_ENTRY_SIZE; i += 4) {
+                    run.putInt(entries.getInt(offset + i));
+                }
+            }
+            if (runStart >= 0) {
+                writeRun(channel, run, runStart);
+            }
+            ByteBuffer ahead = ByteBuffer.allocate(4).putInt(0, recordsAheadOfCsv);
+            channel.write(ahead, AHEAD_OFFSET);
+            channel.force(false);
+        }
+    }
+
+    private static void writeRun(FileChannel channel, ByteBuffer run, int firstRow) throws IOException {
+        run.flip();
+        long position = HEADER_SIZE + (long) firstRow * RECORD_SIZE;
+        while (run.hasRemaining()) {
+            position += channel.write(run, position);
+        }
+        run.clear();
+    }
+
+    private static int readCount(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header is complete
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a student snapshot: " + file);
+        }
+        return header.getInt();
+    }
+
+    private static Path journalOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".journal");
+    }
+
+    /**
+     * @param file The snapshot file
+     * @return Number of records patched since the CSV was last written, or 0 if the file
+     *         is missing or not a current-version snapshot
+     */
+    public static int getRecordsAheadOfCsv(Path file) {
+        if (!Files.isRegularFile(file)) return 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readCount(channel, file);
+            ByteBuffer ahead = ByteBuffer.allocate(4);
+            channel.read(ahead, AHEAD_OFFSET);
+            return ahead.remaining() == 0 ? ahead.getInt(0) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks whether a snapshot exists and was written together with the current CSV file.
+     * @param file The snapshot file
+     * @param csvFile The CSV file it should correspond to
+     * @return True if the snapshot can be loaded instead of the CSV
+     */
+    public static boolean isCurrent(Path file, Path csvFile) {
+        if (!Files.isRegularFile(file) || !Files.isRegularFile(csvFile)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return false;
+            }
+            header.getInt();
+            return header.getLong() == Files.size(csvFile)
+                    && header.getLong() == Files.getLastModifiedTime(csvFile).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads all students from a snapshot by memory-mapping it.
+     * @param file The snapshot file
+     * @return List of students in saved order
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static List<Student> read(Path file) throws IOException {
+        ArrayList<Student> students = new ArrayList<>();
+        read(file, (id, name, quote, called, present, absent, excused, lastCalledDay) ->
+                students.add(new SimpleStudent(id, name, quote, called, present, absent, excused,
+                        lastCalledDay == NO_DATE ? null : LocalDate.ofEpochDay(lastCalledDay))),
+                students::ensureCapacity);
+        return students;
+    }
+
+    /**
+     * Loads a snapshot straight into a column store, without creating a Student per row.
+     * @param file The snapshot file
+     * @return The roster in saved order
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static RosterStore readRoster(Path file) throws IOException {
+        // Both formats use Integer.MIN_VALUE for "never called", so days are copied as is
+        RosterStore[] store = new RosterStore[1];
+        read(file, (id, name, quote, called, present, absent, excused, lastCalledDay) ->
+                store[0].add(id, name, quote, called, present, absent, excused, lastCalledDay),
+                count -> store[0] = new RosterStore(count));
+        return store[0];
+    }
+
+    /**
+     * Receives the rows of a snapshot in order.
+     */
+    private interface RowSink {
+        void accept(int id, String name, String quote, int called, int present,
+                    int absent, int excused, int lastCalledDay);
+    }
+
+    private static void read(Path file, RowSink sink, IntConsumer onCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                read(mapped, file, sink, onCount);
+            } finally {
+                MappedStudentCsvReader.unmap(mapped);
+            }
+        }
+    }
+
+    private static void read(ByteBuffer buffer, Path file, RowSink sink,
+                             IntConsumer onCount) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a student snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+        int count = buffer.getInt();
+        buffer.getLong();
+        buffer.getLong();
+        buffer.getInt();
+        if (count < 0 || (long) count * RECORD_SIZE > buffer.remaining()) {
+            throw new IOException("Corrupt student snapshot: " + file);
+        }
+
+        onCount.accept(count);
+
+        // Bulk-read the fixed-width section, then walk the string section in step with it
+        int[] records = new int[count * 6];
+        buffer.asIntBuffer().get(records);
+        buffer.position(buffer.position() + count * RECORD_SIZE);
+
+        byte[] scratch = new byte[256];
+        try {
+            for (int i = 0; i < count; i++) {
+                int base = i * 6;
+                int length = buffer.getInt();
+                if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                String name = getString(buffer, length, scratch);
+                length = buffer.getInt();
+                if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                String quote = getString(buffer, length, scratch);
+
+                sink.accept(records[base], name, quote, records[base + 1], records[base + 2],
+                        records[base + 3], records[base + 4], records[base + 5]);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt student snapshot: " + file, e);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer, int length, byte[] scratch) {
+        if (length < 0) return null;
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer putString(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        if (value == null) {
+            ensureRemaining(channel, buffer, 4);
+            buffer.putInt(-1);
+            return buffer;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + 4 > buffer.capacity()) {
+            // Grow for a string larger than the whole write buffer
+            ByteBuffer larger = ByteBuffer.allocate(bytes.length + 4 + buffer.position());
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        ensureRemaining(channel, buffer, bytes.length + 4);
+        buffer.putInt(bytes.length).put(bytes);
+        return buffer;
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package edu.attendance.util;
+
+import edu.attendance.model.AttendanceStatus;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the records of marks made in the UI to the event log on a background thread.
+ * <p>
+ * A mark is applied in memory and its record queued without touching the disk, so a click
+ * never waits for a sync. The writer thread takes everything queued since its last write
+ * and commits it with one write and one sync, so a burst of marks shares a sync. If the
+ * write fails, the records stay queued and are written again after a pause; a record that
+ * reaches the log twice replays to the same counters, as records hold absolute counters.
+ * Until then the marks are only in memory and in the next save.
+ */
+class EventLogWriter {
+    private static final Logger LOGGER = Logger.getLogger(EventLogWriter.class.getName());
+    private static final int MAX_BATCH = 1024;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    private final Consumer<ByteBuffer> sink;
+    private final Thread thread;
+    /** Records queued and not yet written; guarded by this. */
+    private ByteBuffer queued = ByteBuffer.allocate(64 * AttendanceEventLog.RECORD_SIZE);
+    /** Records handed to the sink and not yet confirmed; guarded by this. */
+    private int inFlight;
+    private boolean closed;
+
+    /**
+     * @param sink Appends and syncs a buffer of encoded records; throws if they are not durable
+     * @param name Name of the writer thread
+     */
+    EventLogWriter(Consumer<ByteBuffer> sink, String name) {
+        this.sink = sink;
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the record of a mark that has been applied. Returns without waiting for the disk.
+     * @param markDay Epoch day of the mark
+     * @param lastCalledDay Epoch day of the last call after the mark
+     * @throws IllegalStateException If the writer is closed
+     */
+    synchronized void submit(int id, AttendanceStatus status, int markDay, int called, int present,
+                             int absent, int excused, int lastCalledDay) {
+        if (closed) {
+            throw new IllegalStateException("Event log writer is closed");
+        }
+        if (queued.remaining() < AttendanceEventLog.RECORD_SIZE) {
+            ByteBuffer larger = ByteBuffer.allocate(queued.capacity() * 2);
+            queued.flip();
+            larger.put(queued);
+            queued = larger;
+        }
+        AttendanceEventLog.encode(queued, id, status, markDay, called, present, absent, excused, lastCalledDay);
+        notifyAll();
+    }
+
+    /**
+     * Waits until every record queued so far is durable.
+     * @param timeoutMillis Longest time to wait
+     * @return True if nothing is left to write
+     */
+    synchronized boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (queued.position() > 0 || inFlight > 0) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting records, writes those already queued and stops the writer thread.
+     * @param timeoutMillis Longest time to wait for the queued records
+     * @return True if every record was written
+     */
+    boolean close(long timeoutMillis) {
+        boolean written;
+        try {
+            written = flush(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            written = false;
+        }
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (!written) {
+            thread.interrupt();
+        }
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return written;
+    }
+
+    private void run() {
+        ByteBuffer batch = ByteBuffer.allocate(MAX_BATCH * AttendanceEventLog.RECORD_SIZE);
+        long retryMillis = 0;
+        while (true) {
+            synchronized (this) {
+                try {
+                    while (batch.position() == 0 && queued.position() == 0) {
+                        if (closed) return;
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // A batch that failed is retried before newer records are taken
+                if (batch.position() == 0) {
+                    queued.flip();
+                    int take = Math.min(queued.remaining(), batch.capacity());
+                    ByteBuffer slice = queued.duplicate();
+                    slice.limit(queued.position() + take);
+                    batch.put(slice);
+                    queued.position(queued.position() + take);
+                    queued.compact();
+                    inFlight = batch.position() / AttendanceEventLog.RECORD_SIZE;
+                }
+            }
+
+            long start = System.nanoTime();
+            ByteBuffer records = batch.duplicate();
+            records.flip();
+            try {
+                sink.accept(records);
+                MetricsRegistry.getDefault().timer(MetricsRegistry.ATTENDANCE_LOG_COMMIT).stop(start);
+                retryMillis = 0;
+                batch.clear();
+                synchronized (this) {
+                    inFlight = 0;
+                    notifyAll();
+                }
+            } catch (RuntimeException e) {
+                retryMillis = Math.min(MAX_RETRY_MILLIS, Math.max(500, retryMillis * 2));
+                LOGGER.log(Level.SEVERE, "Writing " + batch.position() / AttendanceEventLog.RECORD_SIZE
+                        + " attendance marks to the event log failed; retrying in " + retryMillis + " ms", e);
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package edu.attendance.util;
+
+import java.util.PriorityQueue;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Binary heap of roster rows that tracks where each row sits, so a row whose key changed
+ * is moved into place in O(log n), and the first k rows are read in O(k log k) without
+ * disturbing the heap.
+ * <p>
+ * Keys are not stored here; the order compares two rows by keys kept elsewhere. After a
+ * row's key changes, call {@link #update} before changing any other row's key.
+ */
+public class IndexedHeap {
+    private final IntBinaryOperator order;
+    private final int[] heap;
+    private final int[] position;
+
+    /**
+     * Builds the heap over rows {@code 0..size-1} in O(n).
+     * @param size Number of rows
+     * @param order Compares two rows, negative if the first comes first; ties should be
+     *              broken, e.g. by row, so that the order is total
+     */
+    public IndexedHeap(int size, IntBinaryOperator order) {
+        this.order = order;
+        this.heap = new int[size];
+        this.position = new int[size];
+        for (int row = 0; row < size; row++) {
+            heap[row] = row;
+            position[row] = row;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int size() {
+        return heap.length;
+    }
+
+    /**
+     * @return The first row, or -1 if the heap is empty
+     */
+    public int peek() {
+        return heap.length == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * Moves a row into place after its key changed.
+     * @param row The row whose key changed
+     */
+    public void update(int row) {
+        int i = position[row];
+        if (i > 0 && order.applyAsInt(row, heap[(i - 1) / 2]) < 0) {
+            siftUp(i);
+        } else {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Reads the first rows in order by walking the heap from the root, keeping the
+     * children of the rows taken so far in a small queue.
+     * @param k Number of rows wanted
+     * @return Up to k rows, first row first
+     */
+    public int[] top(int k) {
+        int[] rows = new int[Math.max(0, Math.min(k, heap.length))];
+        if (rows.length == 0) return rows;
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(2 * rows.length + 1,
+                (a, b) -> order.applyAsInt(heap[a], heap[b]));
+        frontier.add(0);
+        for (int taken = 0; taken < rows.length; taken++) {
+            int i = frontier.poll();
+            rows[taken] = heap[i];
+            if (2 * i + 1 < heap.length) frontier.add(2 * i + 1);
+            if (2 * i + 2 < heap.length) frontier.add(2 * i + 2);
+        }
+        return rows;
+    }
+
+    private void siftUp(int i) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (order.applyAsInt(row, heap[parent]) >= 0) break;
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(row, i);
+    }
+
+    private void siftDown(int i) {
+        int row = heap[i];
+        int half = heap.length / 2;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heap.length && order.applyAsInt(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (order.applyAsInt(heap[child], row) >= 0) break;
+            place(heap[child], i);
+            i = child;
+        }
+        place(row, i);
+    }
+
+    private void place(int row, int i) {
+        heap[i] = row;
+        position[row] = i;
+    }
+}
@@ -0,0 +1,321 @@
+package edu.attendance.util;
+
+import edu.attendance.model.SimpleStudent;
+import edu.attendance.model.Student;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the student CSV file by memory-mapping it and parsing records directly from the bytes.
+ * Numeric and date columns are decoded without creating intermediate Strings; only the name
+ * and quote columns become Strings. Quoted fields and the {@code ""} escape follow the same
+ * rules as the original line parser, and a newline inside a quoted field is kept as part of
+ * the field, which is how {@link StudentDataService#saveStudents} writes such values.
+ */
+public class MappedStudentCsvReader {
+    private static final Logger LOGGER = Logger.getLogger(MappedStudentCsvReader.class.getName());
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int MAX_TRACKED_FIELDS = 8;
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final int[] fieldStart = new int[MAX_TRACKED_FIELDS];
+    private final int[] fieldEnd = new int[MAX_TRACKED_FIELDS];
+    private final boolean[] fieldQuoted = new boolean[MAX_TRACKED_FIELDS];
+    private int fieldCount;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Creates a reader over a buffer holding CSV records.
+     * @param buffer The bytes to parse; absolute positions are used, the buffer position is ignored
+     */
+    public MappedStudentCsvReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.view = buffer.duplicate();
+    }
+
+    /**
+     * Loads all students from a CSV file, skipping the header record.
+     * @param csvFile The CSV file to read
+     * @return List of students in file order
+     * @throws IOException If the file cannot be read or is too large to map
+     */
+    public static List<Student> read(Path csvFile) throws IOException {
+        List<Student> students = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Roster file too large to map: " + csvFile);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                MappedStudentCsvReader reader = new MappedStudentCsvReader(mapped);
+                int limit = (int) size;
+                reader.parseRange(reader.skipRecord(0, limit), limit, students);
+            } finally {
+                unmap(mapped);
+            }
+        }
+        return students;
+    }
+
+    /**
+     * Parses every record in a byte range. The range must start at a record boundary.
+     * @param from Offset of the first record
+     * @param to Offset just past the last record
+     * @param out List the parsed students are appended to
+     */
+    public void parseRange(int from, int to, List<Student> out) {
+        int position = from;
+        while (position < to) {
+            int recordStart = position;
+            position = scanRecord(position, to);
+            Student student = toStudent(recordStart, position);
+            if (student != null) {
+                out.add(student);
+            }
+        }
+    }
+
+    /**
+     * Skips a single record, e.g. the header line.
+     * @return Offset of the next record
+     */
+    public int skipRecord(int from, int to) {
+        return from < to ? scanRecord(from, to) : from;
+    }
+
+    /**
+     * Splits one record into fields, honouring quotes, and returns the offset of the next record.
+     * A quote toggles quoted mode unless it is an escaped {@code ""} inside quotes.
+     */
+    private int scanRecord(int from, int to) {
+        fieldCount = 0;
+        int start = from;
+        boolean inQuotes = false;
+        boolean quoted = false;
+
+        int i = from;
+        while (i < to) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                quoted = true;
+                if (inQuotes && i + 1 < to && buffer.get(i + 1) == '"') {
+                    i += 2;
+                } else {
+                    inQuotes = !inQuotes;
+                    i++;
+                }
+                continue;
+            }
+            if (!inQuotes) {
+                if (b == ',') {
+                    endField(start, i, quoted);
+                    start = i + 1;
+                    quoted = false;
+                } else if (b == '\n') {
+                    endField(start, i, quoted);
+                    return i + 1;
+                } else if (b == '\r') {
+                    endField(start, i, quoted);
+                    return i + 1 < to && buffer.get(i + 1) == '\n' ? i + 2 : i + 1;
+                }
+            }
+            i++;
+        }
+
+        if (inQuotes) {
+            LOGGER.warning("Unterminated quoted field in CSV at byte offset " + from);
+        }
+        endField(start, to, quoted);
+        return to;
+    }
+
+    private void endField(int start, int end, boolean quoted) {
+        if (fieldCount < MAX_TRACKED_FIELDS) {
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = end;
+            fieldQuoted[fieldCount] = quoted;
+        }
+        fieldCount++;
+    }
+
+    private Student toStudent(int recordStart, int recordEnd) {
+        if (fieldCount < 7) {
+            LOGGER.warning("Invalid data format in CSV: " + recordText(recordStart, recordEnd));
+            return null;
+        }
+
+        try {
+            int id = parseIntField(0);
+            String name = stringField(1);
+            String quote = stringField(2);
+            int timesCalled = parseIntField(3);
+            int timesPresent = parseIntField(4);
+            int timesAbsent = parseIntField(5);
+            int timesExcused = parseIntField(6);
+            LocalDate lastCalledDate = fieldCount > 7 ? parseDateField(7) : null;
+
+            return new SimpleStudent(id, name, quote, timesCalled,
+                               timesPresent, timesAbsent, timesExcused, lastCalledDate);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Error parsing student data: " + recordText(recordStart, recordEnd), e);
+            return null;
+        }
+    }
+
+    /**
+     * Parses an int column. Plain ASCII digits are decoded in place; anything else goes
+     * through {@link Integer#parseInt} so that accepted input and errors stay identical.
+     */
+    private int parseIntField(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (!fieldQuoted[field] && end > start) {
+            boolean negative = buffer.get(start) == '-';
+            int digitsStart = negative ? start + 1 : start;
+            int digits = end - digitsStart;
+            if (digits > 0 && digits <= 9) {
+                int value = 0;
+                int i = digitsStart;
+                for (; i < end; i++) {
+                    int d = buffer.get(i) - '0';
+                    if (d < 0 || d > 9) break;
+                    value = value * 10 + d;
+                }
+                if (i == end) {
+                    return negative ? -value : value;
+                }
+            }
+        }
+        return Integer.parseInt(stringField(field));
+    }
+
+    /**
+     * Parses the last-called date column. A canonical {@code yyyy-MM-dd} value is decoded in
+     * place, clamping the day the way the formatter's smart resolver does; other values fall
+     * back to the formatter.
+     */
+    private LocalDate parseDateField(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (!fieldQuoted[field]) {
+            if (isBlank(start, end)) {
+                return null;
+            }
+            if (end - start == 10 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-') {
+                int year = digitsAt(start, 4);
+                int month = digitsAt(start + 5, 2);
+                int day = digitsAt(start + 8, 2);
+                if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                    return LocalDate.of(year, month, Math.min(day, YearMonth.of(year, month).lengthOfMonth()));
+                }
+            }
+        }
+
+        String text = stringField(field);
+        if (text.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(text, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            LOGGER.warning("Invalid date format in CSV: " + text);
+            return null;
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') return false;
+        }
+        return true;
+    }
+
+    private int digitsAt(int position, int count) {
+        int value = 0;
+        for (int i = position; i < position + count; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a field to a String, removing quotes and collapsing {@code ""} escapes.
+     */
+    private String stringField(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        if (!fieldQuoted[field]) {
+            view.limit(end).position(start);
+            view.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        int out = 0;
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                if (inQuotes && i + 1 < end && buffer.get(i + 1) == '"') {
+                    scratch[out++] = '"';
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                scratch[out++] = b;
+            }
+        }
+        return new String(scratch, 0, out, StandardCharsets.UTF_8);
+    }
+
+    private String recordText(int start, int end) {
+        while (end > start && (buffer.get(end - 1) == '\n' || buffer.get(end - 1) == '\r')) {
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        view.limit(end).position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases a mapping right away instead of waiting for garbage collection. On Windows a
+     * mapped file cannot be replaced, which would make the next atomic save fail.
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not unmap buffer; it will be released by the garbage collector", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package edu.attendance.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of the student ids that have a media file, such as {@code 12.jpg}, in a
+ * directory. The directory is scanned once and then kept current by a {@link WatchService},
+ * so lookups on the UI path never touch the file system.
+ */
+public class MediaIndex implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(MediaIndex.class.getName());
+
+    private final Path directory;
+    private final String extension;
+    private final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    private final CopyOnWriteArrayList<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * @param directory Directory holding the media files
+     * @param extension File name suffix including the dot, e.g. {@code ".jpg"}
+     */
+    public MediaIndex(Path directory, String extension) {
+        this.directory = directory;
+        this.extension = extension;
+    }
+
+    /**
+     * Scans the directory and starts watching it for changes.
+     * If the directory cannot be watched the index still works from the initial scan.
+     */
+    public synchronized void start() {
+        if (watchThread != null) return;
+
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + directory + "; media changes need a restart", e);
+            watchService = null;
+        }
+
+        // Register before scanning so that no change between the two is missed
+        rescan();
+
+        if (watchService != null) {
+            WatchService service = watchService;
+            watchThread = new Thread(() -> watchLoop(service), "media-index-" + directory.getFileName());
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return True if the student has a media file
+     */
+    public boolean contains(int studentId) {
+        return ids.contains(studentId);
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return The path of the student's media file; whether it exists is answered by {@link #contains}
+     */
+    public Path resolve(int studentId) {
+        return directory.resolve(studentId + extension);
+    }
+
+    /**
+     * Registers a listener called with a student id whenever that student's file is added,
+     * changed or removed. Listeners run on the watcher thread.
+     */
+    public void addListener(IntConsumer listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return The indexed student ids, in no particular order
+     */
+    public int[] getIds() {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return Number of indexed media files
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    private void rescan() {
+        Set<Integer> found = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+            for (Path file : stream) {
+                int id = parseId(file.getFileName().toString());
+                if (id >= 0) {
+                    found.add(id);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to scan media directory " + directory, e);
+            return;
+        }
+
+        for (Integer id : found) {
+            if (ids.add(id)) notifyListeners(id);
+        }
+        for (Integer id : ids) {
+            if (!found.contains(id) && ids.remove(id)) notifyListeners(id);
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    rescan();
+                    continue;
+                }
+                int id = parseId(event.context().toString());
+                if (id < 0) continue;
+
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    ids.remove(id);
+                } else if (Files.isRegularFile(resolve(id))) {
+                    ids.add(id);
+                }
+                notifyListeners(id);
+            }
+
+            if (!key.reset()) {
+                LOGGER.warning("Media directory is no longer accessible: " + directory);
+                return;
+            }
+        }
+    }
+
+    private void notifyListeners(int id) {
+        for (IntConsumer listener : listeners) {
+            try {
+                listener.accept(id);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Media change listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Parses file names of the form {@code <id><extension>}, accepting only the exact
+     * spelling that {@link #resolve} produces.
+     * @return The id, or -1 if the name does not match
+     */
+    private int parseId(String fileName) {
+        if (!fileName.endsWith(extension)) return -1;
+        String stem = fileName.substring(0, fileName.length() - extension.length());
+        try {
+            int id = Integer.parseInt(stem);
+            return Integer.toString(id).equals(stem) ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close watch service", e);
+            }
+            watchService = null;
+        }
+    }
+}
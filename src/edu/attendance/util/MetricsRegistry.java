@@ -0,0 +1,263 @@
+package edu.attendance.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timers and counters for the operations users notice: loading and saving the
+ * roster, parsing the CSV, picking a student, decoding a photo and starting a name clip.
+ * <p>
+ * Recording is lock-free and cheap enough for the pick path. Timers keep count, total,
+ * minimum and maximum exactly and approximate percentiles from power-of-two buckets.
+ * {@link #format()} renders a snapshot, together with the machine it was taken on, so
+ * snapshots from different installations can be compared.
+ */
+public final class MetricsRegistry {
+    /** Roster loaded from the binary snapshot or CSV, including event log replay. */
+    public static final String ROSTER_LOAD = "roster.load";
+    /** Roster written as CSV and binary snapshot, including log truncation. */
+    public static final String ROSTER_SAVE = "roster.save";
+    /** CSV file parsed into students. */
+    public static final String CSV_PARSE = "csv.parse";
+    /** Bytes of CSV parsed. */
+    public static final String CSV_PARSE_BYTES = "csv.parse.bytes";
+    /** CSV records parsed. */
+    public static final String CSV_PARSE_RECORDS = "csv.parse.records";
+    /** A single weighted random pick. */
+    public static final String SELECTION_PICK = "selection.pick";
+    /** A weighted group pick. */
+    public static final String SELECTION_PICK_GROUP = "selection.pickGroup";
+    /** Attendance mark applied and queued for the event log, as seen by the UI. */
+    public static final String ATTENDANCE_RECORD = "attendance.record";
+    /** Queued attendance marks appended and synced to the event log in the background. */
+    public static final String ATTENDANCE_LOG_COMMIT = "attendance.logCommit";
+    /** Student photo decoded. */
+    public static final String PHOTO_DECODE = "photo.decode";
+    /** Student photo downscaled and written to the thumbnail atlas. */
+    public static final String PHOTO_THUMBNAIL = "photo.thumbnail";
+    /** Time from a play request until the name clip is playing. */
+    public static final String AUDIO_START = "audio.start";
+    /** Attendance report computed and written. */
+    public static final String REPORT_GENERATE = "report.generate";
+    /** Batch of imported attendance events appended and synced to the event log. */
+    public static final String IMPORT_BATCH = "import.batch";
+    /** From process start until the main window has rendered its first frame. */
+    public static final String STARTUP_FIRST_FRAME = "startup.firstFrame";
+    /** From process start until the roster is listed and the controls are enabled. */
+    public static final String STARTUP_INTERACTIVE = "startup.interactive";
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @return The registry shared by the whole application
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets or creates a timer.
+     */
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /**
+     * Gets or creates a counter.
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Clears every timer and counter.
+     */
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    /**
+     * Renders the machine description and every metric as plain text.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Attendance metrics snapshot ")
+          .append(ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)).append('\n');
+        Runtime runtime = Runtime.getRuntime();
+        sb.append(String.format("java=%s vm=%s os=%s %s arch=%s cpus=%d maxHeapMb=%d uptimeMs=%d%n",
+                System.getProperty("java.version"), System.getProperty("java.vm.name"),
+                System.getProperty("os.name"), System.getProperty("os.version"),
+                System.getProperty("os.arch"), runtime.availableProcessors(),
+                runtime.maxMemory() / (1024 * 1024), ManagementFactory.getRuntimeMXBean().getUptime()));
+
+        sb.append("\nTimers (ms)\n");
+        sb.append(String.format("%-22s %8s %10s %10s %10s %10s %10s%n",
+                "name", "count", "mean", "min", "p50", "p99", "max"));
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            Timer t = entry.getValue();
+            sb.append(String.format("%-22s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(),
+                    t.getCount(), t.getMeanMillis(), toMillis(t.getMinNanos()),
+                    toMillis(t.getPercentileNanos(0.50)), toMillis(t.getPercentileNanos(0.99)),
+                    toMillis(t.getMaxNanos())));
+        }
+
+        sb.append("\nCounters\n");
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            sb.append(String.format("%-22s %12d%n", entry.getKey(), entry.getValue().get()));
+        }
+
+        Timer parse = timers.get(CSV_PARSE);
+        Counter parsedBytes = counters.get(CSV_PARSE_BYTES);
+        Counter parsedRecords = counters.get(CSV_PARSE_RECORDS);
+        if (parse != null && parse.getTotalNanos() > 0 && parsedBytes != null && parsedRecords != null) {
+            double seconds = parse.getTotalNanos() / 1e9;
+            sb.append(String.format("%nCSV parse rate: %.1f MB/s, %.0f records/s%n",
+                    parsedBytes.get() / seconds / (1024 * 1024), parsedRecords.get() / seconds));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@link #format()} to a file, replacing it if it exists.
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void dump(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(format());
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Records durations of one operation.
+     */
+    public static final class Timer {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxNanos = new AtomicLong();
+        // Bucket i counts durations in [2^(i-1), 2^i) nanoseconds; bucket 0 counts zero
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        Timer() {
+        }
+
+        /**
+         * Records the time since a start taken with {@link System#nanoTime()}.
+         * @param startNanos The start time
+         * @return The recorded duration in nanoseconds
+         */
+        public long stop(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            record(nanos);
+            return nanos;
+        }
+
+        /**
+         * Records one duration.
+         */
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            count.increment();
+            totalNanos.add(nanos);
+            buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+            long min;
+            while (nanos < (min = minNanos.get()) && !minNanos.compareAndSet(min, nanos)) {
+                // retry until the smaller value is stored
+            }
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry until the larger value is stored
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        public long getMinNanos() {
+            return count.sum() == 0 ? 0 : minNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * Approximates a percentile by the upper bound of the bucket it falls in,
+         * capped at the recorded maximum.
+         * @param fraction The percentile as a fraction, e.g. 0.99
+         */
+        public long getPercentileNanos(double fraction) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min((1L << i) - 1, getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        Counter() {
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.text.Normalizer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Word-prefix index over student names for search-as-you-type on large rosters.
+ * <p>
+ * Names are folded to lower case without accents and split into words. The folded words
+ * of all names are kept in one char array, and a second array lists the words' offsets in
+ * alphabetical order, so the words starting with a prefix form one contiguous range found
+ * by binary search. A query matches a student when every query word is a prefix of some
+ * word of their name, in any order. The query word with the narrowest range gives the
+ * candidates; the other words stamp the rows in their ranges, so no candidate's name is
+ * read again.
+ * <p>
+ * {@link Matches} shows the result as an observable list over a reused buffer of roster
+ * rows. When a query extends the previous one, as it does while the user types, each
+ * word's range is searched inside its previous range. A keystroke thus costs a few binary
+ * searches plus one pass over the ranges of the query words.
+ */
+public class NameIndex {
+    private final List<Student> roster;
+    /** Folded names, each word followed by a space. */
+    private final char[] text;
+    /** Offsets of all words, sorted by word. */
+    private final int[] wordStart;
+    /** Row of each entry in {@link #wordStart}. */
+    private final int[] wordRow;
+
+    /**
+     * Builds the index. Takes a few seconds per million students, so build it off the
+     * UI thread for large rosters.
+     * @param roster Students to index; names must not change afterwards
+     */
+    public NameIndex(List<Student> roster) {
+        this.roster = roster;
+        int size = roster.size();
+        StringBuilder folded = new StringBuilder(size * 16);
+        int[] nameStart = new int[size + 1];
+        for (int row = 0; row < size; row++) {
+            nameStart[row] = folded.length();
+            fold(roster.get(row).getName(), folded);
+        }
+        nameStart[size] = folded.length();
+        text = new char[folded.length()];
+        folded.getChars(0, folded.length(), text, 0);
+
+        int words = 0;
+        for (char c : text) {
+            if (c == ' ') words++;
+        }
+        int[] starts = new int[words];
+        int[] rows = new int[words];
+        int word = 0;
+        for (int row = 0; row < size; row++) {
+            int start = nameStart[row];
+            for (int i = start; i < nameStart[row + 1]; i++) {
+                if (text[i] == ' ') {
+                    starts[word] = start;
+                    rows[word++] = row;
+                    start = i + 1;
+                }
+            }
+        }
+        sortWords(starts, rows);
+        wordStart = starts;
+        wordRow = rows;
+    }
+
+    /**
+     * @return A new, empty search result over this index
+     */
+    public Matches newMatches() {
+        return new Matches();
+    }
+
+    /**
+     * @return Number of students indexed
+     */
+    public int size() {
+        return roster.size();
+    }
+
+    /**
+     * Folds a name or query for matching: lower case, accents removed, and words separated
+     * by single spaces with a trailing space. Apostrophes are dropped, so "O'Brien" and
+     * "obrien" match; other characters that are not letters or digits separate words.
+     */
+    static String fold(CharSequence name) {
+        StringBuilder folded = new StringBuilder(name.length() + 1);
+        fold(name, folded);
+        return folded.toString();
+    }
+
+    private static void fold(CharSequence name, StringBuilder out) {
+        int wordStart = out.length();
+        for (int i = 0; i < name.length(); ) {
+            int c = Character.codePointAt(name, i);
+            i += Character.charCount(c);
+            if (c < 128) {
+                wordStart = appendFolded(c, out, wordStart);
+            } else {
+                String decomposed = Normalizer.normalize(new String(Character.toChars(c)), Normalizer.Form.NFD);
+                for (int j = 0; j < decomposed.length(); ) {
+                    int d = decomposed.codePointAt(j);
+                    j += Character.charCount(d);
+                    if (Character.getType(d) != Character.NON_SPACING_MARK) {
+                        wordStart = appendFolded(d, out, wordStart);
+                    }
+                }
+            }
+        }
+        if (out.length() > wordStart) out.append(' ');
+    }
+
+    /**
+     * @return Where the current word starts after appending c
+     */
+    private static int appendFolded(int c, StringBuilder out, int wordStart) {
+        if (c == '\'' || c == '\u2019') return wordStart;
+        if (!Character.isLetterOrDigit(c)) {
+            if (out.length() == wordStart) return wordStart;
+            out.append(' ');
+            return out.length();
+        }
+        // Letters that carry no combining mark after decomposition
+        switch (c) {
+            case '\u00df': // sharp s
+                out.append("ss");
+                break;
+            case '\u00e6': // ae
+            case '\u00c6':
+                out.append("ae");
+                break;
+            case '\u0153': // oe
+            case '\u0152':
+                out.append("oe");
+                break;
+            case '\u00f8': // o with stroke
+            case '\u00d8':
+                out.append('o');
+                break;
+            case '\u0142': // l with stroke
+            case '\u0141':
+                out.append('l');
+                break;
+            case '\u0111': // d with stroke
+            case '\u0110':
+                out.append('d');
+                break;
+            case '\u0131': // dotless i
+                out.append('i');
+                break;
+            default:
+                out.appendCodePoint(Character.toLowerCase(c));
+        }
+        return wordStart;
+    }
+
+    /**
+     * Compares the words at two offsets. The trailing space sorts before every letter, so a
+     * word sorts before its extensions.
+     */
+    private int compareWords(int a, int b) {
+        for (int i = 0; ; i++) {
+            char ca = text[a + i];
+            char cb = text[b + i];
+            if (ca != cb) return ca - cb;
+            if (ca == ' ') return 0;
+        }
+    }
+
+    /**
+     * @return 0 if the word at offset starts with prefix, otherwise the sign of word vs prefix
+     */
+    private int comparePrefix(int offset, char[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            char c = text[offset + i];
+            if (c != prefix[i]) return c == ' ' ? -1 : c - prefix[i];
+        }
+        return 0;
+    }
+
+    /**
+     * @return First position in [from, to) whose word compares to prefix at least (or, if
+     *         after is set, greater than) 0
+     */
+    private int bound(char[] prefix, int from, int to, boolean after) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(wordStart[mid], prefix);
+            if (cmp < 0 || (after && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts word offsets, and their rows alongside, by word with a bottom-up merge sort.
+     * Stable, so equal words stay in roster order.
+     */
+    private void sortWords(int[] starts, int[] rows) {
+        int n = starts.length;
+        int[] startBuffer = new int[n];
+        int[] rowBuffer = new int[n];
+        int[] fromStarts = starts;
+        int[] fromRows = rows;
+        int[] toStarts = startBuffer;
+        int[] toRows = rowBuffer;
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int mid = Math.min(low + width, n);
+                int high = Math.min(low + 2 * width, n);
+                int i = low;
+                int j = mid;
+                for (int k = low; k < high; k++) {
+                    if (i < mid && (j >= high || compareWords(fromStarts[i], fromStarts[j]) <= 0)) {
+                        toStarts[k] = fromStarts[i];
+                        toRows[k] = fromRows[i++];
+                    } else {
+                        toStarts[k] = fromStarts[j];
+                        toRows[k] = fromRows[j++];
+                    }
+                }
+            }
+            int[] swap = fromStarts;
+            fromStarts = toStarts;
+            toStarts = swap;
+            swap = fromRows;
+            fromRows = toRows;
+            toRows = swap;
+        }
+        if (fromStarts != starts) {
+            System.arraycopy(fromStarts, 0, starts, 0, n);
+            System.arraycopy(fromRows, 0, rows, 0, n);
+        }
+    }
+
+    /**
+     * The students matching a query, as an observable list for a {@code ListView}.
+     * <p>
+     * A blank query matches the whole roster in roster order. Otherwise students are listed
+     * alphabetically by the name word that the query word with the fewest candidates
+     * matched. Each {@link #setQuery} fills a second row buffer, swaps it in and reports
+     * the swap as one replacement whose removed list is a view of the previous buffer, so
+     * neither the matches nor the change event are copied. That removed list is valid only
+     * while the event is delivered. Use from one thread, like any JavaFX list.
+     */
+    public final class Matches extends ObservableListBase<Student> {
+        private int[] rows = new int[0];
+        private int size;
+        private boolean all;
+        private int[] spare = new int[0];
+        /**
+         * Per-row stamps of the current query: which query words a row has matched so far,
+         * and whether it is already listed. Stamps only grow, so nothing is cleared between
+         * queries.
+         */
+        private final int[] stamps = new int[roster.size()];
+        private int stamp;
+        private String query = "";
+        private char[][] lastWords = new char[0][];
+        private int[] lastLow = new int[0];
+        private int[] lastHigh = new int[0];
+
+        private Matches() {
+        }
+
+        @Override
+        public Student get(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index);
+            return roster.get(all ? index : rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return all ? roster.size() : size;
+        }
+
+        /**
+         * @return The roster row of a match
+         */
+        public int getRow(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index);
+            return all ? index : rows[index];
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Replaces the matches with those of a new query.
+         * @param query Words to look for, in any order; each may be the start of a name word
+         */
+        public void setQuery(String query) {
+            this.query = query;
+            String folded = fold(query);
+            if (folded.isEmpty()) {
+                lastWords = new char[0][];
+                update(true, rows, 0);
+                return;
+            }
+
+            // Find each word's range, inside its range for the previous query while the
+            // user keeps typing it
+            String[] split = folded.split(" ");
+            int count = split.length;
+            char[][] words = new char[count][];
+            int[] low = new int[count];
+            int[] high = new int[count];
+            int primary = 0;
+            for (int i = 0; i < count; i++) {
+                words[i] = split[i].toCharArray();
+                boolean narrowing = i < lastWords.length && startsWith(words[i], lastWords[i]);
+                int from = narrowing ? lastLow[i] : 0;
+                int to = narrowing ? lastHigh[i] : wordStart.length;
+                low[i] = bound(words[i], from, to, false);
+                high[i] = bound(words[i], low[i], to, true);
+                if (high[i] - low[i] < high[primary] - low[primary]) primary = i;
+            }
+            lastWords = words;
+            lastLow = low;
+            lastHigh = high;
+
+            if (stamp > Integer.MAX_VALUE - count - 1) {
+                Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            // A row stamped base + j has matched the first j other words
+            int base = stamp + 1;
+            int matched = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == primary) continue;
+                for (int w = low[i]; w < high[i]; w++) {
+                    int row = wordRow[w];
+                    if (matched == 0 || stamps[row] == base + matched - 1) stamps[row] = base + matched;
+                }
+                matched++;
+            }
+            int required = base + matched - 1;
+            int listed = base + matched;
+            stamp = listed;
+
+            int capacity = Math.min(roster.size(), high[primary] - low[primary]);
+            if (spare.length < capacity) {
+                spare = new int[Math.min(roster.size(), Math.max(capacity, spare.length * 2))];
+            }
+            int[] target = spare;
+            int found = 0;
+            for (int w = low[primary]; w < high[primary]; w++) {
+                int row = wordRow[w];
+                int rowStamp = stamps[row];
+                if (rowStamp == listed || (matched > 0 && rowStamp != required)) continue;
+                stamps[row] = listed;
+                target[found++] = row;
+            }
+            update(false, target, found);
+        }
+
+        private void update(boolean newAll, int[] newRows, int newSize) {
+            if (all && newAll) return;
+            List<Student> removed = all ? roster : new RowList(rows, size);
+            if (newRows != rows) {
+                spare = rows;
+                rows = newRows;
+            }
+            all = newAll;
+            size = newSize;
+            if (removed.isEmpty() && isEmpty()) return;
+            fireChange(new Replacement(removed, size()));
+        }
+
+        /**
+         * Students of a row buffer, for the removed list of a change.
+         */
+        private final class RowList extends AbstractList<Student> {
+            private final int[] rows;
+            private final int size;
+
+            RowList(int[] rows, int size) {
+                this.rows = rows;
+                this.size = size;
+            }
+
+            @Override
+            public Student get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index);
+                return roster.get(rows[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        /**
+         * Replacement of the whole list, the only change a query makes.
+         */
+        private final class Replacement extends ListChangeListener.Change<Student> {
+            private final List<Student> removed;
+            private final int addedSize;
+            private boolean current;
+
+            Replacement(List<Student> removed, int addedSize) {
+                super(Matches.this);
+                this.removed = removed;
+                this.addedSize = addedSize;
+            }
+
+            @Override
+            public boolean next() {
+                if (current) return false;
+                current = true;
+                return true;
+            }
+
+            @Override
+            public void reset() {
+                current = false;
+            }
+
+            @Override
+            public int getFrom() {
+                checkState();
+                return 0;
+            }
+
+            @Override
+            public int getTo() {
+                checkState();
+                return addedSize;
+            }
+
+            @Override
+            public List<Student> getRemoved() {
+                checkState();
+                return removed;
+            }
+
+            @Override
+            protected int[] getPermutation() {
+                checkState();
+                return new int[0];
+            }
+
+            private void checkState() {
+                if (!current) {
+                    throw new IllegalStateException("Invalid Change state: next() must be called before inspecting the Change.");
+                }
+            }
+        }
+    }
+
+    private static boolean startsWith(char[] word, char[] prefix) {
+        if (word.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (word[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads large roster files by parsing byte ranges of the file in parallel.
+ * <p>
+ * The file is cut into chunks that are mapped and scanned independently. Whether a chunk
+ * starts inside a quoted field follows from the parity of all quote characters before it
+ * (an escaped {@code ""} adds two, an opening or closing quote adds one), so a first pass
+ * counts quotes per chunk and a second pass moves each chunk start to the first newline
+ * that is outside quotes. The resulting ranges are parsed on a fork-join pool and the
+ * results are concatenated in file order, giving the same list as the sequential reader.
+ * Files below the threshold are read sequentially since splitting does not pay off.
+ */
+public class ParallelStudentCsvReader {
+    /** Default file size from which the parallel path is used. */
+    public static final long DEFAULT_THRESHOLD_BYTES = 16L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_BYTES = 1L * 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final long thresholdBytes;
+
+    /**
+     * Creates a reader that uses the common fork-join pool and the default threshold.
+     */
+    public ParallelStudentCsvReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD_BYTES);
+    }
+
+    /**
+     * @param pool Pool the chunks are parsed on
+     * @param thresholdBytes Files smaller than this are read sequentially
+     */
+    public ParallelStudentCsvReader(ForkJoinPool pool, long thresholdBytes) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        this.pool = pool;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    public long getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    /**
+     * Loads all students from a CSV file, skipping the header record.
+     * @param csvFile The CSV file to read
+     * @return List of students in file order
+     * @throws IOException If the file cannot be read
+     */
+    public List<Student> read(Path csvFile) throws IOException {
+        AttendanceEvents.CsvParse event = new AttendanceEvents.CsvParse();
+        event.begin();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Student> students;
+            long[] boundaries = size < thresholdBytes || pool.getParallelism() < 2
+                    ? null : findRecordBoundaries(channel, size);
+            if (boundaries == null) {
+                students = MappedStudentCsvReader.read(csvFile);
+            } else {
+                students = parseRanges(channel, boundaries);
+            }
+
+            MetricsRegistry metrics = MetricsRegistry.getDefault();
+            metrics.timer(MetricsRegistry.CSV_PARSE).stop(start);
+            metrics.counter(MetricsRegistry.CSV_PARSE_BYTES).add(size);
+            metrics.counter(MetricsRegistry.CSV_PARSE_RECORDS).add(students.size());
+            event.bytes = size;
+            event.records = students.size();
+            event.parallel = boundaries != null;
+            event.commit();
+            return students;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Computes record-aligned split points. The first entry is the end of the header
+     * record and the last entry is the file size.
+     * @return The boundaries, or null if the header does not fit in the first chunk
+     */
+    private long[] findRecordBoundaries(FileChannel channel, long size) throws IOException {
+        long chunkSize = Math.min(MAX_CHUNK_BYTES,
+                Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L) + 1));
+        int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+        // Pass 1: count quotes per chunk, in parallel
+        List<ForkJoinTask<Integer>> counts = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            long start = i * chunkSize;
+            long end = Math.min(size, start + chunkSize);
+            counts.add(pool.submit(() -> countQuotes(channel, start, end)));
+        }
+        boolean[] startsInQuotes = new boolean[chunks];
+        boolean inQuotes = false;
+        for (int i = 0; i < chunks; i++) {
+            startsInQuotes[i] = inQuotes;
+            inQuotes ^= (counts.get(i).join() & 1) == 1;
+        }
+
+        // Pass 2: move every chunk start to the next newline outside quotes, in parallel
+        List<ForkJoinTask<Long>> splits = new ArrayList<>(chunks);
+        for (int i = 1; i < chunks; i++) {
+            long start = i * chunkSize;
+            long end = Math.min(size, start + chunkSize);
+            boolean quoted = startsInQuotes[i];
+            splits.add(pool.submit(() -> findRecordStart(channel, start, end, quoted)));
+        }
+
+        long headerEnd = skipHeader(channel, Math.min(size, chunkSize));
+        if (headerEnd < 0) {
+            return null;
+        }
+
+        long[] boundaries = new long[chunks + 1];
+        int count = 0;
+        boundaries[count++] = headerEnd;
+        for (ForkJoinTask<Long> split : splits) {
+            long boundary = split.join();
+            // A chunk without a record start (one record spans it) merges into its neighbour
+            if (boundary > boundaries[count - 1] && boundary < size) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = size;
+
+        long[] result = new long[count];
+        System.arraycopy(boundaries, 0, result, 0, count);
+        return result;
+    }
+
+    private List<Student> parseRanges(FileChannel channel, long[] boundaries) {
+        int ranges = boundaries.length - 1;
+        List<ForkJoinTask<List<Student>>> parts = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            long start = boundaries[i];
+            long end = boundaries[i + 1];
+            parts.add(pool.submit(() -> parseRange(channel, start, end)));
+        }
+
+        // Merge in file order
+        List<List<Student>> parsed = new ArrayList<>(ranges);
+        int total = 0;
+        for (ForkJoinTask<List<Student>> part : parts) {
+            List<Student> students = part.join();
+            parsed.add(students);
+            total += students.size();
+        }
+        List<Student> students = new ArrayList<>(total);
+        for (List<Student> part : parsed) {
+            students.addAll(part);
+        }
+        return students;
+    }
+
+    private static List<Student> parseRange(FileChannel channel, long start, long end) {
+        long length = end - start;
+        if (length > Integer.MAX_VALUE) {
+            throw new UncheckedIOException(new IOException("Single CSV range too large to map: " + length + " bytes"));
+        }
+        MappedByteBuffer buffer = map(channel, start, length);
+        try {
+            List<Student> students = new ArrayList<>();
+            new MappedStudentCsvReader(buffer).parseRange(0, (int) length, students);
+            return students;
+        } finally {
+            MappedStudentCsvReader.unmap(buffer);
+        }
+    }
+
+    private static int countQuotes(FileChannel channel, long start, long end) {
+        MappedByteBuffer buffer = map(channel, start, end - start);
+        try {
+            int quotes = 0;
+            int length = (int) (end - start);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == '"') quotes++;
+            }
+            return quotes;
+        } finally {
+            MappedStudentCsvReader.unmap(buffer);
+        }
+    }
+
+    /**
+     * @return Offset just past the first newline outside quotes in the chunk, or -1 if there is none
+     */
+    private static long findRecordStart(FileChannel channel, long start, long end, boolean inQuotes) {
+        MappedByteBuffer buffer = map(channel, start, end - start);
+        try {
+            int length = (int) (end - start);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return start + i + 1;
+                }
+            }
+            return -1;
+        } finally {
+            MappedStudentCsvReader.unmap(buffer);
+        }
+    }
+
+    /**
+     * @return Offset of the first data record, or -1 if the header does not end within the range
+     */
+    private static long skipHeader(FileChannel channel, long length) {
+        MappedByteBuffer buffer = map(channel, 0, length);
+        try {
+            int end = new MappedStudentCsvReader(buffer).skipRecord(0, (int) length);
+            return end < length ? end : -1;
+        } finally {
+            MappedStudentCsvReader.unmap(buffer);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package edu.attendance.util;
+
+import javafx.scene.image.Image;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decodes student photos in the background and keeps them in a least-recently-used cache
+ * bounded by the decoded size in bytes. Photos are decoded at the size they are displayed,
+ * not at their full resolution.
+ */
+public class PhotoCache {
+    private static final Logger LOGGER = Logger.getLogger(PhotoCache.class.getName());
+
+    private final IntFunction<String> pathLookup;
+    private final long byteBudget;
+    private final double requestedSize;
+    private final ExecutorService decoder;
+    private final Map<Integer, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    /**
+     * @param pathLookup Returns the image path for a student id, or null if there is no photo
+     * @param byteBudget Maximum decoded size of all cached photos, in bytes
+     * @param requestedSize Width and height the photos are scaled to fit while decoding
+     */
+    public PhotoCache(IntFunction<String> pathLookup, long byteBudget, double requestedSize) {
+        this.pathLookup = pathLookup;
+        this.byteBudget = byteBudget;
+        this.requestedSize = requestedSize;
+        this.decoder = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "photo-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets a student's photo, decoding it in the background if it is not cached.
+     * @param studentId The student ID
+     * @return A future completed with the photo, or with null if the student has no photo
+     */
+    public synchronized CompletableFuture<Image> get(int studentId) {
+        Entry entry = entries.get(studentId);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.image;
+        }
+        misses.incrementAndGet();
+        return load(studentId);
+    }
+
+    /**
+     * Starts decoding a photo that is likely to be needed soon. Does nothing if it is cached.
+     * Prefetches do not count towards the hit rate.
+     * @param studentId The student ID
+     */
+    public synchronized void prefetch(int studentId) {
+        if (!entries.containsKey(studentId)) {
+            load(studentId);
+        }
+    }
+
+    /**
+     * Drops a cached photo, e.g. after the file on disk changed.
+     * @param studentId The student ID
+     */
+    public synchronized void invalidate(int studentId) {
+        Entry entry = entries.remove(studentId);
+        if (entry != null) {
+            cachedBytes -= entry.bytes;
+        }
+    }
+
+    private CompletableFuture<Image> load(int studentId) {
+        Entry entry = new Entry(CompletableFuture.supplyAsync(() -> decode(studentId), decoder));
+        entries.put(studentId, entry);
+        entry.image.thenAccept(image -> account(studentId, entry, image));
+        return entry.image;
+    }
+
+    private Image decode(int studentId) {
+        String imagePath = pathLookup.apply(studentId);
+        if (imagePath == null) return null;
+
+        AttendanceEvents.PhotoDecode event = new AttendanceEvents.PhotoDecode();
+        event.begin();
+        long start = System.nanoTime();
+        Image image = null;
+        try {
+            image = new Image(new File(imagePath).toURI().toString(),
+                              requestedSize, requestedSize, true, true);
+            if (image.isError()) {
+                LOGGER.log(Level.WARNING, "Failed to decode photo " + imagePath, image.getException());
+                image = null;
+            }
+            return image;
+        } finally {
+            decodes.incrementAndGet();
+            decodeNanos.addAndGet(MetricsRegistry.getDefault().timer(MetricsRegistry.PHOTO_DECODE).stop(start));
+            event.studentId = studentId;
+            event.decoded = image != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Adds a finished decode to the byte count and evicts least recently used photos
+     * until the cache fits its budget again.
+     */
+    private synchronized void account(int studentId, Entry entry, Image image) {
+        if (entries.get(studentId) != entry) return; // invalidated while decoding
+
+        entry.bytes = image == null ? 0 : (long) image.getWidth() * (long) image.getHeight() * 4;
+        cachedBytes += entry.bytes;
+        Iterator<Entry> it = entries.values().iterator();
+        while (cachedBytes > byteBudget && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == entry || !eldest.image.isDone()) continue;
+            cachedBytes -= eldest.bytes;
+            it.remove();
+        }
+    }
+
+    /**
+     * @return Fraction of lookups served from the cache
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getDecodeCount() {
+        return decodes.get();
+    }
+
+    /**
+     * @return Average decode time in milliseconds
+     */
+    public double getAverageDecodeMillis() {
+        long count = decodes.get();
+        return count == 0 ? 0.0 : decodeNanos.get() / 1e6 / count;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Stops the decoder threads.
+     */
+    public void shutdown() {
+        decoder.shutdownNow();
+    }
+
+    /**
+     * A cached photo and the decoded size it was accounted with.
+     */
+    private static final class Entry {
+        final CompletableFuture<Image> image;
+        long bytes;
+
+        Entry(CompletableFuture<Image> image) {
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.attendance.util;
+
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaException;
+import javafx.scene.media.MediaPlayer;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays name pronunciation clips from a bounded pool of prepared media players.
+ * <p>
+ * Players are created ahead of time for the students likely to be called, so a click
+ * starts playback without waiting for the media to open. Each player is reused for
+ * repeated plays, and the least recently used player is disposed once the pool is full,
+ * which keeps native media resources flat over a long session. Guesses at who will be
+ * picked next get a few slots of their own, so they never evict the players of students
+ * just shown; a guess that is shown or played moves into the main pool. Must be used from
+ * the JavaFX application thread.
+ */
+public class PronunciationPlayer {
+    private static final Logger LOGGER = Logger.getLogger(PronunciationPlayer.class.getName());
+
+    private final IntFunction<String> pathLookup;
+    private final int capacity;
+    private final int guessCapacity;
+    private final Map<Integer, MediaPlayer> players = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, MediaPlayer> guesses = new LinkedHashMap<>(16, 0.75f, true);
+    private MediaPlayer current;
+
+    /**
+     * @param pathLookup Returns the audio path for a student id, or null if there is no clip
+     * @param capacity Maximum number of prepared players kept at once
+     */
+    public PronunciationPlayer(IntFunction<String> pathLookup, int capacity) {
+        this(pathLookup, capacity, 0);
+    }
+
+    /**
+     * @param pathLookup Returns the audio path for a student id, or null if there is no clip
+     * @param capacity Maximum number of prepared players kept for students shown or played
+     * @param guessCapacity Maximum number of players kept for {@link #preloadGuess}
+     */
+    public PronunciationPlayer(IntFunction<String> pathLookup, int capacity, int guessCapacity) {
+        if (capacity < 1 || guessCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must be at least 1 and guess capacity not negative");
+        }
+        this.pathLookup = pathLookup;
+        this.capacity = capacity;
+        this.guessCapacity = guessCapacity;
+    }
+
+    /**
+     * Prepares a student's clip so that a later {@link #play} starts immediately.
+     * @param studentId The student ID
+     */
+    public void preload(int studentId) {
+        if (!players.containsKey(studentId)) {
+            playerFor(studentId);
+        }
+    }
+
+    /**
+     * Prepares the clip of a student who might be picked next, in a guess slot. The least
+     * recently guessed clip is disposed once the guess slots are full.
+     * @param studentId The student ID
+     */
+    public void preloadGuess(int studentId) {
+        if (guessCapacity == 0 || players.containsKey(studentId) || guesses.get(studentId) != null) return;
+        MediaPlayer created = createPlayer(studentId);
+        if (created == null) return;
+        guesses.put(studentId, created);
+        Iterator<MediaPlayer> it = guesses.values().iterator();
+        while (guesses.size() > guessCapacity) {
+            MediaPlayer eldest = it.next();
+            it.remove();
+            disposePlayer(eldest);
+        }
+    }
+
+    /**
+     * Plays a student's clip from the start, stopping any clip that is playing.
+     * @param studentId The student ID
+     * @return True if the student has a clip
+     */
+    public boolean play(int studentId) {
+        AttendanceEvents.AudioStart event = new AttendanceEvents.AudioStart();
+        event.begin();
+        long start = System.nanoTime();
+        boolean preloaded = players.containsKey(studentId) || guesses.containsKey(studentId);
+        MediaPlayer player = playerFor(studentId);
+        if (player == null) return false;
+
+        if (current != null && current != player) {
+            current.stop();
+        }
+        current = player;
+
+        // A replay of a playing clip only seeks, so the player never reports that it
+        // started; otherwise latency is measured until it does. A handler left by an
+        // earlier play that never started is replaced, so it cannot record this one.
+        player.setOnPlaying(null);
+        player.seek(player.getStartTime());
+        if (player.getStatus() == MediaPlayer.Status.PLAYING) {
+            recordStart(event, start, studentId, preloaded);
+        } else {
+            player.setOnPlaying(() -> {
+                player.setOnPlaying(null);
+                recordStart(event, start, studentId, preloaded);
+            });
+            player.play();
+        }
+        return true;
+    }
+
+    private static void recordStart(AttendanceEvents.AudioStart event, long start, int studentId,
+                                    boolean preloaded) {
+        MetricsRegistry.getDefault().timer(MetricsRegistry.AUDIO_START).stop(start);
+        event.studentId = studentId;
+        event.preloaded = preloaded;
+        event.commit();
+    }
+
+    private MediaPlayer playerFor(int studentId) {
+        MediaPlayer player = players.get(studentId);
+        if (player != null) return player;
+
+        // A guess that came true moves into the main pool
+        player = guesses.remove(studentId);
+        if (player == null) {
+            player = createPlayer(studentId);
+            if (player == null) return null;
+        }
+        players.put(studentId, player);
+        evictOverCapacity();
+        return player;
+    }
+
+    private MediaPlayer createPlayer(int studentId) {
+        String audioPath = pathLookup.apply(studentId);
+        if (audioPath == null) return null;
+
+        try {
+            MediaPlayer created = new MediaPlayer(new Media(new File(audioPath).toURI().toString()));
+            // Rewind after each play so the player can be reused
+            created.setOnEndOfMedia(created::stop);
+            created.setOnError(() -> {
+                LOGGER.log(Level.WARNING, "Error playing " + audioPath, created.getError());
+                release(studentId, created);
+            });
+            return created;
+        } catch (MediaException e) {
+            LOGGER.log(Level.WARNING, "Cannot open audio file " + audioPath, e);
+            return null;
+        }
+    }
+
+    private void evictOverCapacity() {
+        Iterator<MediaPlayer> it = players.values().iterator();
+        while (players.size() > capacity && it.hasNext()) {
+            MediaPlayer eldest = it.next();
+            if (eldest == current && eldest.getStatus() == MediaPlayer.Status.PLAYING) continue;
+            it.remove();
+            disposePlayer(eldest);
+        }
+    }
+
+    private void release(int studentId, MediaPlayer player) {
+        players.remove(studentId, player);
+        guesses.remove(studentId, player);
+        disposePlayer(player);
+    }
+
+    private void disposePlayer(MediaPlayer player) {
+        if (player == current) {
+            current = null;
+        }
+        player.dispose();
+    }
+
+    /**
+     * Drops a student's prepared player, e.g. after the clip on disk changed.
+     * @param studentId The student ID
+     */
+    public void invalidate(int studentId) {
+        MediaPlayer player = players.remove(studentId);
+        if (player != null) {
+            disposePlayer(player);
+        }
+        MediaPlayer guess = guesses.remove(studentId);
+        if (guess != null) {
+            disposePlayer(guess);
+        }
+    }
+
+    /**
+     * @return Number of prepared players currently held, including guesses
+     */
+    public int size() {
+        return players.size() + guesses.size();
+    }
+
+    /**
+     * Stops playback and disposes every player.
+     */
+    public void dispose() {
+        for (MediaPlayer player : players.values()) {
+            player.dispose();
+        }
+        for (MediaPlayer player : guesses.values()) {
+            player.dispose();
+        }
+        players.clear();
+        guesses.clear();
+        current = null;
+    }
+}
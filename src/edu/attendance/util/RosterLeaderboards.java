@@ -0,0 +1,127 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live rankings of a roster for the instructor panels: most absences, fewest calls and
+ * longest time since the last call.
+ * <p>
+ * Each ranking is an {@link IndexedHeap} over the roster rows, ordered by counters copied
+ * from the students into columns here. A mark updates that student's columns and moves
+ * their row in each heap in O(log n), and a panel reads its first N rows in O(N log N),
+ * so nothing is re-sorted. Whether a student is overdue depends on the day a panel is
+ * read, not on the heap order, so the rankings never need rebuilding when the date changes.
+ */
+public class RosterLeaderboards {
+    /** Days without a call after which a student counts as not called recently. */
+    public static final int OVERDUE_DAYS = 14;
+
+    private static final int NEVER_CALLED = Integer.MIN_VALUE;
+
+    private final List<Student> students;
+    private final int[] timesAbsent;
+    private final int[] timesCalled;
+    private final int[] lastCalledDay;
+    private final IndexedHeap mostAbsent;
+    private final IndexedHeap leastCalled;
+    private final IndexedHeap longestSinceCalled;
+
+    /**
+     * Ranks the roster in O(n). The list is not copied; it must not change size or order
+     * while the rankings are in use.
+     * @param students The roster
+     */
+    public RosterLeaderboards(List<Student> students) {
+        this.students = students;
+        int size = students.size();
+        timesAbsent = new int[size];
+        timesCalled = new int[size];
+        lastCalledDay = new int[size];
+        for (int row = 0; row < size; row++) {
+            copyCounters(row);
+        }
+        mostAbsent = new IndexedHeap(size, (a, b) -> {
+            int cmp = Integer.compare(timesAbsent[b], timesAbsent[a]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        leastCalled = new IndexedHeap(size, (a, b) -> {
+            int cmp = Integer.compare(timesCalled[a], timesCalled[b]);
+            if (cmp == 0) cmp = Integer.compare(lastCalledDay[a], lastCalledDay[b]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        longestSinceCalled = new IndexedHeap(size, (a, b) -> {
+            int cmp = Integer.compare(lastCalledDay[a], lastCalledDay[b]);
+            if (cmp == 0) cmp = Integer.compare(timesCalled[a], timesCalled[b]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+    }
+
+    /**
+     * Re-ranks a student after their attendance was marked.
+     * @param row The student's roster index
+     */
+    public synchronized void update(int row) {
+        if (row < 0 || row >= timesAbsent.length) return;
+        copyCounters(row);
+        mostAbsent.update(row);
+        leastCalled.update(row);
+        longestSinceCalled.update(row);
+    }
+
+    /**
+     * @param n Maximum number of students
+     * @return Students with the most absences, most first; students never absent are left out
+     */
+    public synchronized List<Student> getMostAbsent(int n) {
+        List<Student> result = new ArrayList<>(n);
+        for (int row : mostAbsent.top(n)) {
+            if (timesAbsent[row] == 0) break;
+            result.add(students.get(row));
+        }
+        return result;
+    }
+
+    /**
+     * @param n Maximum number of students
+     * @return Students called least often, fewest first; ties go to the one waiting longest
+     */
+    public synchronized List<Student> getLeastCalled(int n) {
+        return toStudents(leastCalled.top(n));
+    }
+
+    /**
+     * @param today The current date
+     * @param n Maximum number of students
+     * @return Students never called or not called in the last {@link #OVERDUE_DAYS} days,
+     *         longest waiting first
+     */
+    public synchronized List<Student> getNotCalledRecently(LocalDate today, int n) {
+        long cutoff = today.toEpochDay() - OVERDUE_DAYS;
+        List<Student> result = new ArrayList<>(n);
+        for (int row : longestSinceCalled.top(n)) {
+            if (lastCalledDay[row] != NEVER_CALLED && lastCalledDay[row] > cutoff) break;
+            result.add(students.get(row));
+        }
+        return result;
+    }
+
+    private void copyCounters(int row) {
+        Student student = students.get(row);
+        LocalDate lastCalled = student.getLastCalledDate();
+        timesAbsent[row] = student.getTimesAbsent();
+        timesCalled[row] = student.getTimesCalled();
+        lastCalledDay[row] = lastCalled == null ? NEVER_CALLED : (int) lastCalled.toEpochDay();
+    }
+
+    private List<Student> toStudents(int[] rows) {
+        List<Student> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(students.get(row));
+        }
+        return result;
+    }
+}
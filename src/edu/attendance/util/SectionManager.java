@@ -0,0 +1,216 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages the rosters of several course sections, loading each one only when it is opened.
+ * <p>
+ * Opened sections stay in a least-recently-used cache, so switching back to one of them
+ * is instant. The cache is bounded by the total number of students across its sections
+ * rather than by the number of sections, since one large lecture can outweigh several
+ * seminars. A section that is pushed out has its pending changes saved before it is
+ * dropped. The section opened last is never evicted, even if it alone exceeds the bound.
+ */
+public class SectionManager implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SectionManager.class.getName());
+
+    /** Name of the section stored directly in {@code resources/data}. */
+    public static final String DEFAULT_SECTION = "default";
+
+    private final StudentDataService rootService;
+    private final int maxCachedStudents;
+    private final long autosaveDebounceMillis;
+    private final AutosaveService.Listener autosaveListener;
+    private final Map<String, Section> sections = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedStudents;
+
+    /**
+     * @param rootService Service for the default section; section services are derived from it
+     * @param maxCachedStudents Total students kept loaded across all cached sections
+     * @param autosaveDebounceMillis Debounce window of each section's autosave
+     * @param autosaveListener Receives the save results of every section, or null
+     */
+    public SectionManager(StudentDataService rootService, int maxCachedStudents,
+                          long autosaveDebounceMillis, AutosaveService.Listener autosaveListener) {
+        if (maxCachedStudents < 0) {
+            throw new IllegalArgumentException("Student bound cannot be negative");
+        }
+        this.rootService = rootService;
+        this.maxCachedStudents = maxCachedStudents;
+        this.autosaveDebounceMillis = autosaveDebounceMillis;
+        this.autosaveListener = autosaveListener;
+    }
+
+    /**
+     * @return The default section followed by every section folder, alphabetically
+     */
+    public List<String> getSectionNames() {
+        List<String> names = new ArrayList<>();
+        names.add(DEFAULT_SECTION);
+        for (String name : rootService.listSections()) {
+            if (!name.equals(DEFAULT_SECTION)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns a section, loading it if it is not cached, and marks it as most recently used.
+     * Loading may evict other sections, which saves their pending changes first.
+     * @param name The section name
+     * @return The loaded section
+     */
+    public synchronized Section open(String name) {
+        Section section = sections.get(name);
+        if (section != null) {
+            return section;
+        }
+
+        StudentDataService service = DEFAULT_SECTION.equals(name) ? rootService : rootService.forSection(name);
+        List<Student> students = service.loadStudents();
+        section = new Section(name, service, students, autosaveDebounceMillis);
+        if (autosaveListener != null) {
+            section.autosave.addListener(autosaveListener);
+        }
+        sections.put(name, section);
+        cachedStudents += students.size();
+        LOGGER.info("Loaded section " + name + " with " + students.size() + " students");
+
+        evictOverBound();
+        return section;
+    }
+
+    /**
+     * @return True if the section is loaded and can be opened without touching the disk
+     */
+    public synchronized boolean isCached(String name) {
+        return sections.containsKey(name);
+    }
+
+    /**
+     * @return Number of students across all cached sections
+     */
+    public synchronized int getCachedStudentCount() {
+        return cachedStudents;
+    }
+
+    /**
+     * @return Names of the cached sections, least recently used first
+     */
+    public synchronized List<String> getCachedSectionNames() {
+        return Collections.unmodifiableList(new ArrayList<>(sections.keySet()));
+    }
+
+    private void evictOverBound() {
+        Iterator<Section> it = sections.values().iterator();
+        while (cachedStudents > maxCachedStudents && sections.size() > 1 && it.hasNext()) {
+            Section eldest = it.next();
+            it.remove();
+            cachedStudents -= eldest.students.size();
+            LOGGER.info("Evicting section " + eldest.name + " from the roster cache");
+            eldest.close();
+        }
+    }
+
+    /**
+     * Saves pending changes of every cached section and releases them.
+     */
+    @Override
+    public synchronized void close() {
+        for (Section section : sections.values()) {
+            section.close();
+        }
+        sections.clear();
+        cachedStudents = 0;
+    }
+
+    /**
+     * A loaded course section: its roster, the selector over it and its autosave.
+     */
+    public final class Section {
+        private final String name;
+        private final StudentDataService service;
+        private final List<Student> students;
+        private final StudentSelector selector;
+        private final AutosaveService autosave;
+        private final RosterLeaderboards leaderboards;
+        private NameIndex nameIndex;
+
+        private Section(String name, StudentDataService service, List<Student> students, long debounceMillis) {
+            this.name = name;
+            this.service = service;
+            this.students = Collections.unmodifiableList(students);
+            this.selector = new StudentSelector(this.students);
+            // Each save copies the counters of the live roster under the mark lock
+            this.autosave = new AutosaveService(service, () -> this.students, debounceMillis);
+            this.leaderboards = new RosterLeaderboards(this.students);
+            selector.getWeightEngine().startRolloverScheduler();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public StudentDataService getService() {
+            return service;
+        }
+
+        /**
+         * @return The roster; students can be marked but not added or removed
+         */
+        public List<Student> getStudents() {
+            return students;
+        }
+
+        public StudentSelector getSelector() {
+            return selector;
+        }
+
+        public AutosaveService getAutosave() {
+            return autosave;
+        }
+
+        /**
+         * @return Rankings for the statistics panels; update them after each mark
+         */
+        public RosterLeaderboards getLeaderboards() {
+            return leaderboards;
+        }
+
+        /**
+         * @return Name search index over the roster, built on first use and kept while the
+         *         section is cached
+         */
+        public synchronized NameIndex getNameIndex() {
+            if (nameIndex == null) {
+                nameIndex = new NameIndex(students);
+            }
+            return nameIndex;
+        }
+
+        /**
+         * Flushes pending changes to disk, then releases the section's threads and files.
+         */
+        private void close() {
+            try {
+                autosave.flush();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to save section " + name + "; changes remain in its event log", e);
+            }
+            selector.getWeightEngine().close();
+            if (service != rootService) {
+                service.close();
+            }
+        }
+    }
+}
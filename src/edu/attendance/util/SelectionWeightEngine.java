@@ -0,0 +1,217 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Keeps every student's selection weight precomputed in a {@link WeightedSampler}.
+ * <p>
+ * A weight depends on the date only while the student is inside the recency window
+ * ({@link Student#RECENCY_WINDOW_DAYS} days after their last call). The engine tracks
+ * those students in a bit set, so a mark recomputes one weight and a change of day
+ * recomputes only the recently called students. Picks read the cached weights and
+ * compare the clock against the next midnight, nothing more. The date comes from an
+ * injectable {@link Clock}.
+ */
+public class SelectionWeightEngine implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SelectionWeightEngine.class.getName());
+
+    private final List<Student> students;
+    private final Clock clock;
+    private final BitSet recent;
+    private WeightedSampler sampler;
+    private LocalDate today;
+    private long dayStartMillis;
+    private long nextDayStartMillis;
+    private long rolloverRecomputations;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Computes the initial weights. The list is not copied; it must not change size or
+     * order while the engine is in use.
+     * @param students The roster
+     * @param clock Source of the current date
+     */
+    public SelectionWeightEngine(List<Student> students, Clock clock) {
+        this.students = students;
+        this.clock = clock;
+        this.recent = new BitSet(students.size());
+        recomputeAll();
+    }
+
+    /**
+     * @return Number of students
+     */
+    public int size() {
+        return students.size();
+    }
+
+    /**
+     * @param row The student's roster index
+     * @return The cached selection weight
+     */
+    public synchronized double getWeight(int row) {
+        checkDate();
+        return sampler.getWeight(row);
+    }
+
+    /**
+     * @return The sum of all cached weights
+     */
+    public synchronized double getTotalWeight() {
+        checkDate();
+        return sampler.getTotalWeight();
+    }
+
+    /**
+     * Picks a roster index with probability proportional to its weight.
+     * @param u A uniform random number in [0, 1)
+     * @return The picked index, or -1 if the roster is empty
+     */
+    public synchronized int sample(double u) {
+        checkDate();
+        return sampler.sample(u);
+    }
+
+    /**
+     * Picks k distinct roster indices, each draw weighted by the remaining weights.
+     * @see WeightedSampler#sampleWithoutReplacement(int, DoubleSupplier)
+     */
+    public synchronized int[] sampleWithoutReplacement(int k, DoubleSupplier uniform) {
+        checkDate();
+        return sampler.sampleWithoutReplacement(k, uniform);
+    }
+
+    /**
+     * Recomputes one student's weight after their record changed.
+     * @param row The student's roster index
+     */
+    public synchronized void update(int row) {
+        checkDate();
+        refresh(row);
+    }
+
+    /**
+     * Recomputes every weight, e.g. after records were changed without {@link #update}.
+     */
+    public synchronized void recomputeAll() {
+        setToday(LocalDate.now(clock));
+        double[] weights = new double[students.size()];
+        recent.clear();
+        for (int row = 0; row < weights.length; row++) {
+            Student student = students.get(row);
+            weights[row] = student.getSelectionProbability(today);
+            recent.set(row, isRecent(student));
+        }
+        sampler = new WeightedSampler(weights);
+    }
+
+    /**
+     * Moves the weights to the current day if the date has changed since the last check.
+     * Called by the scheduler at midnight and, as a cheap fallback, before each pick.
+     * @return True if the date had changed
+     */
+    public synchronized boolean checkDate() {
+        long now = clock.millis();
+        if (now >= dayStartMillis && now < nextDayStartMillis) return false;
+
+        LocalDate newDay = LocalDate.now(clock);
+        if (newDay.isBefore(today)) {
+            // Moving back in time can bring students back into the recency window
+            recomputeAll();
+            return true;
+        }
+        setToday(newDay);
+        for (int row = recent.nextSetBit(0); row >= 0; row = recent.nextSetBit(row + 1)) {
+            refresh(row);
+            rolloverRecomputations++;
+        }
+        return true;
+    }
+
+    /**
+     * @return The day the cached weights are computed for
+     */
+    public synchronized LocalDate getToday() {
+        return today;
+    }
+
+    /**
+     * @return Number of students whose weight still depends on the date
+     */
+    public synchronized int getRecentCount() {
+        return recent.cardinality();
+    }
+
+    /**
+     * @return Total number of weights recomputed because the day changed
+     */
+    public synchronized long getRolloverRecomputations() {
+        return rolloverRecomputations;
+    }
+
+    /**
+     * Starts a background job that moves the weights to the new day just after midnight,
+     * so the first pick of the day does not pay for it.
+     */
+    public synchronized void startRolloverScheduler() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "selection-weight-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleRollover();
+    }
+
+    /**
+     * Stops the rollover scheduler.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void scheduledRollover() {
+        if (scheduler == null) return;
+        if (checkDate()) {
+            LOGGER.fine("Selection weights moved to " + today);
+        }
+        scheduleRollover();
+    }
+
+    private void scheduleRollover() {
+        long delay = Math.max(1, nextDayStartMillis - clock.millis());
+        scheduler.schedule(this::scheduledRollover, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(int row) {
+        Student student = students.get(row);
+        sampler.setWeight(row, student.getSelectionProbability(today));
+        recent.set(row, isRecent(student));
+    }
+
+    private boolean isRecent(Student student) {
+        LocalDate lastCalledDate = student.getLastCalledDate();
+        return lastCalledDate != null
+                && today.toEpochDay() - lastCalledDate.toEpochDay() < Student.RECENCY_WINDOW_DAYS;
+    }
+
+    private void setToday(LocalDate day) {
+        today = day;
+        dayStartMillis = day.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        nextDayStartMillis = day.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
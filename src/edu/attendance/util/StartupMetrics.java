@@ -0,0 +1,54 @@
+package edu.attendance.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Measures cold start: the time from process start until the first frame is rendered and
+ * until the application is interactive. Each milestone is recorded once, into the
+ * {@link MetricsRegistry} and the log.
+ * <p>
+ * The process start time comes from the operating system, so JVM startup and class
+ * loading are included; where it is unavailable, the time this class was first used
+ * stands in for it.
+ */
+public final class StartupMetrics {
+    private static final Logger LOGGER = Logger.getLogger(StartupMetrics.class.getName());
+    private static final Instant PROCESS_START = ProcessHandle.current().info().startInstant()
+            .orElseGet(Instant::now);
+    private static final AtomicBoolean FIRST_FRAME = new AtomicBoolean();
+    private static final AtomicBoolean INTERACTIVE = new AtomicBoolean();
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * @return Time elapsed since the process started
+     */
+    public static Duration sinceProcessStart() {
+        return Duration.between(PROCESS_START, Instant.now());
+    }
+
+    /**
+     * Records that the main window has rendered its first frame. Later calls are ignored.
+     */
+    public static void firstFrame() {
+        record(FIRST_FRAME, MetricsRegistry.STARTUP_FIRST_FRAME, "First frame");
+    }
+
+    /**
+     * Records that the roster is shown and can be used. Later calls are ignored.
+     */
+    public static void interactive() {
+        record(INTERACTIVE, MetricsRegistry.STARTUP_INTERACTIVE, "Interactive");
+    }
+
+    private static void record(AtomicBoolean once, String timerName, String label) {
+        if (!once.compareAndSet(false, true)) return;
+        Duration elapsed = sinceProcessStart();
+        MetricsRegistry.getDefault().timer(timerName).record(elapsed.toNanos());
+        LOGGER.info(label + " " + elapsed.toMillis() + " ms after process start");
+    }
+}
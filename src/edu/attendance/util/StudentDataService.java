@@ -1,37 +1,161 @@
 package edu.attendance.util;
 
+import edu.attendance.model.AttendanceStatus;
+import edu.attendance.model.RosterStore;
 import edu.attendance.model.Student;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
  * Service class to handle loading and saving student data from/to CSV files.
+ * Attendance marks are appended to an event log as they happen and replayed over the
+ * CSV snapshot on load; once the log grows past a threshold it is folded into a new
+ * snapshot in the background.
+ * <p>
+ * A save normally writes only the students changed since the previous save, by patching
+ * their fixed-width records in the binary snapshot and appending their marks to the
+ * history file. The CSV file, whose rows have no fixed width, is rewritten with a full
+ * save once the patched records reach a quarter of the roster, and when the service is
+ * closed. Until then the event log keeps the marks the CSV file does not have, so they
+ * are still replayed if the binary snapshot is lost or no longer matches the CSV file;
+ * a snapshot that is ahead of a CSV file changed since is also merged into it by id.
  */
 public class StudentDataService {
     private static final Logger LOGGER = Logger.getLogger(StudentDataService.class.getName());
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String CSV_HEADER = "id,name,favorite_quote,times_called,times_present,times_absent,times_excused,last_called_date";
+    private static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 1024L * 1024;
+    /** A full save runs once the records patched since the last one reach 1/n of the roster. */
+    private static final int FULL_SAVE_DIVISOR = 4;
     private final Path dataDir;
     private final Path csvFilePath;
+    private final Path eventLogPath;
+    private final Path binarySnapshotPath;
+    private final Path historyPath;
+    private final Path sectionsDir;
     private final Path imagesDir;
     private final Path audioDir;
+    private final MediaIndex imageIndex;
+    private final MediaIndex audioIndex;
+    private final boolean ownsMediaIndexes;
+    private ParallelStudentCsvReader csvReader = new ParallelStudentCsvReader();
+    
+    private final Object logLock = new Object();
+    /** Guards marks made through {@link #recordAttendance} and the dirty flags a save reads. */
+    private final Object markLock = new Object();
+    private final Object saveLock = new Object();
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+    private AttendanceEventLog eventLog;
+    private EventLogWriter logWriter;
+    private AttendanceHistory history;
+    private ExecutorService compactionExecutor;
+    private long compactionThresholdBytes = DEFAULT_COMPACTION_THRESHOLD_BYTES;
+    private volatile List<Student> roster;
+    /** Student ids by row of the binary snapshot, or null if the next save must be a full one. */
+    private int[] snapshotIds;
+    /** Records patched into the binary snapshot since the CSV file was last written. */
+    private int recordsAheadOfCsv;
+    private boolean patchedSinceLoad;
+    /** Log bytes covered by the binary snapshot but kept because the CSV file lacks them. */
+    private volatile long retainedLogBytes;
     
     public StudentDataService() {
         // Get the application's base directory
-        String baseDir = System.getProperty("user.dir");
-        dataDir = Paths.get(baseDir, "resources", "data");
+        this(Paths.get(System.getProperty("user.dir")));
+    }
+    
+    /**
+     * Creates a service for the {@code resources} folder under the given base directory.
+     * @param baseDir Directory containing {@code resources/data}, {@code resources/images} and {@code resources/audio}
+     */
+    public StudentDataService(Path baseDir) {
+        this(baseDir.resolve("resources").resolve("data"),
+             baseDir.resolve("resources").resolve("images"),
+             baseDir.resolve("resources").resolve("audio"),
+             null, null);
+    }
+    
+    /**
+     * @param imageIndex Photo index shared with another service, or null to create and own one
+     * @param audioIndex Audio index shared with another service, or null to create and own one
+     */
+    private StudentDataService(Path dataDir, Path imagesDir, Path audioDir,
+                               MediaIndex imageIndex, MediaIndex audioIndex) {
+        this.dataDir = dataDir;
         csvFilePath = dataDir.resolve("students.csv");
-        imagesDir = Paths.get(baseDir, "resources", "images");
-        audioDir = Paths.get(baseDir, "resources", "audio");
+        eventLogPath = dataDir.resolve("students.log");
+        binarySnapshotPath = dataDir.resolve("students.bin");
+        historyPath = dataDir.resolve("students.history");
+        sectionsDir = dataDir.resolve("sections");
+        this.imagesDir = imagesDir;
+        this.audioDir = audioDir;
         
         // Create directories if they don't exist
         createDirectoriesIfNotExist();
+        
+        // Index available photos and name clips once, then follow changes
+        ownsMediaIndexes = imageIndex == null;
+        if (ownsMediaIndexes) {
+            imageIndex = new MediaIndex(imagesDir, ".jpg");
+            audioIndex = new MediaIndex(audioDir, ".mp3");
+            imageIndex.start();
+            audioIndex.start();
+        }
+        this.imageIndex = imageIndex;
+        this.audioIndex = audioIndex;
+    }
+    
+    /**
+     * Creates a service for a course section. Each section keeps its own CSV file, event log
+     * and binary snapshot in {@code resources/data/sections/<name>}, and shares this service's
+     * photos and name clips. Closing the section service leaves this service untouched.
+     * @param name The section name; letters, digits, '.', '_' and '-' only
+     * @return A service for the section's data files
+     */
+    public StudentDataService forSection(String name) {
+        if (!isValidSectionName(name)) {
+            throw new IllegalArgumentException("Invalid section name: " + name);
+        }
+        return new StudentDataService(sectionsDir.resolve(name), imagesDir, audioDir, imageIndex, audioIndex);
+    }
+    
+    /**
+     * Lists the course sections that have a data folder.
+     * @return Section names in alphabetical order
+     */
+    public List<String> listSections() {
+        List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(sectionsDir)) return names;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(sectionsDir, Files::isDirectory)) {
+            for (Path dir : stream) {
+                String name = dir.getFileName().toString();
+                if (isValidSectionName(name)) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list course sections in " + sectionsDir, e);
+        }
+        Collections.sort(names);
+        return names;
+    }
+    
+    private static boolean isValidSectionName(String name) {
+        return name != null && !name.isEmpty() && !name.startsWith(".") && name.matches("[A-Za-z0-9._-]+");
     }
     
     private void createDirectoriesIfNotExist() {
@@ -43,7 +167,7 @@ public class StudentDataService {
             // Create empty CSV file if it doesn't exist
             if (!Files.exists(csvFilePath)) {
                 try (BufferedWriter writer = Files.newBufferedWriter(csvFilePath)) {
-                    writer.write("id,name,favorite_quote,times_called,times_present,times_absent,times_excused,last_called_date");
+                    writer.write(CSV_HEADER);
                     writer.newLine();
                 }
             }
@@ -54,106 +178,376 @@ public class StudentDataService {
     }
     
     /**
-     * Loads students from the CSV file.
+     * Sets the file size from which rosters are parsed in parallel.
+     * Smaller files stay on the sequential path.
+     * @param thresholdBytes Minimum file size in bytes for parallel loading
+     */
+    public void setParallelLoadThreshold(long thresholdBytes) {
+        csvReader = new ParallelStudentCsvReader(ForkJoinPool.commonPool(), thresholdBytes);
+    }
+    
+    /**
+     * Sets the event log size from which the log is folded into a new snapshot.
+     * @param thresholdBytes Log size in bytes that triggers a background compaction
+     */
+    public void setCompactionThreshold(long thresholdBytes) {
+        this.compactionThresholdBytes = thresholdBytes;
+    }
+    
+    /**
+     * Loads students and replays the attendance event log over them.
+     * The binary snapshot is used when it matches the CSV file; otherwise the CSV is
+     * memory-mapped and parsed in place, in parallel chunks for large files.
      * @return List of students
      */
     public List<Student> loadStudents() {
-        List<Student> students = new ArrayList<>();
-        
-        try (BufferedReader reader = Files.newBufferedReader(csvFilePath)) {
-            // Skip header
-            reader.readLine();
+        AttendanceEvents.RosterLoad event = new AttendanceEvents.RosterLoad();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            boolean binary = openBinarySnapshot();
+            List<Student> students = binary
+                    ? BinaryStudentSnapshot.read(binarySnapshotPath)
+                    : csvReader.read(csvFilePath);
+            if (!binary) {
+                mergeSnapshotAheadOfCsv(students);
+            }
+            setSnapshotRows(binary ? students : null);
             
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    // Split the line while respecting quoted fields
-                    List<String> data = parseCsvLine(line);
-                    if (data.size() < 7) {
-                        LOGGER.warning("Invalid data format in CSV: " + line);
-                        continue;
-                    }
-                    
-                    int id = Integer.parseInt(data.get(0));
-                    String name = data.get(1);
-                    String quote = data.get(2);
-                    int timesCalled = Integer.parseInt(data.get(3));
-                    int timesPresent = Integer.parseInt(data.get(4));
-                    int timesAbsent = Integer.parseInt(data.get(5));
-                    int timesExcused = Integer.parseInt(data.get(6));
-                    
-                    LocalDate lastCalledDate = null;
-                    if (data.size() > 7 && !data.get(7).trim().isEmpty()) {
-                        try {
-                            lastCalledDate = LocalDate.parse(data.get(7), DATE_FORMATTER);
-                        } catch (DateTimeParseException e) {
-                            LOGGER.warning("Invalid date format in CSV: " + data.get(7));
-                        }
-                    }
-                    
-                    Student student = new Student(id, name, quote, timesCalled, 
-                                                 timesPresent, timesAbsent, timesExcused, lastCalledDate);
-                    students.add(student);
-                } catch (NumberFormatException e) {
-                    LOGGER.log(Level.WARNING, "Error parsing student data: " + line, e);
-                }
+            // Apply marks recorded since the snapshot was written
+            AttendanceHistory loadedHistory = readHistory();
+            int replayed = AttendanceEventLog.replay(eventLogPath, indexById(students), loadedHistory);
+            if (replayed > 0) {
+                LOGGER.info("Replayed " + replayed + " attendance events from " + eventLogPath);
             }
+            
+            roster = Collections.unmodifiableList(new ArrayList<>(students));
+            setHistory(loadedHistory);
+            openEventLog();
+            recordLoad(event, start, binary, students.size(), replayed);
+            return students;
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error reading student data", e);
             throw new RuntimeException("Failed to load student data", e);
         }
-        
-        return students;
     }
     
     /**
-     * Parses a CSV line while respecting quoted fields.
-     * @param line The CSV line to parse
-     * @return List of parsed fields
+     * Loads the roster into a column-oriented {@link RosterStore} for very large rosters,
+     * then replays the attendance event log over it. The binary snapshot is read straight
+     * into the store's arrays; a CSV roster is parsed first and then copied.
+     * Marks recorded through {@link #recordAttendance} on the store's views are logged and
+     * compacted like any other student.
+     * @return The roster store
      */
-    private List<String> parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+    public RosterStore loadRosterStore() {
+        AttendanceEvents.RosterLoad event = new AttendanceEvents.RosterLoad();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            boolean binary = openBinarySnapshot();
+            RosterStore store = binary
+                    ? BinaryStudentSnapshot.readRoster(binarySnapshotPath)
+                    : RosterStore.of(csvReader.read(csvFilePath));
+            List<Student> views = store.asList();
+            if (!binary) {
+                mergeSnapshotAheadOfCsv(views);
+            }
+            setSnapshotRows(binary ? views : null);
             
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    // Escaped quote
-                    currentField.append('"');
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+            AttendanceHistory loadedHistory = readHistory();
+            int replayed = AttendanceEventLog.replay(eventLogPath, indexById(views), loadedHistory);
+            if (replayed > 0) {
+                LOGGER.info("Replayed " + replayed + " attendance events from " + eventLogPath);
             }
+            
+            roster = views;
+            setHistory(loadedHistory);
+            openEventLog();
+            recordLoad(event, start, binary, store.size(), replayed);
+            return store;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error reading student data", e);
+            throw new RuntimeException("Failed to load student data", e);
         }
+    }
+    
+    /**
+     * Completes an interrupted patch of the binary snapshot and checks whether the snapshot
+     * can be loaded instead of the CSV.
+     */
+    private boolean openBinarySnapshot() throws IOException {
+        BinaryStudentSnapshot.recover(binarySnapshotPath);
+        return BinaryStudentSnapshot.isCurrent(binarySnapshotPath, csvFilePath);
+    }
+
+    /**
+     * Keeps saved marks when the CSV file was copied, restored or edited while the binary
+     * snapshot held newer records than it. Patched records only ever gain calls, so a
+     * student whose snapshot record has more calls than their CSV row takes the snapshot's
+     * counters; names, quotes and the set of students come from the CSV file. The
+     * snapshot is left in place until the next save, which is a full one.
+     * @param students Students just read from the CSV file
+     */
+    private void mergeSnapshotAheadOfCsv(List<Student> students) throws IOException {
+        int ahead = BinaryStudentSnapshot.getRecordsAheadOfCsv(binarySnapshotPath);
+        if (ahead == 0) return;
         
-        fields.add(currentField.toString());
-        return fields;
+        Map<Integer, Student> byId = indexById(students);
+        int merged = 0;
+        for (Student saved : BinaryStudentSnapshot.read(binarySnapshotPath)) {
+            Student student = byId.get(saved.getId());
+            if (student != null && saved.getTimesCalled() > student.getTimesCalled()) {
+                student.restoreCounters(saved.getTimesCalled(), saved.getTimesPresent(), saved.getTimesAbsent(),
+                        saved.getTimesExcused(), saved.getLastCalledDate());
+                merged++;
+            }
+        }
+        LOGGER.warning(csvFilePath + " was changed while " + ahead + " saved student records were newer than it;"
+                + " merged the newer counters of " + merged + " students from " + binarySnapshotPath);
+    }
+
+    /**
+     * Remembers which student is in which row of the binary snapshot that was just loaded.
+     * @param students The loaded roster, or null if it was not loaded from the snapshot
+     */
+    private void setSnapshotRows(List<Student> students) {
+        int[] ids = null;
+        if (students != null) {
+            ids = new int[students.size()];
+            for (int row = 0; row < ids.length; row++) {
+                ids[row] = students.get(row).getId();
+            }
+        }
+        int ahead = students != null ? BinaryStudentSnapshot.getRecordsAheadOfCsv(binarySnapshotPath) : 0;
+        synchronized (saveLock) {
+            snapshotIds = ids;
+            recordsAheadOfCsv = ahead;
+            patchedSinceLoad = false;
+        }
+    }
+
+    private static void recordLoad(AttendanceEvents.RosterLoad event, long start, boolean binary,
+                                   int students, int replayed) {
+        MetricsRegistry.getDefault().timer(MetricsRegistry.ROSTER_LOAD).stop(start);
+        event.source = binary ? "binary" : "csv";
+        event.students = students;
+        event.replayedEvents = replayed;
+        event.commit();
     }
     
     /**
-     * Saves students to the CSV file.
+     * Records an attendance outcome for a student and queues it for the event log, so the
+     * mark survives a crash even if the roster is never saved explicitly. The mark is
+     * applied at once and a background writer appends and syncs its record, so the caller,
+     * usually the UI thread, never waits for the disk; see {@link #flushAttendanceRecords}.
+     * @param student The student being marked
+     * @param status The outcome to record
+     */
+    public void recordAttendance(Student student, AttendanceStatus status) {
+        long start = System.nanoTime();
+        EventLogWriter writer = getLogWriter();
+        synchronized (markLock) {
+            student.mark(status);
+            int day = (int) student.getLastCalledDate().toEpochDay();
+            writer.submit(student.getId(), status, day, student.getTimesCalled(), student.getTimesPresent(),
+                    student.getTimesAbsent(), student.getTimesExcused(), day);
+        }
+        MetricsRegistry.getDefault().timer(MetricsRegistry.ATTENDANCE_RECORD).stop(start);
+    }
+    
+    /**
+     * Waits until the marks recorded through {@link #recordAttendance} so far are durable
+     * in the event log.
+     * @param timeoutMillis Longest time to wait
+     * @return True if every mark was written in time
+     */
+    public boolean flushAttendanceRecords(long timeoutMillis) {
+        EventLogWriter writer;
+        synchronized (this) {
+            writer = logWriter;
+        }
+        try {
+            return writer == null || writer.flush(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private synchronized EventLogWriter getLogWriter() {
+        if (logWriter == null) {
+            logWriter = new EventLogWriter(this::appendAttendanceRecords,
+                    "attendance-event-log-" + dataDir.getFileName());
+        }
+        return logWriter;
+    }
+    
+    /**
+     * Appends marks that the caller has already applied to the loaded roster, with one
+     * write and one sync for the whole batch. Used where many marks arrive at once and
+     * the caller applies them under its own locking, and by the background writer of
+     * {@link #recordAttendance}.
+     * @param records Records encoded with {@link AttendanceEventLog#encode}
+     */
+    public void appendAttendanceRecords(ByteBuffer records) {
+        try {
+            AttendanceEventLog log = openEventLog();
+            AttendanceHistory dayHistory = getAttendanceHistory();
+            ByteBuffer marks = records.duplicate();
+            synchronized (logLock) {
+                log.appendEncoded(records);
+                log.sync();
+                AttendanceEventLog.recordHistory(marks, dayHistory);
+            }
+            scheduleCompactionIfNeeded(log.size());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error writing attendance events", e);
+            throw new RuntimeException("Failed to record attendance", e);
+        }
+    }
+    
+    /**
+     * Saves students. If the binary snapshot holds the same students in the same rows, only
+     * the records of students changed since the last save are written, followed by a single
+     * sync; otherwise, or once the CSV file has fallen too far behind, the CSV file and the
+     * binary snapshot are rewritten.
+     * Events already in the log are covered by the saved state; a full save drops them from
+     * the log, a patch keeps them until the CSV file is rewritten.
+     * <p>
+     * The counters written are copied under the mark lock when the save starts, so the list
+     * may be the live roster as long as its size and order do not change; marks made after
+     * the copy are picked up by the next save.
      * @param students List of students to save
      */
     public void saveStudents(List<Student> students) {
+        save(students, false);
+    }
+    
+    private void save(List<Student> students, boolean full) {
         if (students == null) {
             throw new IllegalArgumentException("Students list cannot be null");
         }
         
+        synchronized (saveLock) {
+            AttendanceEvents.RosterSave event = new AttendanceEvents.RosterSave();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                // Marks are applied before they are appended, so every event before this
+                // position has already been applied to the students and the history
+                AttendanceEventLog log = openEventLog();
+                AttendanceHistory dayHistory = getAttendanceHistory();
+                long coveredLogSize;
+                synchronized (logLock) {
+                    coveredLogSize = log.size();
+                }
+                
+                // Replaying a retained log longer than the CSV file costs more than rewriting it
+                boolean logTooLong = Files.exists(csvFilePath) && coveredLogSize > Files.size(csvFilePath);
+                int written = full || logTooLong ? -1 : writeChangedRecords(students);
+                event.full = written < 0;
+                if (written < 0) {
+                    // Marks made after the copy set their flag again and are patched by a later save
+                    List<Student> snapshot;
+                    synchronized (markLock) {
+                        for (Student student : students) {
+                            student.clearDirty();
+                        }
+                        snapshot = RosterStore.of(students).asList();
+                    }
+                    writeCsvSnapshot(snapshot);
+                    writeBinarySnapshot(snapshot);
+                    written = snapshot.size();
+                }
+                dayHistory.saveChanges(historyPath);
+                if (event.full) {
+                    log.truncatePrefix(coveredLogSize);
+                    retainedLogBytes = 0;
+                } else {
+                    // The CSV file lacks the patched records, so their marks stay in the log
+                    // until the next full save
+                    retainedLogBytes = coveredLogSize;
+                }
+                
+                MetricsRegistry.getDefault().timer(MetricsRegistry.ROSTER_SAVE).stop(start);
+                event.students = written;
+                event.coveredLogBytes = coveredLogSize;
+                event.commit();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error compacting attendance event log", e);
+                throw new RuntimeException("Failed to save student data", e);
+            }
+        }
+    }
+    
+    /**
+     * Patches the records of changed students into the binary snapshot. Dirty flags are
+     * cleared and the records read under the mark lock, so a mark made meanwhile either is
+     * in the record or sets the flag again.
+     * @return Number of records written, or -1 if a full save is needed instead
+     */
+    private int writeChangedRecords(List<Student> students) {
+        int[] ids = snapshotIds;
+        if (ids == null || ids.length != students.size()) {
+            return -1;
+        }
+        int[] rows = new int[16];
+        int changed = 0;
+        for (int row = 0; row < ids.length; row++) {
+            Student student = students.get(row);
+            if (student.getId() != ids[row]) {
+                return -1;
+            }
+            if (student.isDirty()) {
+                if (changed == rows.length) {
+                    rows = Arrays.copyOf(rows, changed * 2);
+                }
+                rows[changed++] = row;
+            }
+        }
+        if (changed == 0) {
+            return 0;
+        }
+        if ((long) (recordsAheadOfCsv + changed) * FULL_SAVE_DIVISOR >= ids.length) {
+            return -1;
+        }
+        
+        ByteBuffer entries = ByteBuffer.allocate(changed * BinaryStudentSnapshot.PATCH_ENTRY_SIZE);
+        synchronized (markLock) {
+            for (int i = 0; i < changed; i++) {
+                Student student = students.get(rows[i]);
+                student.clearDirty();
+                BinaryStudentSnapshot.putPatchEntry(entries, rows[i], student);
+            }
+        }
+        entries.flip();
+        try {
+            BinaryStudentSnapshot.patch(binarySnapshotPath, entries, recordsAheadOfCsv + changed);
+        } catch (IOException e) {
+            // The cleared flags are lost, so the next save rewrites everything
+            snapshotIds = null;
+            LOGGER.log(Level.SEVERE, "Error saving changed student records", e);
+            throw new RuntimeException("Failed to save student data", e);
+        }
+        recordsAheadOfCsv += changed;
+        patchedSinceLoad = true;
+        return changed;
+    }
+    
+    /**
+     * Writes the CSV snapshot through a temporary file and an atomic move.
+     */
+    private void writeCsvSnapshot(List<Student> students) {
+        // Until the binary snapshot is rewritten, its rows no longer match the CSV
+        snapshotIds = null;
+        
         // Create a temporary file for atomic write
         Path tempFile = csvFilePath.resolveSibling("students.tmp");
         
         try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
             // Write header
-            writer.write("id,name,favorite_quote,times_called,times_present,times_absent,times_excused,last_called_date");
+            writer.write(CSV_HEADER);
             writer.newLine();
             
             // Write student data
@@ -175,18 +569,188 @@ public class StudentDataService {
                 writer.write(sb.toString());
                 writer.newLine();
             }
+        } catch (IOException e) {
+            deleteTempFile(tempFile);
+            LOGGER.log(Level.SEVERE, "Error saving student data", e);
+            throw new RuntimeException("Failed to save student data", e);
+        }
+        
+        try {
+            // The snapshot must be durable before the event log is truncated
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
             
             // Atomically move the temporary file to the target file
             Files.move(tempFile, csvFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error saving student data", e);
+            deleteTempFile(tempFile);
+            throw new RuntimeException("Failed to save student data", e);
+        }
+    }
+    
+    /**
+     * Writes the binary snapshot used for fast startup. A failure only costs startup time,
+     * since a snapshot that does not match the CSV file is ignored on load.
+     */
+    private void writeBinarySnapshot(List<Student> students) {
+        try {
+            BinaryStudentSnapshot.write(binarySnapshotPath, students, csvFilePath);
+            int[] ids = new int[students.size()];
+            for (int row = 0; row < ids.length; row++) {
+                ids[row] = students.get(row).getId();
+            }
+            snapshotIds = ids;
+            recordsAheadOfCsv = 0;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write binary snapshot; the CSV will be loaded instead", e);
+        }
+    }
+    
+    private static void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed to delete temporary file", ex);
+        }
+    }
+    
+    private void scheduleCompactionIfNeeded(long logSize) {
+        List<Student> students = roster;
+        if (students == null || logSize - retainedLogBytes < compactionThresholdBytes
+                || !compactionPending.compareAndSet(false, true)) {
+            return;
+        }
+        
+        synchronized (this) {
+            if (compactionExecutor == null) {
+                compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "attendance-log-compaction");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            compactionExecutor.execute(() -> {
+                try {
+                    saveStudents(students);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Background compaction failed; events remain in the log", e);
+                } finally {
+                    compactionPending.set(false);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Returns the per-day attendance history of this roster, kept up to date by
+     * {@link #recordAttendance} and {@link #appendAttendanceRecords} and saved with the
+     * roster. It is loaded with the roster, or on first use from the history file and the
+     * event log.
+     * @return The attendance history
+     */
+    public synchronized AttendanceHistory getAttendanceHistory() {
+        if (history == null) {
             try {
-                Files.deleteIfExists(tempFile);
-            } catch (IOException ex) {
-                LOGGER.log(Level.WARNING, "Failed to delete temporary file", ex);
+                AttendanceHistory loaded = readHistory();
+                AttendanceEventLog.replay(eventLogPath, null, loaded);
+                history = loaded;
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error reading attendance history", e);
+                throw new RuntimeException("Failed to load attendance history", e);
+            }
+        }
+        return history;
+    }
+    
+    private synchronized void setHistory(AttendanceHistory loaded) {
+        history = loaded;
+    }
+    
+    /**
+     * Reads the saved history, or starts an empty one from the term start given by the
+     * {@code attendance.termStart} property (ISO date, default January 1 of this year).
+     */
+    private AttendanceHistory readHistory() throws IOException {
+        if (Files.exists(historyPath)) {
+            return AttendanceHistory.load(historyPath);
+        }
+        String termStart = System.getProperty("attendance.termStart");
+        return new AttendanceHistory(termStart != null
+                ? LocalDate.parse(termStart)
+                : LocalDate.now().withDayOfYear(1));
+    }
+    
+    private synchronized AttendanceEventLog openEventLog() throws IOException {
+        if (eventLog == null) {
+            eventLog = AttendanceEventLog.open(eventLogPath);
+        }
+        return eventLog;
+    }
+    
+    private static Map<Integer, Student> indexById(List<Student> students) {
+        Map<Integer, Student> byId = new HashMap<>(students.size() * 2);
+        for (Student student : students) {
+            if (byId.putIfAbsent(student.getId(), student) != null) {
+                LOGGER.warning("Duplicate student id in roster: " + student.getId());
+            }
+        }
+        return byId;
+    }
+    
+    /**
+     * Writes queued marks, waits for a running compaction, brings the CSV file up to date if
+     * saves since loading only patched the binary snapshot, closes the event log and stops
+     * watching media folders.
+     */
+    public void close() {
+        if (ownsMediaIndexes) {
+            imageIndex.close();
+            audioIndex.close();
+        }
+        EventLogWriter writer;
+        synchronized (this) {
+            writer = logWriter;
+            logWriter = null;
+        }
+        if (writer != null && !writer.close(30_000)) {
+            LOGGER.warning("Not every queued mark reached " + eventLogPath + "; they are in the saved roster only");
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            executor = compactionExecutor;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Student> students = roster;
+        boolean csvBehind;
+        synchronized (saveLock) {
+            csvBehind = patchedSinceLoad && recordsAheadOfCsv > 0;
+        }
+        if (students != null && csvBehind) {
+            try {
+                save(students, true);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to rewrite " + csvFilePath + "; the binary snapshot is newer", e);
+            }
+        }
+        synchronized (this) {
+            compactionExecutor = null;
+            if (eventLog != null) {
+                try {
+                    eventLog.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close attendance event log", e);
+                }
+                eventLog = null;
             }
-            throw new RuntimeException("Failed to save student data", e);
         }
     }
     
@@ -200,21 +764,52 @@ public class StudentDataService {
     
     /**
      * Gets the image path for a student.
+     * Answered from the in-memory media index without touching the file system.
      * @param studentId The student ID
      * @return Path to the student's image or null if not found
      */
     public String getStudentImagePath(int studentId) {
-        Path imagePath = imagesDir.resolve(studentId + ".jpg");
-        return Files.exists(imagePath) ? imagePath.toString() : null;
+        return imageIndex.contains(studentId) ? imageIndex.resolve(studentId).toString() : null;
     }
     
     /**
      * Gets the audio path for a student's name pronunciation.
+     * Answered from the in-memory media index without touching the file system.
      * @param studentId The student ID
      * @return Path to the student's audio file or null if not found
      */
     public String getStudentAudioPath(int studentId) {
-        Path audioPath = audioDir.resolve(studentId + ".mp3");
-        return Files.exists(audioPath) ? audioPath.toString() : null;
+        return audioIndex.contains(studentId) ? audioIndex.resolve(studentId).toString() : null;
+    }
+    
+    /**
+     * Opens the thumbnail atlas of all student photos, kept next to the photos and shared
+     * by every section. It is brought up to date in the background and follows later
+     * changes to the photo folder.
+     * @param cellSize Width and height in pixels that photos are scaled to fit
+     * @return The atlas; the caller closes it
+     */
+    public ThumbnailAtlas openThumbnailAtlas(int cellSize) {
+        ThumbnailAtlas atlas = new ThumbnailAtlas(imagesDir.resolve("thumbnails.atlas"), cellSize,
+                id -> imageIndex.contains(id) ? imageIndex.resolve(id) : null);
+        imageIndex.addListener(atlas::refresh);
+        atlas.sync(imageIndex.getIds());
+        return atlas;
+    }
+    
+    /**
+     * Registers a listener for added, changed or removed student photos.
+     * The listener is called with the student id on a background thread.
+     */
+    public void addImageChangeListener(IntConsumer listener) {
+        imageIndex.addListener(listener);
+    }
+    
+    /**
+     * Registers a listener for added, changed or removed name pronunciation clips.
+     * The listener is called with the student id on a background thread.
+     */
+    public void addAudioChangeListener(IntConsumer listener) {
+        audioIndex.addListener(listener);
     }
 }
@@ -0,0 +1,75 @@
+package edu.attendance.util;
+
+import edu.attendance.model.RosterStore;
+import edu.attendance.model.Student;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Open-addressing hash index from student id to roster row.
+ * <p>
+ * Ids and rows are kept in two int arrays at least twice the size of the roster, probed
+ * linearly from a multiplicative hash, so a lookup touches a cache line or two and boxes
+ * nothing. If an id appears in several rows, the first row wins, as with the server's
+ * index.
+ */
+public class StudentIdIndex {
+    private final int[] ids;
+    /** Row + 1 of each slot's id, 0 for an empty slot. */
+    private final int[] rows;
+    private final int mask;
+    private final int shift;
+
+    /**
+     * Indexes every row of a roster in O(n).
+     * @param store The roster; it must not change size or order while the index is in use
+     */
+    public StudentIdIndex(RosterStore store) {
+        this(store.size(), store::getId);
+    }
+
+    /**
+     * Indexes every student of a list in O(n).
+     * @param students The roster; it must not change size or order while the index is in use
+     */
+    public StudentIdIndex(List<Student> students) {
+        this(students.size(), row -> students.get(row).getId());
+    }
+
+    private StudentIdIndex(int size, IntUnaryOperator idOfRow) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+        ids = new int[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        for (int row = 0; row < size; row++) {
+            int id = idOfRow.applyAsInt(row);
+            int slot = slotOf(id);
+            while (rows[slot] != 0 && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (rows[slot] == 0) {
+                ids[slot] = id;
+                rows[slot] = row + 1;
+            }
+        }
+    }
+
+    /**
+     * @param id A student id
+     * @return The student's row, or -1 if there is no such student
+     */
+    public int rowOf(int id) {
+        int slot = slotOf(id);
+        while (rows[slot] != 0) {
+            if (ids[slot] == id) return rows[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotOf(int id) {
+        return (id * 0x9E3779B9) >>> shift;
+    }
+}
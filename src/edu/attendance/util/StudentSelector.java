@@ -0,0 +1,155 @@
+package edu.attendance.util;
+
+import edu.attendance.model.Student;
+
+import java.time.Clock;
+import java.util.*;
+
+/**
+ * Weighted random selection over a roster of students.
+ * Each student's selection probability is precomputed by a {@link SelectionWeightEngine},
+ * so a pick costs O(log n) and marking a student only updates that student's weight.
+ */
+public class StudentSelector {
+    private final List<Student> students;
+    private final StudentIdIndex rowById;
+    private final SelectionWeightEngine weights;
+
+    /**
+     * Creates a selector over the given roster. The list is not copied; it must not
+     * change size or order while the selector is in use.
+     * @param students The roster to select from
+     */
+    public StudentSelector(List<Student> students) {
+        this(students, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a selector that takes the current date from the given clock.
+     * @param students The roster to select from
+     * @param clock Source of the current date for recency weighting
+     */
+    public StudentSelector(List<Student> students, Clock clock) {
+        this.students = students;
+        this.rowById = new StudentIdIndex(students);
+        this.weights = new SelectionWeightEngine(students, clock);
+    }
+
+    /**
+     * @return The engine holding the precomputed weights
+     */
+    public SelectionWeightEngine getWeightEngine() {
+        return weights;
+    }
+
+    /**
+     * @return Number of students in the roster
+     */
+    public int size() {
+        return students.size();
+    }
+
+    /**
+     * Gets the roster position of a student. The row is found by id; only a student who
+     * shares an id with an earlier row falls back to a scan of the roster.
+     * @param student The student to look up
+     * @return The index of the student, or -1 if the student is not in this roster
+     */
+    public int indexOf(Student student) {
+        int row = rowById.rowOf(student.getId());
+        if (row < 0) return -1;
+        return students.get(row).equals(student) ? row : students.indexOf(student);
+    }
+
+    /**
+     * Picks a roster index with probability proportional to each student's selection probability.
+     * @param random Source of randomness
+     * @return The selected index, or -1 if the roster is empty
+     */
+    public int pickIndex(Random random) {
+        AttendanceEvents.RandomPick event = new AttendanceEvents.RandomPick();
+        event.begin();
+        long start = System.nanoTime();
+        int index = weights.sample(random.nextDouble());
+        MetricsRegistry.getDefault().timer(MetricsRegistry.SELECTION_PICK).stop(start);
+        if (event.shouldCommit()) {
+            event.rosterSize = students.size();
+            event.picked = index >= 0 ? 1 : 0;
+            event.commit();
+        }
+        return index;
+    }
+
+    /**
+     * Draws a roster index like {@link #pickIndex}, without recording it as a pick, for
+     * guessing who is likely to be picked next.
+     * @param uniform A uniform random number in [0, 1)
+     * @return The drawn index, or -1 if the roster is empty
+     */
+    public int sampleIndex(double uniform) {
+        return weights.sample(uniform);
+    }
+
+    /**
+     * Picks a student with probability proportional to their selection probability.
+     * @param random Source of randomness
+     * @return The selected student, or null if the roster is empty
+     */
+    public Student pick(Random random) {
+        int index = pickIndex(random);
+        return index >= 0 ? students.get(index) : null;
+    }
+
+    /**
+     * Picks k distinct roster indices in one weighted pass without replacement.
+     * @param k Number of students to pick
+     * @param random Source of randomness
+     * @return The selected indices in draw order; all indices if the roster has at most k students
+     */
+    public int[] pickDistinctIndices(int k, Random random) {
+        AttendanceEvents.RandomPick event = new AttendanceEvents.RandomPick();
+        event.begin();
+        long start = System.nanoTime();
+        int[] indices = weights.sampleWithoutReplacement(k, random::nextDouble);
+        MetricsRegistry.getDefault().timer(MetricsRegistry.SELECTION_PICK_GROUP).stop(start);
+        if (event.shouldCommit()) {
+            event.rosterSize = students.size();
+            event.picked = indices.length;
+            event.commit();
+        }
+        return indices;
+    }
+
+    /**
+     * Picks k distinct students, each draw weighted by selection probability.
+     * @param k Number of students to pick
+     * @param random Source of randomness
+     * @return The selected students in draw order
+     */
+    public List<Student> pickDistinct(int k, Random random) {
+        int[] indices = pickDistinctIndices(k, random);
+        List<Student> picked = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            picked.add(students.get(index));
+        }
+        return picked;
+    }
+
+    /**
+     * Recomputes the weight of a single student after their record changed.
+     * @param student The student whose attendance was marked
+     */
+    public void update(Student student) {
+        int row = indexOf(student);
+        if (row >= 0) {
+            weights.update(row);
+        }
+    }
+
+    /**
+     * Recomputes every weight, e.g. after records were changed without {@link #update}.
+     */
+    public void rebuildWeights() {
+        weights.recomputeAll();
+    }
+}
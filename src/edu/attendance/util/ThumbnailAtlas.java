@@ -0,0 +1,440 @@
+package edu.attendance.util;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Student photos downscaled once and packed into a single memory-mapped file, for views
+ * that show many photos at once.
+ * <p>
+ * Each thumbnail sits in a fixed-size slot as premultiplied BGRA pixels, the format JavaFX
+ * draws without conversion, so {@link #draw} copies it straight from the mapping into a
+ * canvas. An in-memory index maps student ids to slots. Every slot records the size and
+ * modified time of the photo it was made from, so {@link #sync} only decodes photos that
+ * are new or changed; a changed photo is rewritten in its own slot and the slots of removed
+ * photos are reused.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header  magic "ATTA", version, cell size, slot count
+ * slots   slot count x (in use, id, photo size (long), photo modified time (long), width, height,
+ *                       cell size x cell size x 4 pixel bytes)
+ * </pre>
+ * Pixels are written before their slot header, so a crash while updating leaves at worst a
+ * slot with the previous photo's size and time, which the next sync redoes. The file is a
+ * cache: one that cannot be read is started over.
+ */
+public class ThumbnailAtlas implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ThumbnailAtlas.class.getName());
+    private static final int MAGIC = 0x41545441; // "ATTA"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4;
+    private static final int SLOT_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+    private static final int MIN_SLOTS = 64;
+
+    private final Path file;
+    private final int cellSize;
+    private final int slotSize;
+    private final IntFunction<Path> photoLookup;
+    private final ExecutorService builder;
+    private final CopyOnWriteArrayList<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<Integer, Slot> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int slotCount;
+    private boolean closed;
+
+    /**
+     * @param file The atlas file; created if missing
+     * @param cellSize Width and height in pixels that photos are scaled to fit
+     * @param photoLookup Returns the photo of a student id, or null if there is none
+     */
+    public ThumbnailAtlas(Path file, int cellSize, IntFunction<Path> photoLookup) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.file = file;
+        this.cellSize = cellSize;
+        this.slotSize = SLOT_HEADER_SIZE + cellSize * cellSize * 4;
+        this.photoLookup = photoLookup;
+        this.builder = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "thumbnail-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Brings the atlas up to date in the background: opens the file on first use, makes
+     * thumbnails for new and changed photos and frees those of students no longer listed.
+     * @param ids Every student id that may have a photo
+     * @return A future completed with the number of photos decoded
+     */
+    public CompletableFuture<Integer> sync(int[] ids) {
+        try {
+            return CompletableFuture.supplyAsync(() -> syncNow(ids), builder);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(0);
+        }
+    }
+
+    /**
+     * Updates one student's thumbnail in the background, e.g. after their photo changed.
+     * Does nothing once the atlas is closed.
+     * @param studentId The student ID
+     */
+    public void refresh(int studentId) {
+        try {
+            builder.execute(() -> {
+                if (ensureOpen()) {
+                    update(studentId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Registers a listener called with a student id whenever that student's thumbnail is
+     * added, replaced or removed. Listeners run on the builder thread.
+     */
+    public void addListener(IntConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(IntConsumer listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Width and height of a cell, in pixels
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return Number of thumbnails in the atlas
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public synchronized boolean contains(int studentId) {
+        return slots.containsKey(studentId);
+    }
+
+    /**
+     * Copies a student's thumbnail into a pixel writer, centered in the cell whose top-left
+     * corner is at x, y. Parts outside the clip area are skipped.
+     * @param studentId The student ID
+     * @param writer Target, e.g. a canvas' pixel writer
+     * @param x Left edge of the cell
+     * @param y Top edge of the cell
+     * @param clipWidth Width of the target area, in pixels from 0
+     * @param clipHeight Height of the target area, in pixels from 0
+     * @return False if the student has no thumbnail yet
+     */
+    public synchronized boolean draw(int studentId, PixelWriter writer, int x, int y, int clipWidth, int clipHeight) {
+        Slot slot = slots.get(studentId);
+        if (slot == null || mapped == null) return false;
+
+        int left = x + (cellSize - slot.width) / 2;
+        int top = y + (cellSize - slot.height) / 2;
+        int skipX = Math.max(0, -left);
+        int skipY = Math.max(0, -top);
+        int width = Math.min(slot.width, clipWidth - left) - skipX;
+        int height = Math.min(slot.height, clipHeight - top) - skipY;
+        if (width <= 0 || height <= 0) return true;
+
+        ByteBuffer pixels = mapped.duplicate();
+        pixels.position((int) (pixelsOffset(slot.index) + ((long) skipY * cellSize + skipX) * 4));
+        writer.setPixels(left + skipX, top + skipY, width, height,
+                PixelFormat.getByteBgraPreInstance(), pixels, cellSize * 4);
+        return true;
+    }
+
+    private int syncNow(int[] ids) {
+        if (!ensureOpen()) return 0;
+        int decoded = 0;
+        Set<Integer> listed = new HashSet<>(ids.length * 2);
+        for (int id : ids) {
+            listed.add(id);
+            if (update(id)) decoded++;
+        }
+        List<Integer> unlisted = new ArrayList<>();
+        synchronized (this) {
+            for (Integer id : slots.keySet()) {
+                if (!listed.contains(id)) unlisted.add(id);
+            }
+        }
+        for (int id : unlisted) {
+            remove(id);
+        }
+        LOGGER.info("Thumbnail atlas " + file.getFileName() + " has " + size() + " photos, "
+                + decoded + " decoded");
+        return decoded;
+    }
+
+    /**
+     * Decodes a student's photo into their slot if the photo is new or changed.
+     * Runs on the builder thread; the lock is only held while the slot is written.
+     * @return True if the photo was decoded
+     */
+    private boolean update(int studentId) {
+        Path photo = photoLookup.apply(studentId);
+        BasicFileAttributes attributes = null;
+        if (photo != null) {
+            try {
+                attributes = Files.readAttributes(photo, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // removed since it was listed
+            }
+        }
+        if (attributes == null) {
+            remove(studentId);
+            return false;
+        }
+
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        synchronized (this) {
+            Slot slot = slots.get(studentId);
+            if (slot != null && slot.photoSize == size && slot.photoModified == modified) {
+                return false;
+            }
+        }
+
+        long start = System.nanoTime();
+        Image image = new Image(photo.toUri().toString(), cellSize, cellSize, true, true);
+        if (image.isError()) {
+            LOGGER.log(Level.WARNING, "Failed to decode photo " + photo, image.getException());
+            remove(studentId);
+            return false;
+        }
+        int width = Math.min(cellSize, (int) Math.round(image.getWidth()));
+        int height = Math.min(cellSize, (int) Math.round(image.getHeight()));
+        byte[] pixels = new byte[cellSize * cellSize * 4];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(),
+                pixels, 0, cellSize * 4);
+        try {
+            store(studentId, size, modified, width, height, pixels);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write thumbnail of student " + studentId, e);
+            return false;
+        }
+        MetricsRegistry.getDefault().timer(MetricsRegistry.PHOTO_THUMBNAIL).stop(start);
+        notifyListeners(studentId);
+        return true;
+    }
+
+    /**
+     * Writes a thumbnail into the student's slot, a free slot or a new one.
+     * @param pixels Premultiplied BGRA pixels with a row stride of the cell width
+     */
+    synchronized void store(int studentId, long photoSize, long photoModified, int width, int height,
+                            byte[] pixels) throws IOException {
+        if (closed) return;
+        Slot slot = slots.get(studentId);
+        if (slot == null) {
+            if (freeSlots.isEmpty()) {
+                grow();
+            }
+            slot = new Slot(freeSlots.pop());
+        }
+
+        ByteBuffer target = mapped.duplicate();
+        target.position((int) pixelsOffset(slot.index));
+        target.put(pixels, 0, cellSize * cellSize * 4);
+        target.position((int) slotOffset(slot.index));
+        target.putInt(1).putInt(studentId).putLong(photoSize).putLong(photoModified).putInt(width).putInt(height);
+
+        slot.photoSize = photoSize;
+        slot.photoModified = photoModified;
+        slot.width = width;
+        slot.height = height;
+        slots.put(studentId, slot);
+    }
+
+    private void remove(int studentId) {
+        synchronized (this) {
+            Slot slot = slots.remove(studentId);
+            if (slot == null || closed) return;
+            mapped.putInt((int) slotOffset(slot.index), 0);
+            freeSlots.push(slot.index);
+        }
+        notifyListeners(studentId);
+    }
+
+    /**
+     * Doubles the number of slots, remapping the file.
+     */
+    private void grow() throws IOException {
+        int newCount = Math.max(MIN_SLOTS, slotCount * 2);
+        long newSize = slotOffset(newCount);
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IOException("Thumbnail atlas is full: " + file);
+        }
+        channel.write(ByteBuffer.allocate(1), newSize - 1);
+        ByteBuffer count = ByteBuffer.allocate(4).putInt(0, newCount);
+        channel.write(count, 12);
+        for (int index = newCount - 1; index >= slotCount; index--) {
+            freeSlots.push(index);
+        }
+        slotCount = newCount;
+        remap();
+    }
+
+    private void remap() throws IOException {
+        MappedByteBuffer previous = mapped;
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (previous != null) {
+            MappedStudentCsvReader.unmap(previous);
+        }
+    }
+
+    /**
+     * Opens the file and indexes its slots, starting it over if it is missing, from another
+     * version or made for another cell size.
+     * @return False if the atlas is closed or cannot be opened
+     */
+    private synchronized boolean ensureOpen() {
+        if (closed) return false;
+        if (channel != null) return true;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            int count = header.remaining() == HEADER_SIZE && header.getInt() == MAGIC
+                    && header.getInt() == VERSION && header.getInt() == cellSize ? header.getInt() : -1;
+            if (count < 0 || slotOffset(count) > channel.size()) {
+                channel.truncate(0);
+                header.clear();
+                header.putInt(MAGIC).putInt(VERSION).putInt(cellSize).putInt(0).flip();
+                channel.write(header, 0);
+                count = 0;
+            }
+            slotCount = count;
+            remap();
+
+            for (int index = count - 1; index >= 0; index--) {
+                int offset = (int) slotOffset(index);
+                if (mapped.getInt(offset) == 0 || slots.containsKey(mapped.getInt(offset + 4))) {
+                    freeSlots.push(index);
+                    continue;
+                }
+                Slot slot = new Slot(index);
+                slot.photoSize = mapped.getLong(offset + 8);
+                slot.photoModified = mapped.getLong(offset + 16);
+                slot.width = mapped.getInt(offset + 24);
+                slot.height = mapped.getInt(offset + 28);
+                slots.put(mapped.getInt(offset + 4), slot);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot open thumbnail atlas " + file, e);
+            closeFile();
+            return false;
+        }
+    }
+
+    private long slotOffset(int index) {
+        return HEADER_SIZE + (long) index * slotSize;
+    }
+
+    private long pixelsOffset(int index) {
+        return slotOffset(index) + SLOT_HEADER_SIZE;
+    }
+
+    private void notifyListeners(int studentId) {
+        for (IntConsumer listener : listeners) {
+            try {
+                listener.accept(studentId);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Thumbnail listener failed", e);
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (mapped != null) {
+            MappedStudentCsvReader.unmap(mapped);
+            mapped = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close thumbnail atlas", e);
+            }
+            channel = null;
+        }
+        slots.clear();
+        freeSlots.clear();
+    }
+
+    /**
+     * Stops the builder and closes the file. Thumbnails written so far are kept.
+     */
+    @Override
+    public void close() {
+        builder.shutdownNow();
+        try {
+            builder.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+            closeFile();
+        }
+    }
+
+    /**
+     * Where a student's thumbnail is and which photo it was made from.
+     */
+    private static final class Slot {
+        final int index;
+        long photoSize;
+        long photoModified;
+        int width;
+        int height;
+
+        Slot(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package edu.attendance.util;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Weighted random sampler backed by a Fenwick (binary indexed) tree.
+ * Picking an index and updating a single weight both run in O(log n),
+ * so the sampler can stay in sync with the roster between picks instead
+ * of recomputing every weight on each selection.
+ */
+public class WeightedSampler {
+    private final double[] weights;
+    private final double[] tree;
+    private final int highestPowerOfTwo;
+    private int updatesSinceRebuild;
+
+    /**
+     * Creates a sampler with the given initial weights.
+     * @param initialWeights The weight of each index; negative values are treated as zero
+     */
+    public WeightedSampler(double[] initialWeights) {
+        int n = initialWeights.length;
+        weights = new double[n];
+        tree = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            weights[i] = sanitize(initialWeights[i]);
+        }
+        highestPowerOfTwo = n == 0 ? 0 : Integer.highestOneBit(n);
+        rebuild();
+    }
+
+    /**
+     * @return Number of indices in the sampler
+     */
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * Gets the current weight of an index.
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Updates the weight of a single index in O(log n).
+     * @param index The index to update
+     * @param weight The new weight; negative values are treated as zero
+     */
+    public void setWeight(int index, double weight) {
+        double newWeight = sanitize(weight);
+        double delta = newWeight - weights[index];
+        if (delta == 0) return;
+        weights[index] = newWeight;
+        for (int i = index + 1; i <= weights.length; i += i & -i) {
+            tree[i] += delta;
+        }
+
+        // Periodically rebuild so floating point drift from repeated deltas cannot accumulate
+        if (++updatesSinceRebuild > Math.max(1024, weights.length)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return The sum of all weights
+     */
+    public double getTotalWeight() {
+        double sum = 0;
+        for (int i = weights.length; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Picks an index with probability proportional to its weight.
+     * If every weight is zero the pick falls back to a uniform choice.
+     * @param u A uniformly distributed value in [0, 1)
+     * @return The selected index, or -1 if the sampler is empty
+     */
+    public int sample(double u) {
+        int n = weights.length;
+        if (n == 0) return -1;
+
+        double total = getTotalWeight();
+        if (!(total > 0)) {
+            return Math.min((int) (u * n), n - 1);
+        }
+
+        // Descend the tree to find the first index whose prefix sum exceeds the target
+        double target = u * total;
+        int position = 0;
+        for (int step = highestPowerOfTwo; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= n && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+
+        // Rounding can push the target past the last positive weight; walk back to it
+        int index = Math.min(position, n - 1);
+        while (index > 0 && weights[index] == 0) {
+            index--;
+        }
+        while (index < n - 1 && weights[index] == 0) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Draws k distinct indices without replacement using the Efraimidis-Spirakis
+     * weighted reservoir algorithm: each index gets the key log(u) / weight and the
+     * k largest keys win. This is a single pass in O(n log k) and is equivalent to
+     * k successive weighted draws that each exclude the indices already drawn.
+     * Indices with zero weight are only drawn, uniformly, once no weighted ones remain.
+     * @param k Number of indices to draw
+     * @param uniform Source of uniformly distributed values in [0, 1)
+     * @return The drawn indices in draw order; shorter than k if the sampler has fewer indices
+     */
+    public int[] sampleWithoutReplacement(int k, DoubleSupplier uniform) {
+        int count = Math.min(Math.max(k, 0), weights.length);
+        if (count == 0) return new int[0];
+
+        // Min-heap of the best keys seen so far, stored in parallel primitive arrays
+        double[] heapKeys = new double[count];
+        int[] heapIndices = new int[count];
+        int heapSize = 0;
+
+        for (int i = 0; i < weights.length; i++) {
+            double key = reservoirKey(weights[i], uniform.getAsDouble());
+            if (heapSize < count) {
+                heapKeys[heapSize] = key;
+                heapIndices[heapSize] = i;
+                siftUp(heapKeys, heapIndices, heapSize++);
+            } else if (key > heapKeys[0]) {
+                heapKeys[0] = key;
+                heapIndices[0] = i;
+                siftDown(heapKeys, heapIndices, 0, heapSize);
+            }
+        }
+
+        // Pop the heap so the result is ordered from the largest key (first draw) down
+        int[] result = new int[count];
+        for (int slot = count - 1; slot >= 0; slot--) {
+            result[slot] = heapIndices[0];
+            heapSize--;
+            heapKeys[0] = heapKeys[heapSize];
+            heapIndices[0] = heapIndices[heapSize];
+            siftDown(heapKeys, heapIndices, 0, heapSize);
+        }
+        return result;
+    }
+
+    private static double reservoirKey(double weight, double u) {
+        if (weight > 0) {
+            // 1 - u lies in (0, 1], which keeps the logarithm finite
+            return Math.log(1.0 - u) / weight;
+        }
+        // Below every real key, but still random so zero-weight fill-ins stay uniform
+        return -1e300 * (1.0 + u);
+    }
+
+    private static void siftUp(double[] keys, int[] indices, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= keys[position]) break;
+            swap(keys, indices, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(double[] keys, int[] indices, int position, int size) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest]) smallest = left;
+            if (right < size && keys[right] < keys[smallest]) smallest = right;
+            if (smallest == position) return;
+            swap(keys, indices, smallest, position);
+            position = smallest;
+        }
+    }
+
+    private static void swap(double[] keys, int[] indices, int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+    }
+
+    /**
+     * Rebuilds the tree from the stored weights in O(n), discarding accumulated rounding error.
+     */
+    public void rebuild() {
+        updatesSinceRebuild = 0;
+        Arrays.fill(tree, 0);
+        System.arraycopy(weights, 0, tree, 1, weights.length);
+        for (int i = 1; i <= weights.length; i++) {
+            int parent = i + (i & -i);
+            if (parent <= weights.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static double sanitize(double weight) {
+        return weight > 0 && Double.isFinite(weight) ? weight : 0.0;
+    }
+}